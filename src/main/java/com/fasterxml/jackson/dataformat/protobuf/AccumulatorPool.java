@@ -0,0 +1,173 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+/**
+ * Per-generator pool for objects needed when buffering content to calculate
+ * length prefixes: secondary output buffers, {@link ByteAccumulator}s and
+ * their segments (as well as staging buffer used for writing them out).
+ * Accumulators are returned when finished; segments and secondary buffers
+ * once all buffered content has been written out.
+ *<p>
+ * Number of pooled instances is limited, so that writing a single big message
+ * does not lead to retaining all memory it needed.
+ *<p>
+ * Instances are not thread-safe.
+ *
+ * @since 2.7.10
+ */
+public class AccumulatorPool
+{
+    /**
+     * Maximum number of free secondary buffers to retain (about 1 megabyte)
+     */
+    protected final static int MAX_POOLED_BUFFERS = 16;
+
+    protected final static int MAX_POOLED_ACCUMULATORS = 64;
+
+    protected final static int MAX_POOLED_SEGMENTS = 1024;
+
+    /**
+     * Secondary buffers allocated since the last call to {@link #releaseBuffers}
+     */
+    protected byte[][] _usedBuffers = new byte[4][];
+
+    protected int _usedBufferCount;
+
+    protected final byte[][] _freeBuffers = new byte[MAX_POOLED_BUFFERS][];
+
+    protected int _freeBufferCount;
+
+    protected final ByteAccumulator[] _freeAccumulators = new ByteAccumulator[MAX_POOLED_ACCUMULATORS];
+
+    protected int _freeAccumulatorCount;
+
+    /**
+     * Free segments, linked using their "next" pointers
+     */
+    protected ByteAccumulator.Segment _freeSegments;
+
+    protected int _freeSegmentCount;
+
+    /**
+     * Helper object (with staging buffer) for writing out content, lazily created
+     */
+    protected CoalescingOutput _coalescingOutput;
+
+    public AccumulatorPool() { }
+
+    /*
+    /**********************************************************
+    /* Secondary buffers
+    /**********************************************************
+     */
+
+    /**
+     * Method for getting a secondary buffer, to use after current one has been
+     * filled with content that can not yet be written out.
+     */
+    public byte[] allocSecondary()
+    {
+        byte[] buf;
+        if (_freeBufferCount > 0) {
+            buf = _freeBuffers[--_freeBufferCount];
+            _freeBuffers[_freeBufferCount] = null;
+        } else {
+            buf = new byte[ProtobufUtil.SECONDARY_BUFFER_LENGTH];
+        }
+        if (_usedBufferCount == _usedBuffers.length) {
+            byte[][] b = new byte[_usedBufferCount << 1][];
+            System.arraycopy(_usedBuffers, 0, b, 0, _usedBufferCount);
+            _usedBuffers = b;
+        }
+        _usedBuffers[_usedBufferCount++] = buf;
+        return buf;
+    }
+
+    /**
+     * Method called once all buffered content has been written out, to return
+     * secondary buffers, except for one still in use (if any), for reuse.
+     *
+     * @param current Buffer that is still being used by generator, if any
+     */
+    public void releaseBuffers(byte[] current)
+    {
+        final int count = _usedBufferCount;
+        if (count == 0) {
+            return;
+        }
+        final byte[][] used = _usedBuffers;
+        _usedBufferCount = 0;
+        for (int i = 0; i < count; ++i) {
+            byte[] buf = used[i];
+            used[i] = null;
+            if (buf == current) {
+                _usedBuffers[_usedBufferCount++] = buf;
+            } else if (_freeBufferCount < MAX_POOLED_BUFFERS) {
+                _freeBuffers[_freeBufferCount++] = buf;
+            }
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Accumulators, segments
+    /**********************************************************
+     */
+
+    public ByteAccumulator accumulator(ByteAccumulator parent, int typedTag,
+            byte[] prefixBuffer, int prefixOffset)
+    {
+        ByteAccumulator acc;
+        if (_freeAccumulatorCount > 0) {
+            acc = _freeAccumulators[--_freeAccumulatorCount];
+            _freeAccumulators[_freeAccumulatorCount] = null;
+        } else {
+            acc = new ByteAccumulator(this);
+        }
+        return acc._init(parent, typedTag, prefixBuffer, prefixOffset);
+    }
+
+    protected void release(ByteAccumulator acc)
+    {
+        if (_freeAccumulatorCount < MAX_POOLED_ACCUMULATORS) {
+            _freeAccumulators[_freeAccumulatorCount++] = acc;
+        }
+    }
+
+    protected ByteAccumulator.Segment segment()
+    {
+        ByteAccumulator.Segment s = _freeSegments;
+        if (s == null) {
+            return new ByteAccumulator.Segment();
+        }
+        _freeSegments = s._next;
+        --_freeSegmentCount;
+        return s;
+    }
+
+    protected CoalescingOutput coalescingOutput()
+    {
+        if (_coalescingOutput == null) {
+            _coalescingOutput = new CoalescingOutput(CoalescingOutput.STAGING_BUFFER_LENGTH);
+        }
+        return _coalescingOutput;
+    }
+
+    /**
+     * Method for returning a chain of segments, from first to last (inclusive)
+     */
+    protected void releaseSegments(ByteAccumulator.Segment first, ByteAccumulator.Segment last)
+    {
+        ByteAccumulator.Segment s = first;
+        while (_freeSegmentCount < MAX_POOLED_SEGMENTS) {
+            ByteAccumulator.Segment next = s._next;
+            s._clear();
+            s._next = _freeSegments;
+            _freeSegments = s;
+            ++_freeSegmentCount;
+            if (s == last) {
+                break;
+            }
+            s = next;
+        }
+    }
+}
@@ -8,7 +8,15 @@ import java.io.*;
  */
 public class ByteAccumulator
 {
-    protected final ByteAccumulator _parent;
+    /**
+     * Pool this accumulator (and its segments) is returned to once finished,
+     * if any.
+     *
+     * @since 2.7.10
+     */
+    protected final AccumulatorPool _pool;
+
+    protected ByteAccumulator _parent;
 
     /**
      * Caller-provided buffer in which optional type prefix,
@@ -16,15 +24,15 @@ public class ByteAccumulator
      * Caller ensures there is enough room for both, i.e. up
      * to 10 bytes (if both) or 5 bytes (if just length)
      */
-    protected final byte[] _prefixBuffer;
+    protected byte[] _prefixBuffer;
 
     /**
      * Offset within {@link #_prefixBuffer} where there is room
      * for prefix.
      */
-    protected final int _prefixOffset;
+    protected int _prefixOffset;
     
-    protected final int _typedTag;
+    protected int _typedTag;
 
     protected Segment _firstSegment, _lastSegment;
 
@@ -33,6 +41,7 @@ public class ByteAccumulator
     public ByteAccumulator(ByteAccumulator p, int typedTag,
             byte[] prefixBuffer, int prefixOffset)
     {
+        _pool = null;
         _parent = p;
         _typedTag = typedTag;
         _prefixBuffer = prefixBuffer;
@@ -41,14 +50,36 @@ public class ByteAccumulator
 
     public ByteAccumulator(ByteAccumulator p,
             byte[] prefixBuffer, int prefixOffset) {
+        _pool = null;
         _parent = p;
         _typedTag = -1;
         _prefixBuffer = prefixBuffer;
         _prefixOffset = prefixOffset;
     }
 
+    /**
+     * Constructor used by {@link AccumulatorPool}: state is assigned
+     * using {@link #_init}.
+     *
+     * @since 2.7.10
+     */
+    protected ByteAccumulator(AccumulatorPool pool) {
+        _pool = pool;
+    }
+
+    protected ByteAccumulator _init(ByteAccumulator p, int typedTag,
+            byte[] prefixBuffer, int prefixOffset)
+    {
+        _parent = p;
+        _typedTag = typedTag;
+        _prefixBuffer = prefixBuffer;
+        _prefixOffset = prefixOffset;
+        return this;
+    }
+
     public void append(byte[] buf, int offset, int len) {
-        Segment s = new Segment(buf, offset, len);
+        Segment s = (_pool == null) ? new Segment() : _pool.segment();
+        s._init(buf, offset, len);
         if (_lastSegment == null) {
             _firstSegment = _lastSegment = s;
         } else {
@@ -76,13 +107,7 @@ public class ByteAccumulator
 
         // root? Just output it all 
         if (_parent == null) {
-            out.write(prefix, start, ptr-start);
-            for (Segment s = _firstSegment; s != null; s = s.next()) {
-                s.writeTo(out);
-            }
-            if (len > 0) {
-                out.write(input, offset, len);
-            }
+            _writeAll(out, prefix, start, ptr, input, offset, len);
         } else {
             _parent.append(prefix, start, ptr-start);
             if (_firstSegment != null) {
@@ -92,7 +117,7 @@ public class ByteAccumulator
                 _parent.append(input, offset, len);
             }
         }
-        return _parent;
+        return _release();
     }
 
     public ByteAccumulator finish(OutputStream out) throws IOException
@@ -111,17 +136,64 @@ public class ByteAccumulator
 
         // root? Just output it all 
         if (_parent == null) {
-            out.write(prefix, start, ptr-start);
-            for (Segment s = _firstSegment; s != null; s = s.next()) {
-                s.writeTo(out);
-            }
+            _writeAll(out, prefix, start, ptr, null, 0, 0);
         } else {
             _parent.append(prefix, start, ptr-start);
             if (_firstSegment != null) {
                 _parent.appendAll(_firstSegment, _lastSegment, _segmentBytes);
             }
         }
-        return _parent;
+        return _release();
+    }
+
+    /**
+     * Method for writing out all content of the root-level accumulator: prefix,
+     * segments, and trailing content, if any. Small pieces are coalesced, to
+     * avoid large number of small writes.
+     */
+    private void _writeAll(OutputStream out, byte[] prefix, int prefixStart, int prefixEnd,
+            byte[] input, int offset, int len) throws IOException
+    {
+        CoalescingOutput co;
+        if (_pool == null) {
+            int total = (prefixEnd - prefixStart) + _segmentBytes + len;
+            co = new CoalescingOutput(Math.min(total, CoalescingOutput.STAGING_BUFFER_LENGTH));
+        } else {
+            co = _pool.coalescingOutput();
+        }
+        co.init(out);
+        co.write(prefix, prefixStart, prefixEnd - prefixStart);
+        for (Segment s = _firstSegment; s != null; s = s.next()) {
+            co.write(s._buffer, s._start, s._length);
+        }
+        if (len > 0) {
+            co.write(input, offset, len);
+        }
+        co.finish();
+    }
+
+    /**
+     * Method called once contents have been written out or passed to
+     * the parent, to return this accumulator (and, if root-level, all
+     * segments it had) to the pool, if it has one.
+     *
+     * @return Parent accumulator
+     */
+    private ByteAccumulator _release()
+    {
+        final ByteAccumulator parent = _parent;
+        if (_pool != null) {
+            // segments were linked to parent, unless this was the root
+            if ((parent == null) && (_firstSegment != null)) {
+                _pool.releaseSegments(_firstSegment, _lastSegment);
+            }
+            _firstSegment = _lastSegment = null;
+            _segmentBytes = 0;
+            _parent = null;
+            _prefixBuffer = null;
+            _pool.release(this);
+        }
+        return parent;
     }
 
     private void appendAll(Segment first, Segment last, int segmentBytes)
@@ -143,17 +215,22 @@ public class ByteAccumulator
     /**********************************************************
      */
 
-    private final static class Segment
+    protected final static class Segment
     {
-        private final byte[] _buffer;
-        private final int _start, _length;
+        private byte[] _buffer;
+        private int _start, _length;
 
-        private Segment _next;
+        Segment _next;
 
-        public Segment(byte[] buffer, int start, int length) {
+        void _init(byte[] buffer, int start, int length) {
             _buffer = buffer;
             _start = start;
             _length = length;
+            _next = null;
+        }
+
+        void _clear() {
+            _buffer = null;
         }
 
         public Segment linkNext(Segment next) {
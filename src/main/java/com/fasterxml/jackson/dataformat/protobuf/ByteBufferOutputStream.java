@@ -0,0 +1,50 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link OutputStream} that writes into a caller-provided {@link ByteBuffer}
+ * (heap or direct), starting at its current position. Since buffer is not grown,
+ * an {@link IOException} is thrown if content does not fit in the remaining space.
+ *<p>
+ * Used by {@link ProtobufFactory#createGenerator(ByteBuffer)}.
+ *
+ * @since 2.7.10
+ */
+public class ByteBufferOutputStream extends OutputStream
+{
+    protected final ByteBuffer _buffer;
+
+    public ByteBufferOutputStream(ByteBuffer buffer) {
+        _buffer = buffer;
+    }
+
+    public ByteBuffer getBuffer() {
+        return _buffer;
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        if (!_buffer.hasRemaining()) {
+            _reportOverflow(1);
+        }
+        _buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        if (len > _buffer.remaining()) {
+            _reportOverflow(len);
+        }
+        _buffer.put(b, off, len);
+    }
+
+    protected void _reportOverflow(int needed) throws IOException {
+        throw new IOException("Not enough room in ByteBuffer: need to write "+needed
+                +" bytes, only "+_buffer.remaining()+" remaining");
+    }
+}
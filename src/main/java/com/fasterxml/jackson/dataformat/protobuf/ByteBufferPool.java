@@ -0,0 +1,77 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Simple pool of fixed-size {@link ByteBuffer}s (heap or direct), used as
+ * chunks by {@link ChunkedByteBufferOutputStream}. Number of pooled buffers is
+ * limited; buffers released beyond that are left for garbage collection.
+ *<p>
+ * Instances are thread-safe, so a single pool may be shared.
+ *
+ * @since 2.7.10
+ */
+public class ByteBufferPool
+{
+    public final static int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    public final static int DEFAULT_MAX_POOLED = 64;
+
+    protected final int _chunkSize;
+
+    protected final boolean _direct;
+
+    protected final ByteBuffer[] _free;
+
+    protected int _freeCount;
+
+    public ByteBufferPool(boolean direct) {
+        this(DEFAULT_CHUNK_SIZE, direct, DEFAULT_MAX_POOLED);
+    }
+
+    public ByteBufferPool(int chunkSize, boolean direct, int maxPooled)
+    {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size ("+chunkSize+"): must be positive");
+        }
+        _chunkSize = chunkSize;
+        _direct = direct;
+        _free = new ByteBuffer[Math.max(0, maxPooled)];
+    }
+
+    public int getChunkSize() { return _chunkSize; }
+
+    public boolean isDirect() { return _direct; }
+
+    /**
+     * Method for getting a cleared buffer, either pooled or newly allocated
+     */
+    public ByteBuffer acquire()
+    {
+        synchronized (_free) {
+            if (_freeCount > 0) {
+                ByteBuffer bb = _free[--_freeCount];
+                _free[_freeCount] = null;
+                bb.clear();
+                return bb;
+            }
+        }
+        return _direct ? ByteBuffer.allocateDirect(_chunkSize) : ByteBuffer.allocate(_chunkSize);
+    }
+
+    /**
+     * Method for returning a buffer acquired from this pool. Caller must not
+     * use buffer (or its views) after this call.
+     */
+    public void release(ByteBuffer bb)
+    {
+        if ((bb.capacity() != _chunkSize) || (bb.isDirect() != _direct)) {
+            return;
+        }
+        synchronized (_free) {
+            if (_freeCount < _free.length) {
+                _free[_freeCount++] = bb;
+            }
+        }
+    }
+}
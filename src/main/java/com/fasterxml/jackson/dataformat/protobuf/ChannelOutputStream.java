@@ -0,0 +1,49 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Simple {@link OutputStream} that writes to a {@link WritableByteChannel}.
+ * Used by {@link ProtobufFactory#createGenerator(WritableByteChannel)} so that
+ * generator can detect the channel, and write buffered contents of nested
+ * Messages using a single gathering write, if the channel is a
+ * {@link java.nio.channels.GatheringByteChannel}.
+ *<p>
+ * Channel is expected to be in blocking mode.
+ *
+ * @since 2.7.10
+ */
+public class ChannelOutputStream extends OutputStream
+{
+    protected final WritableByteChannel _channel;
+
+    public ChannelOutputStream(WritableByteChannel ch) {
+        _channel = ch;
+    }
+
+    public WritableByteChannel getChannel() {
+        return _channel;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+        while (bb.hasRemaining()) {
+            _channel.write(bb);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        _channel.close();
+    }
+}
@@ -0,0 +1,132 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link OutputStream} that writes into a growable chain of {@link ByteBuffer}
+ * chunks, obtained from a {@link ByteBufferPool}. Once content has been written,
+ * {@link #getBuffers} returns chunks ready for reading, so that they may be
+ * passed as is to (gathering) channel writes without copying content into
+ * a single array; and once they are no longer needed, {@link #release}
+ * returns chunks to the pool.
+ *<p>
+ * Instances are not thread-safe.
+ *
+ * @since 2.7.10
+ */
+public class ChunkedByteBufferOutputStream extends OutputStream
+{
+    protected final ByteBufferPool _pool;
+
+    protected ByteBuffer[] _chunks = new ByteBuffer[8];
+
+    protected int _chunkCount;
+
+    /**
+     * Chunk being written to; last one of {@link #_chunks}, if any
+     */
+    protected ByteBuffer _current;
+
+    /**
+     * Number of bytes in chunks before the current one
+     */
+    protected long _fullBytes;
+
+    public ChunkedByteBufferOutputStream(ByteBufferPool pool) {
+        _pool = pool;
+    }
+
+    /*
+    /**********************************************************
+    /* OutputStream implementation
+    /**********************************************************
+     */
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        if ((_current == null) || !_current.hasRemaining()) {
+            _nextChunk();
+        }
+        _current.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        while (len > 0) {
+            if ((_current == null) || !_current.hasRemaining()) {
+                _nextChunk();
+            }
+            int count = Math.min(len, _current.remaining());
+            _current.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Public API
+    /**********************************************************
+     */
+
+    /**
+     * @return Total number of bytes written
+     */
+    public long size() {
+        return (_current == null) ? 0L : (_fullBytes + _current.position());
+    }
+
+    /**
+     * Method for accessing content written so far, as views of chunks that are
+     * positioned for reading (chunks themselves are not modified). Views are
+     * only valid until {@link #release} is called.
+     */
+    public ByteBuffer[] getBuffers()
+    {
+        ByteBuffer[] result = new ByteBuffer[_chunkCount];
+        for (int i = 0; i < _chunkCount; ++i) {
+            ByteBuffer bb = _chunks[i].duplicate();
+            bb.flip();
+            result[i] = bb;
+        }
+        return result;
+    }
+
+    /**
+     * Method for returning all chunks to the pool, after which this
+     * stream may be reused for writing more content.
+     */
+    public void release()
+    {
+        for (int i = 0; i < _chunkCount; ++i) {
+            _pool.release(_chunks[i]);
+            _chunks[i] = null;
+        }
+        _chunkCount = 0;
+        _current = null;
+        _fullBytes = 0L;
+    }
+
+    /*
+    /**********************************************************
+    /* Internal methods
+    /**********************************************************
+     */
+
+    private void _nextChunk()
+    {
+        if (_current != null) {
+            _fullBytes += _current.position();
+        }
+        if (_chunkCount == _chunks.length) {
+            _chunks = Arrays.copyOf(_chunks, _chunkCount << 1);
+        }
+        _current = _pool.acquire();
+        _chunks[_chunkCount++] = _current;
+    }
+}
@@ -0,0 +1,155 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Helper object used by {@link ByteAccumulator} for writing out buffered content
+ * (segments) of a root-level entry: short segments are copied into a staging
+ * buffer and written together, to avoid many small writes; long ones are written
+ * directly. If target is a {@link ChannelOutputStream} for a
+ * {@link GatheringByteChannel}, all content is instead written using gathering
+ * writes, with staged content as one of the buffers.
+ *
+ * @since 2.7.10
+ */
+final class CoalescingOutput
+{
+    /**
+     * Minimum length of content written directly, instead of via staging buffer
+     */
+    final static int MIN_DIRECT_WRITE = 2048;
+
+    final static int STAGING_BUFFER_LENGTH = 16000;
+
+    private final byte[] _staging;
+
+    private OutputStream _out;
+
+    /**
+     * Channel to use for gathering writes, if any
+     */
+    private GatheringByteChannel _channel;
+
+    /**
+     * Buffers to write with the next gathering write
+     */
+    private ByteBuffer[] _pending;
+
+    private int _pendingCount;
+
+    /**
+     * End of content in staging buffer
+     */
+    private int _stagingPtr;
+
+    /**
+     * Start of staged content not yet included in pending buffers
+     */
+    private int _runStart;
+
+    public CoalescingOutput(int stagingLength) {
+        _staging = new byte[stagingLength];
+    }
+
+    public CoalescingOutput init(OutputStream out)
+    {
+        _out = out;
+        _channel = null;
+        if (out instanceof ChannelOutputStream) {
+            WritableByteChannel ch = ((ChannelOutputStream) out).getChannel();
+            if (ch instanceof GatheringByteChannel) {
+                _channel = (GatheringByteChannel) ch;
+                if (_pending == null) {
+                    _pending = new ByteBuffer[16];
+                }
+            }
+        }
+        return this;
+    }
+
+    public void write(byte[] buf, int offset, int len) throws IOException
+    {
+        if (len >= MIN_DIRECT_WRITE) {
+            if (_channel == null) {
+                if (_stagingPtr > 0) {
+                    _out.write(_staging, 0, _stagingPtr);
+                    _stagingPtr = 0;
+                }
+                _out.write(buf, offset, len);
+            } else {
+                _endRun();
+                _addPending(ByteBuffer.wrap(buf, offset, len));
+            }
+            return;
+        }
+        if ((_stagingPtr + len) > _staging.length) {
+            flush();
+        }
+        System.arraycopy(buf, offset, _staging, _stagingPtr, len);
+        _stagingPtr += len;
+    }
+
+    /**
+     * Method for writing out all content; needs to be called before staging
+     * buffer may be reused.
+     */
+    public void flush() throws IOException
+    {
+        if (_channel == null) {
+            if (_stagingPtr > 0) {
+                _out.write(_staging, 0, _stagingPtr);
+            }
+        } else {
+            _endRun();
+            final ByteBuffer[] bufs = _pending;
+            final int count = _pendingCount;
+            int ix = 0;
+            while (ix < count) {
+                _channel.write(bufs, ix, count - ix);
+                while ((ix < count) && !bufs[ix].hasRemaining()) {
+                    ++ix;
+                }
+            }
+            Arrays.fill(bufs, 0, count, null);
+            _pendingCount = 0;
+        }
+        _stagingPtr = 0;
+        _runStart = 0;
+    }
+
+    /**
+     * Method called once all content has been written, to flush it and
+     * clear reference to output.
+     */
+    public void finish() throws IOException
+    {
+        flush();
+        _out = null;
+        _channel = null;
+    }
+
+    /**
+     * Helper method for adding staged content since the previous call (if any)
+     * as a pending buffer.
+     */
+    private void _endRun()
+    {
+        if (_stagingPtr > _runStart) {
+            _addPending(ByteBuffer.wrap(_staging, _runStart, _stagingPtr - _runStart));
+            _runStart = _stagingPtr;
+        }
+    }
+
+    private void _addPending(ByteBuffer bb)
+    {
+        if (_pendingCount == _pending.length) {
+            _pending = Arrays.copyOf(_pending, _pendingCount << 1);
+        }
+        _pending[_pendingCount++] = bb;
+    }
+}
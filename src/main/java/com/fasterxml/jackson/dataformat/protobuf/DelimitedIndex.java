@@ -0,0 +1,305 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.*;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+/**
+ * Index of byte offsets of messages in a file of length-delimited messages
+ * (see {@link ProtobufParser.Feature#LENGTH_DELIMITED}), used for
+ * starting to read content from a specific message without decoding
+ * all preceding content.
+ *<p>
+ * To keep the index compact, offset may be stored for just every k-th message
+ * (as specified by "interval"); messages in-between are then located by
+ * skipping over preceding messages using their length prefixes.
+ * Index is stored as a simple side file: small header followed by
+ * offsets as 64-bit values.
+ *
+ * @since 2.7.10
+ */
+public class DelimitedIndex
+{
+    /**
+     * Marker in the beginning of index files ("PBIX")
+     */
+    protected final static int INDEX_FILE_MAGIC = 0x50424958;
+
+    /**
+     * Number of messages between indexed offsets
+     */
+    protected final int _interval;
+
+    /**
+     * Number of messages in the indexed content
+     */
+    protected final long _messageCount;
+
+    /**
+     * Offsets of messages <code>0, interval, 2*interval</code> and so on.
+     */
+    protected final long[] _offsets;
+
+    protected DelimitedIndex(int interval, long messageCount, long[] offsets)
+    {
+        _interval = interval;
+        _messageCount = messageCount;
+        _offsets = offsets;
+    }
+
+    /*
+    /**********************************************************
+    /* Construction
+    /**********************************************************
+     */
+
+    /**
+     * Method for building an index of offsets of all messages in given file.
+     */
+    public static DelimitedIndex build(File content) throws IOException {
+        return build(content, 1);
+    }
+
+    /**
+     * Method for building an index of offsets of every k-th message in given file,
+     * where k is given as <code>interval</code>.
+     */
+    public static DelimitedIndex build(File content, int interval) throws IOException
+    {
+        InputStream in = new BufferedInputStream(new FileInputStream(content));
+        try {
+            // note: must pass length as skipping may go past end of a file
+            return _build(in, interval, content.length());
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Method for building an index of offsets of every k-th message in content
+     * read from given stream (k given as <code>interval</code>); offsets are
+     * relative to the current position of the stream. Stream is read until
+     * its end, but not closed.
+     */
+    public static DelimitedIndex build(InputStream in, int interval) throws IOException {
+        return _build(in, interval, Long.MAX_VALUE);
+    }
+
+    protected static DelimitedIndex _build(InputStream in, int interval, long maxLength)
+        throws IOException
+    {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid interval ("+interval+"): must be positive");
+        }
+        long[] offsets = new long[64];
+        int indexed = 0;
+        long count = 0L;
+        long offset = 0L;
+
+        while (true) {
+            long len = 0L;
+            int prefixLen = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    if (prefixLen == 0) { // clean end, between messages
+                        long[] result = Arrays.copyOf(offsets, indexed);
+                        return new DelimitedIndex(interval, count, result);
+                    }
+                    throw new EOFException("Truncated length prefix for message #"+count+" at offset "+offset);
+                }
+                if (shift > 28) {
+                    throw new IOException("Invalid length prefix for message #"+count+" at offset "+offset);
+                }
+                ++prefixLen;
+                len |= (long) (b & 0x7F) << shift;
+                if (b < 0x80) {
+                    break;
+                }
+            }
+            if ((count % interval) == 0L) {
+                if (indexed == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, indexed << 1);
+                }
+                offsets[indexed++] = offset;
+            }
+            long end = offset + prefixLen + len;
+            if (end > maxLength) {
+                throw _truncated(count, offset);
+            }
+            _skipFully(in, len, count, offset);
+            offset = end;
+            ++count;
+        }
+    }
+
+    /**
+     * Method for reading an index previously written using {@link #write(File)}.
+     */
+    public static DelimitedIndex read(File indexFile) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+        try {
+            if (in.readInt() != INDEX_FILE_MAGIC) {
+                throw new IOException("File '"+indexFile+"' is not a message index file: invalid header");
+            }
+            int interval = in.readInt();
+            long count = in.readLong();
+            long expOffsets = (count + interval - 1) / interval;
+            if ((interval < 1) || (count < 0L) || (expOffsets > Integer.MAX_VALUE)) {
+                throw new IOException("Corrupt message index file '"+indexFile+"': invalid header");
+            }
+            long[] offsets = new long[(int) expOffsets];
+            for (int i = 0; i < offsets.length; ++i) {
+                offsets[i] = in.readLong();
+            }
+            return new DelimitedIndex(interval, count, offsets);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Method for writing this index as given side file, to be read back
+     * using {@link #read(File)}.
+     */
+    public void write(File indexFile) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+        try {
+            out.writeInt(INDEX_FILE_MAGIC);
+            out.writeInt(_interval);
+            out.writeLong(_messageCount);
+            for (long offset : _offsets) {
+                out.writeLong(offset);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Accessors
+    /**********************************************************
+     */
+
+    public int getInterval() { return _interval; }
+
+    /**
+     * @return Number of messages in the indexed content
+     */
+    public long getMessageCount() { return _messageCount; }
+
+    /**
+     * Method for finding offset of the closest indexed message at or before
+     * message with given index: offset is exact if index is a multiple
+     * of {@link #getInterval()}.
+     */
+    public long indexedOffsetFor(long messageIndex)
+    {
+        _checkIndex(messageIndex);
+        return _offsets[(int) (messageIndex / _interval)];
+    }
+
+    /*
+    /**********************************************************
+    /* Reading
+    /**********************************************************
+     */
+
+    /**
+     * Method for constructing a parser for reading length-delimited messages
+     * of given (indexed) file, positioned right before message with given index,
+     * so that the next call to {@link ProtobufParser#nextToken()} returns
+     * {@link JsonToken#START_OBJECT} of that message (or, for index equal to
+     * message count, <code>null</code>). Parser has schema set and
+     * {@link ProtobufParser.Feature#LENGTH_DELIMITED} enabled.
+     *<p>
+     * Note that parser reports locations as offsets within the file, so
+     * {@link com.fasterxml.jackson.core.JsonLocation#getByteOffset()} of
+     * a message may be used for resuming processing with
+     * {@link ProtobufFactory#createMappedParser(File, long)}.
+     */
+    public ProtobufParser createParser(ProtobufFactory f, ProtobufSchema schema,
+            File content, long messageIndex)
+        throws IOException
+    {
+        long base = 0L;
+        long offset = 0L;
+        // Position right after the last message is fine too (including empty content)
+        if ((messageIndex != 0L) || (_messageCount != 0L)) {
+            base = (messageIndex == _messageCount) ? (messageIndex - 1) : messageIndex;
+            offset = indexedOffsetFor(base);
+            base -= (base % _interval);
+        }
+        ProtobufParser p = _createParser(f, schema, content, offset);
+        try {
+            _skipMessages(p, messageIndex - base);
+        } catch (IOException e) {
+            p.close();
+            throw e;
+        }
+        return p;
+    }
+
+    /*
+    /**********************************************************
+    /* Internal methods
+    /**********************************************************
+     */
+
+    protected ProtobufParser _createParser(ProtobufFactory f, ProtobufSchema schema,
+            File content, long offset)
+        throws IOException
+    {
+        ProtobufParser p = f.createMappedParser(content, offset);
+        p.setSchema(schema);
+        p.enable(ProtobufParser.Feature.LENGTH_DELIMITED);
+        return p;
+    }
+
+    protected void _skipMessages(ProtobufParser p, long count) throws IOException
+    {
+        for (; count > 0L; --count) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected end of content: index does not match file");
+            }
+            // skips by length prefix, without decoding contents
+            p.skipChildren();
+        }
+        // so that callers (like data-binding) do not see END_OBJECT of skipped message
+        p.clearCurrentToken();
+    }
+
+    protected void _checkIndex(long messageIndex)
+    {
+        if ((messageIndex < 0L) || (messageIndex >= _messageCount)) {
+            throw new IllegalArgumentException("Invalid message index ("+messageIndex
+                    +"): content has "+_messageCount+" messages");
+        }
+    }
+
+    private static IOException _truncated(long msgIndex, long offset) {
+        return new EOFException("Truncated message #"+msgIndex+" at offset "+offset
+                +": length exceeds end of content");
+    }
+
+    private static void _skipFully(InputStream in, long len, long msgIndex, long offset)
+        throws IOException
+    {
+        while (len > 0L) {
+            long count = in.skip(len);
+            if (count <= 0L) {
+                // skip() may return 0 for other reasons than end-of-input, so verify
+                if (in.read() < 0) {
+                    throw _truncated(msgIndex, offset);
+                }
+                count = 1L;
+            }
+            len -= count;
+        }
+    }
+}
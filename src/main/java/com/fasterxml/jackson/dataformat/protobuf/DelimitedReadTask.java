@@ -0,0 +1,295 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.RecursiveTask;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+/**
+ * {@link RecursiveTask} used for decoding a range of length-delimited messages,
+ * splitting the range into sub-tasks if it is large enough. Each leaf task uses
+ * its own {@link ProtobufParser}; schema and reader are shared as they are
+ * immutable.
+ *<p>
+ * Content is either a buffer, in which case offsets of all messages are known;
+ * or a file, for which only offsets of (non-overlapping) ranges of messages are
+ * known, and each range is memory-mapped separately by the task decoding it.
+ *
+ * @since 2.7.10
+ */
+final class DelimitedReadTask<T> extends RecursiveTask<List<T>>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final ObjectReader _reader;
+    private final ProtobufSchema _schema;
+
+    /**
+     * Content that contains all the messages, if decoding a buffer; never
+     * modified, only duplicated
+     */
+    private final ByteBuffer _content;
+
+    /**
+     * Channel for the file that contains all the messages, if decoding a file
+     */
+    private final FileChannel _channel;
+
+    /**
+     * Offsets of messages (length prefixes) that start ranges to decode, followed
+     * by end offset of the last message
+     */
+    private final long[] _offsets;
+
+    private final int _firstRange, _lastRange;
+
+    private final int _maxRangesPerTask;
+
+    private DelimitedReadTask(ObjectReader r, ProtobufSchema schema,
+            ByteBuffer content, FileChannel channel, long[] offsets,
+            int firstRange, int lastRange, int maxRangesPerTask)
+    {
+        _reader = r;
+        _schema = schema;
+        _content = content;
+        _channel = channel;
+        _offsets = offsets;
+        _firstRange = firstRange;
+        _lastRange = lastRange;
+        _maxRangesPerTask = maxRangesPerTask;
+    }
+
+    /**
+     * Factory method for constructing task for decoding all messages of given buffer,
+     * ranges being individual messages.
+     */
+    public static <T> DelimitedReadTask<T> forBuffer(ObjectReader r, ProtobufSchema schema,
+            ByteBuffer content, long[] offsets, int maxMessagesPerTask)
+    {
+        return new DelimitedReadTask<T>(r, schema, content, null, offsets,
+                0, offsets.length - 1, maxMessagesPerTask);
+    }
+
+    /**
+     * Factory method for constructing task for decoding all messages of file
+     * accessed using given channel, ranges being windows to map, one per leaf task.
+     */
+    public static <T> DelimitedReadTask<T> forFile(ObjectReader r, ProtobufSchema schema,
+            FileChannel channel, long[] rangeOffsets)
+    {
+        return new DelimitedReadTask<T>(r, schema, null, channel, rangeOffsets,
+                0, rangeOffsets.length - 1, 1);
+    }
+
+    @Override
+    protected List<T> compute()
+    {
+        final int count = _lastRange - _firstRange;
+        if (count > _maxRangesPerTask) {
+            int mid = _firstRange + (count >> 1);
+            DelimitedReadTask<T> second = new DelimitedReadTask<T>(_reader, _schema,
+                    _content, _channel, _offsets, mid, _lastRange, _maxRangesPerTask);
+            second.fork();
+            List<T> result = new DelimitedReadTask<T>(_reader, _schema,
+                    _content, _channel, _offsets, _firstRange, mid, _maxRangesPerTask).compute();
+            result.addAll(second.join());
+            return result;
+        }
+        try {
+            return _decode();
+        } catch (IOException e) {
+            throw new DecodeFailure(e);
+        }
+    }
+
+    private List<T> _decode() throws IOException
+    {
+        final long start = _offsets[_firstRange];
+        final long end = _offsets[_lastRange];
+        ByteBuffer bb;
+        if (_channel != null) {
+            bb = _channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } else {
+            bb = _content.duplicate();
+            bb.limit((int) end);
+            bb.position((int) start);
+            bb = bb.slice();
+        }
+        ProtobufParser p = ((ProtobufFactory) _reader.getFactory()).createParser(bb);
+        try {
+            p.setSchema(_schema);
+            p.enable(ProtobufParser.Feature.LENGTH_DELIMITED);
+            MappingIterator<T> it = _reader.readValues(p);
+            List<T> result = (_channel == null) ? new ArrayList<T>(_lastRange - _firstRange)
+                    : new ArrayList<T>();
+            while (it.hasNextValue()) {
+                result.add(it.nextValue());
+            }
+            return result;
+        } finally {
+            p.close();
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    /**
+     * Helper method for finding offsets of all length-delimited messages between
+     * position and limit of given buffer, by only decoding length prefixes.
+     *
+     * @return Offsets of messages, followed by end offset of the last message
+     */
+    public static long[] findOffsets(ByteBuffer content) throws IOException
+    {
+        long[] offsets = new long[64];
+        int count = 0;
+        int ptr = content.position();
+        final int end = content.limit();
+
+        while (ptr < end) {
+            if (count == offsets.length - 1) {
+                offsets = Arrays.copyOf(offsets, offsets.length << 1);
+            }
+            offsets[count++] = ptr;
+            // Length prefix is a VInt, max 5 bytes for a valid length
+            int len = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (ptr >= end) {
+                    throw new IOException("Truncated length prefix for message #"+count+" at offset "+offsets[count-1]);
+                }
+                if (shift > 28) {
+                    throw new IOException("Invalid length prefix for message #"+count+" at offset "+offsets[count-1]);
+                }
+                int b = content.get(ptr++);
+                len |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            if ((len < 0) || (len > (end - ptr))) {
+                throw new IOException("Truncated message #"+count+" at offset "+offsets[count-1]
+                        +": length "+len+" exceeds end of content");
+            }
+            ptr += len;
+        }
+        offsets[count] = ptr;
+        return Arrays.copyOf(offsets, count+1);
+    }
+
+    /**
+     * Helper method for finding offsets of ranges of length-delimited messages
+     * read from given stream (relative to its current position), so that each
+     * range starts at a message boundary, is at least <code>rangeSize</code>
+     * bytes long (except for the last one) and at most <code>maxRangeSize</code>
+     * bytes long (unless a single message is longer). Messages are located by
+     * only reading length prefixes and skipping contents. Stream is read until
+     * its end, but not closed.
+     *
+     * @param maxLength Length of content, if known (as skipping may go past end
+     *   of a file); <code>Long.MAX_VALUE</code> if not
+     *
+     * @return Offsets of ranges, followed by end offset of the last message
+     */
+    public static long[] findRanges(InputStream in, long maxLength,
+            long rangeSize, long maxRangeSize) throws IOException
+    {
+        long[] offsets = new long[16];
+        int ranges = 0;
+        long count = 1L; // number of the current message, as with findOffsets()
+        long offset = 0L;
+
+        while (true) {
+            long len = 0L;
+            int prefixLen = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    if (prefixLen == 0) { // clean end, between messages
+                        if (ranges == offsets.length) {
+                            offsets = Arrays.copyOf(offsets, ranges + 1);
+                        }
+                        offsets[ranges++] = offset;
+                        return Arrays.copyOf(offsets, ranges);
+                    }
+                    throw new EOFException("Truncated length prefix for message #"+count+" at offset "+offset);
+                }
+                if (shift > 28) {
+                    throw new IOException("Invalid length prefix for message #"+count+" at offset "+offset);
+                }
+                ++prefixLen;
+                len |= (long) (b & 0x7F) << shift;
+                if (b < 0x80) {
+                    break;
+                }
+            }
+            final long end = offset + prefixLen + len;
+            if (end > maxLength) {
+                throw new EOFException("Truncated message #"+count+" at offset "+offset
+                        +": length "+len+" exceeds end of content");
+            }
+            // start a new range if the current one is long enough, or would get too long
+            if ((ranges == 0) || (offset - offsets[ranges-1] >= rangeSize)
+                    || ((end - offsets[ranges-1] > maxRangeSize) && (offset > offsets[ranges-1]))) {
+                if (ranges == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, ranges << 1);
+                }
+                offsets[ranges++] = offset;
+            }
+            _skipFully(in, len, count, offset);
+            offset = end;
+            ++count;
+        }
+    }
+
+    private static void _skipFully(InputStream in, long len, long msgIndex, long offset)
+        throws IOException
+    {
+        while (len > 0L) {
+            long count = in.skip(len);
+            if (count <= 0L) {
+                // skip() may return 0 for other reasons than end-of-input, so verify
+                if (in.read() < 0) {
+                    throw new EOFException("Truncated message #"+msgIndex+" at offset "+offset
+                            +": length exceeds end of content");
+                }
+                count = 1L;
+            }
+            len -= count;
+        }
+    }
+
+    /**
+     * Helper method to unwrap {@link IOException} thrown by a task.
+     */
+    public static IOException unwrap(RuntimeException e)
+    {
+        // ForkJoinPool may re-create exception if it was thrown in another thread
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IOException) {
+                return (IOException) t;
+            }
+        }
+        throw e;
+    }
+
+    /**
+     * Unchecked wrapper used to pass {@link IOException}s out of tasks.
+     */
+    final static class DecodeFailure extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        public DecodeFailure(IOException e) {
+            super(e);
+        }
+    }
+}
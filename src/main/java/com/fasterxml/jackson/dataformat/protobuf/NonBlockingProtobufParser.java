@@ -0,0 +1,456 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.dataformat.protobuf.schema.*;
+
+/**
+ * Variant of {@link ProtobufParser} that does not read content from a blocking
+ * source but is instead fed content as it becomes available, using
+ * {@link #feedInput}; end of content is indicated by calling {@link #endOfInput}.
+ * If there is not enough content to decode the next token, {@link #nextToken}
+ * returns {@link JsonToken#NOT_AVAILABLE}, and the caller is to feed more input
+ * and retry.
+ *<p>
+ * Implementation checks that all bytes of the next token (tag, and value for
+ * scalar values, or length prefix for Messages and packed arrays) are available
+ * before decoding it, so that state machine of the base class can be used as is:
+ * this means that String and binary values are fully buffered before being
+ * returned as tokens. Unknown fields that are skipped must also be fully available.
+ *<p>
+ * Since data-binding does not handle {@link JsonToken#NOT_AVAILABLE}, this parser
+ * is to be used either at streaming level, or by feeding all content of a message
+ * (and calling {@link #endOfInput}) before binding.
+ *
+ * @since 2.7.10
+ */
+public class NonBlockingProtobufParser extends ProtobufParser
+{
+    /**
+     * Flag set when caller has indicated that no more input will be fed.
+     */
+    protected boolean _endOfInput;
+
+    /*
+    /**********************************************************
+    /* Life-cycle
+    /**********************************************************
+     */
+
+    public NonBlockingProtobufParser(IOContext ctxt, int parserFeatures, int formatFeatures,
+            ObjectCodec codec, byte[] inputBuffer)
+    {
+        super(ctxt, parserFeatures, formatFeatures, codec, null, inputBuffer, 0, 0, true);
+    }
+
+    /*
+    /**********************************************************
+    /* Input feeding
+    /**********************************************************
+     */
+
+    /**
+     * Method that can be called to check whether all content fed so far
+     * has been consumed, and more input would be needed to decode more tokens.
+     */
+    public boolean needMoreInput() {
+        return (_inputPtr >= _inputEnd) && !_endOfInput;
+    }
+
+    /**
+     * Method for feeding more content to decode. Content is copied, so
+     * the caller is free to reuse given buffer once call returns.
+     */
+    public void feedInput(byte[] data, int offset, int len) throws IOException
+    {
+        if (_endOfInput) {
+            throw new IllegalStateException("Already called endOfInput(): can not feed more input");
+        }
+        if (len <= 0) {
+            return;
+        }
+        if ((_inputEnd + len) > _inputBuffer.length) {
+            // First: move remaining content to the beginning, if any already consumed
+            final int ptr = _inputPtr;
+            final int amount = _inputEnd - ptr;
+            if (ptr > 0) {
+                _currInputProcessed += ptr;
+                _currentEndOffset = _parsingContext.adjustEnd(ptr);
+                if (amount > 0) {
+                    System.arraycopy(_inputBuffer, ptr, _inputBuffer, 0, amount);
+                }
+                _inputPtr = 0;
+                _inputEnd = amount;
+            }
+            // and then, if still not enough room, grow
+            if ((amount + len) > _inputBuffer.length) {
+                byte[] newBuffer = new byte[Math.max(_inputBuffer.length << 1, amount + len)];
+                System.arraycopy(_inputBuffer, 0, newBuffer, 0, amount);
+                _inputBuffer = newBuffer;
+            }
+        }
+        System.arraycopy(data, offset, _inputBuffer, _inputEnd, len);
+        _inputEnd += len;
+    }
+
+    /**
+     * Method called to indicate that no more content will be fed: after this,
+     * any incomplete content is reported as an error, and not as
+     * {@link JsonToken#NOT_AVAILABLE}.
+     */
+    public void endOfInput() {
+        _endOfInput = true;
+    }
+
+    /*
+    /**********************************************************
+    /* Overridden parsing methods
+    /**********************************************************
+     */
+
+    @Override
+    public JsonToken nextToken() throws IOException
+    {
+        if (!_endOfInput && !_hasCompleteToken()) {
+            // Important: do not change state, so we can just retry later on
+            _numTypesValid = NR_UNKNOWN;
+            return (_currToken = JsonToken.NOT_AVAILABLE);
+        }
+        return super.nextToken();
+    }
+
+    // base class implementations access input directly so must override
+
+    @Override
+    public boolean nextFieldName(SerializableString sstr) throws IOException
+    {
+        return (nextToken() == JsonToken.FIELD_NAME) && _matchesName(sstr);
+    }
+
+    @Override
+    public String nextFieldName() throws IOException
+    {
+        return (nextToken() == JsonToken.FIELD_NAME) ? getCurrentName() : null;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException
+    {
+        if ((_currToken != JsonToken.START_OBJECT) && (_currToken != JsonToken.START_ARRAY)) {
+            return this;
+        }
+        // If all content of a length-prefixed Message or packed array is buffered, can just skip it
+        if (!_parsingContext.inRoot() && (_currentEndOffset <= _inputEnd)
+                && ((_currToken == JsonToken.START_OBJECT) || (_state == STATE_ARRAY_VALUE_PACKED))) {
+            return super.skipChildren();
+        }
+        int open = 1;
+        while (true) {
+            JsonToken t = nextToken();
+            if (t == null) {
+                _handleEOF();
+                return this;
+            }
+            if (t == JsonToken.NOT_AVAILABLE) {
+                _reportError("Can not skip children: not enough input available");
+            }
+            if (t.isStructStart()) {
+                ++open;
+            } else if (t.isStructEnd()) {
+                if (--open == 0) {
+                    return this;
+                }
+            }
+        }
+    }
+
+    // bulk reads of packed arrays decode content directly, so it must all be available
+
+    @Override
+    public int[] readIntArray() throws IOException
+    {
+        _verifyPackedArrayAvailable();
+        return super.readIntArray();
+    }
+
+    @Override
+    public long[] readLongArray() throws IOException
+    {
+        _verifyPackedArrayAvailable();
+        return super.readLongArray();
+    }
+
+    @Override
+    public double[] readDoubleArray() throws IOException
+    {
+        _verifyPackedArrayAvailable();
+        return super.readDoubleArray();
+    }
+
+    @Override
+    public float[] readFloatArray() throws IOException
+    {
+        _verifyPackedArrayAvailable();
+        return super.readFloatArray();
+    }
+
+    /*
+    /**********************************************************
+    /* Internal methods, checking for content availability
+    /**********************************************************
+     */
+
+    /**
+     * Method called before bulk reads of arrays, to verify that all content of
+     * the current packed array is available: if not, an error is reported
+     * without changing state.
+     */
+    protected void _verifyPackedArrayAvailable() throws IOException
+    {
+        if (!_endOfInput && (_currToken == JsonToken.START_ARRAY)
+                && (_state == STATE_ARRAY_VALUE_PACKED) && (_currentEndOffset > _inputEnd)) {
+            _reportError(String.format("Can not read array: not enough input available (%d of %d bytes)",
+                    _inputEnd - _inputPtr, _currentEndOffset - _inputPtr));
+        }
+    }
+
+    /**
+     * Method that checks whether enough content is buffered to decode the next
+     * token with the current state. Note that content is not validated, beyond
+     * what is needed to determine its length; validation is left to actual decoding.
+     */
+    protected boolean _hasCompleteToken()
+    {
+        int ptr = _inputPtr;
+        // contents of a String or binary value skipped, if not accessed
+        if (_tokenIncomplete) {
+            ptr += _decodedLength;
+        }
+        switch (_state) {
+        case STATE_INITIAL:
+            // length prefix of the next message needed, if length-delimited
+            if (isEnabled(Feature.LENGTH_DELIMITED)) {
+                return _varintEnd(ptr) >= 0;
+            }
+            return true;
+        case STATE_ROOT_KEY:
+            // Note: end-of-content of root level only known via endOfInput(), unless
+            // length-delimited
+            return _hasCompleteKey(ptr, -1);
+        case STATE_NESTED_KEY:
+            return _hasCompleteKey(ptr, -1);
+        case STATE_ARRAY_END:
+            return _hasCompleteKey(ptr, _nextTag);
+        case STATE_ROOT_VALUE:
+        case STATE_NESTED_VALUE:
+        case STATE_ARRAY_VALUE_FIRST:
+            if (_groupStart && _currentField.isObject) { // no length prefix for groups
+                return true;
+            }
+            return _valueEnd(ptr, _currentField.type) >= 0;
+        case STATE_ARRAY_START_PACKED:
+            return _varintEnd(ptr) >= 0;
+        case STATE_ARRAY_VALUE_PACKED:
+            if (ptr >= _currentEndOffset) {
+                return true;
+            }
+            return _valueEnd(ptr, _currentField.type) >= 0;
+        case STATE_ARRAY_VALUE_OTHER:
+            if (ptr >= _currentEndOffset) {
+                return true;
+            }
+            {
+                int end = _varintEnd(ptr);
+                if (end < 0) {
+                    return false;
+                }
+                // same field: need the value too (unless group); if not, will just return END_ARRAY
+                int tag = _peekVInt(ptr);
+                if ((tag >> 3) == _currentField.id) {
+                    int wireType = tag & 0x7;
+                    if ((wireType == WireType.GROUP_START) || (wireType == WireType.GROUP_END)) {
+                        return true;
+                    }
+                    return _valueEnd(end, _currentField.type) >= 0;
+                }
+            }
+            return true;
+        default: // no input needed for other states
+        }
+        return true;
+    }
+
+    /**
+     * Helper method for checking whether a field name (or, end of a Message) can
+     * be decoded: this requires skipping over unknown fields, if any.
+     *
+     * @param tag Tag for the field if already decoded; -1 if not
+     */
+    private boolean _hasCompleteKey(int ptr, int tag)
+    {
+        final int end = _currentEndOffset;
+        while (true) {
+            if (tag < 0) {
+                if (ptr >= end) { // end of a nested message
+                    return true;
+                }
+                int tagEnd = _varintEnd(ptr);
+                if (tagEnd < 0) {
+                    return false;
+                }
+                tag = _peekVInt(ptr);
+                ptr = tagEnd;
+            }
+            if ((_currentMessage.field(tag >> 3) != null) || !_isSkippable(tag >> 3)) {
+                return true;
+            }
+            // unknown field, to be skipped: must be fully available (and for
+            // excluded packed arrays, length-prefixed regardless of wire type)
+            ProtobufField excluded = _currentMessage.excludedField(tag >> 3);
+            int wireType = ((excluded != null) && excluded.packed)
+                    ? WireType.LENGTH_PREFIXED : (tag & 0x7);
+            switch (wireType) {
+            case WireType.VINT:
+                ptr = _varintEnd(ptr);
+                break;
+            case WireType.FIXED_32BIT:
+                ptr = _fixedEnd(ptr, 4);
+                break;
+            case WireType.FIXED_64BIT:
+                ptr = _fixedEnd(ptr, 8);
+                break;
+            case WireType.LENGTH_PREFIXED:
+                ptr = _lengthPrefixedEnd(ptr);
+                break;
+            case WireType.GROUP_START:
+                ptr = _groupEnd(ptr);
+                break;
+            default: // invalid; let decoding report the problem
+                return true;
+            }
+            if (ptr < 0) {
+                return false;
+            }
+            tag = -1;
+        }
+    }
+
+    /**
+     * @return Offset right after the end-group tag of group, contents of which
+     *    start at given offset, if fully available; -1 if not
+     */
+    private int _groupEnd(int ptr)
+    {
+        int depth = 1;
+        while (ptr >= 0) {
+            int tagEnd = _varintEnd(ptr);
+            if (tagEnd < 0) {
+                return -1;
+            }
+            int wireType = _peekVInt(ptr) & 0x7;
+            ptr = tagEnd;
+            switch (wireType) {
+            case WireType.VINT:
+                ptr = _varintEnd(ptr);
+                break;
+            case WireType.FIXED_32BIT:
+                ptr = _fixedEnd(ptr, 4);
+                break;
+            case WireType.FIXED_64BIT:
+                ptr = _fixedEnd(ptr, 8);
+                break;
+            case WireType.LENGTH_PREFIXED:
+                ptr = _lengthPrefixedEnd(ptr);
+                break;
+            case WireType.GROUP_START:
+                // too deeply nested; let decoding report the problem
+                if (++depth > MAX_SKIPPED_GROUP_DEPTH) {
+                    return ptr;
+                }
+                break;
+            case WireType.GROUP_END: // mismatches reported by decoding
+                if (--depth == 0) {
+                    return ptr;
+                }
+                break;
+            default: // invalid; let decoding report the problem
+                return ptr;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Offset right after the value of given type, if fully available; -1 if not
+     */
+    private int _valueEnd(int ptr, FieldType type)
+    {
+        switch (type) {
+        case DOUBLE:
+        case FIXINT64:
+            return _fixedEnd(ptr, 8);
+        case FLOAT:
+        case FIXINT32:
+            return _fixedEnd(ptr, 4);
+        case BOOLEAN:
+            return _fixedEnd(ptr, 1);
+        case STRING:
+        case BYTES:
+            return _lengthPrefixedEnd(ptr);
+        default: // VInts, enums; and Messages, for which we only need the length
+            return _varintEnd(ptr);
+        }
+    }
+
+    private int _fixedEnd(int ptr, int len) {
+        ptr += len;
+        return (ptr <= _inputEnd) ? ptr : -1;
+    }
+
+    private int _lengthPrefixedEnd(int ptr)
+    {
+        int end = _varintEnd(ptr);
+        if (end < 0) {
+            return -1;
+        }
+        long valueEnd = (long) end + _peekVInt(ptr);
+        if (valueEnd < end) { // negative length: let decoding report the problem
+            return end;
+        }
+        return (valueEnd <= _inputEnd) ? (int) valueEnd : -1;
+    }
+
+    /**
+     * @return Offset right after VInt starting at given offset, if fully available; -1 if not
+     */
+    private int _varintEnd(int ptr)
+    {
+        // max length of a VInt (VLong) is 10 bytes; let decoding report longer ones
+        final int max = Math.min(_inputEnd, ptr + 10);
+        while (ptr < max) {
+            if (_inputBuffer[ptr++] >= 0) {
+                return ptr;
+            }
+        }
+        return (ptr == _inputEnd) ? -1 : ptr;
+    }
+
+    /**
+     * Helper method for decoding a (32-bit) VInt that is known to be fully available,
+     * without consuming it.
+     */
+    private int _peekVInt(int ptr)
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = _inputBuffer[ptr++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,172 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.PrimitiveArrayDeserializers;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+
+/**
+ * Deserializers for arrays of primitive numbers, that use bulk-read methods of
+ * {@link ProtobufParser} (like {@link ProtobufParser#readIntArray()}) to decode
+ * packed arrays without going through individual tokens. If content is not read
+ * using {@link ProtobufParser} (for example, if buffered), or current token is
+ * not {@link JsonToken#START_ARRAY}, standard deserializers are used.
+ *
+ * @since 2.7.10
+ */
+public abstract class PackedArrayDeserializers<T>
+    extends StdDeserializer<T>
+    implements ContextualDeserializer
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Standard deserializer to use for content not read from {@link ProtobufParser}
+     */
+    protected final JsonDeserializer<Object> _delegate;
+
+    @SuppressWarnings("unchecked")
+    protected PackedArrayDeserializers(Class<T> type, JsonDeserializer<?> delegate)
+    {
+        super(type);
+        _delegate = (JsonDeserializer<Object>) delegate;
+    }
+
+    protected abstract PackedArrayDeserializers<T> withDelegate(JsonDeserializer<?> delegate);
+
+    /**
+     * Method for reading array contents using bulk-read method of given parser
+     */
+    protected abstract T _readArray(ProtobufParser p) throws IOException;
+
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext ctxt,
+            BeanProperty property) throws JsonMappingException
+    {
+        JsonDeserializer<?> deser = _delegate;
+        if (deser instanceof ContextualDeserializer) {
+            deser = ((ContextualDeserializer) deser).createContextual(ctxt, property);
+        }
+        return (deser == _delegate) ? this : withDelegate(deser);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException
+    {
+        if ((p instanceof ProtobufParser) && p.isExpectedStartArrayToken()) {
+            return _readArray((ProtobufParser) p);
+        }
+        return (T) _delegate.deserialize(p, ctxt);
+    }
+
+    @Override
+    public Object deserializeWithType(JsonParser p, DeserializationContext ctxt,
+            TypeDeserializer typeDeserializer) throws IOException
+    {
+        return _delegate.deserializeWithType(p, ctxt, typeDeserializer);
+    }
+
+    /*
+    /**********************************************************
+    /* Concrete implementations
+    /**********************************************************
+     */
+
+    public final static class IntDeser extends PackedArrayDeserializers<int[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public IntDeser() {
+            this(PrimitiveArrayDeserializers.forType(Integer.TYPE));
+        }
+
+        protected IntDeser(JsonDeserializer<?> delegate) {
+            super(int[].class, delegate);
+        }
+
+        @Override
+        protected IntDeser withDelegate(JsonDeserializer<?> delegate) {
+            return new IntDeser(delegate);
+        }
+
+        @Override
+        protected int[] _readArray(ProtobufParser p) throws IOException {
+            return p.readIntArray();
+        }
+    }
+
+    public final static class LongDeser extends PackedArrayDeserializers<long[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public LongDeser() {
+            this(PrimitiveArrayDeserializers.forType(Long.TYPE));
+        }
+
+        protected LongDeser(JsonDeserializer<?> delegate) {
+            super(long[].class, delegate);
+        }
+
+        @Override
+        protected LongDeser withDelegate(JsonDeserializer<?> delegate) {
+            return new LongDeser(delegate);
+        }
+
+        @Override
+        protected long[] _readArray(ProtobufParser p) throws IOException {
+            return p.readLongArray();
+        }
+    }
+
+    public final static class DoubleDeser extends PackedArrayDeserializers<double[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public DoubleDeser() {
+            this(PrimitiveArrayDeserializers.forType(Double.TYPE));
+        }
+
+        protected DoubleDeser(JsonDeserializer<?> delegate) {
+            super(double[].class, delegate);
+        }
+
+        @Override
+        protected DoubleDeser withDelegate(JsonDeserializer<?> delegate) {
+            return new DoubleDeser(delegate);
+        }
+
+        @Override
+        protected double[] _readArray(ProtobufParser p) throws IOException {
+            return p.readDoubleArray();
+        }
+    }
+
+    public final static class FloatDeser extends PackedArrayDeserializers<float[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public FloatDeser() {
+            this(PrimitiveArrayDeserializers.forType(Float.TYPE));
+        }
+
+        protected FloatDeser(JsonDeserializer<?> delegate) {
+            super(float[].class, delegate);
+        }
+
+        @Override
+        protected FloatDeser withDelegate(JsonDeserializer<?> delegate) {
+            return new FloatDeser(delegate);
+        }
+
+        @Override
+        protected float[] _readArray(ProtobufParser p) throws IOException {
+            return p.readFloatArray();
+        }
+    }
+}
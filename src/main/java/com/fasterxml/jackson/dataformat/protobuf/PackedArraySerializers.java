@@ -0,0 +1,197 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdArraySerializers;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Serializers for arrays of primitive numbers, that use bulk-write methods of
+ * {@link ProtobufGenerator} (like {@link ProtobufGenerator#writeArray(int[], int, int)})
+ * to write packed arrays in a single pass. With other generators (for example,
+ * when buffering), standard serializers are used.
+ *
+ * @since 2.7.10
+ */
+public abstract class PackedArraySerializers<T>
+    extends StdSerializer<T>
+    implements ContextualSerializer
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Standard serializer to use for generators other than {@link ProtobufGenerator}
+     */
+    protected final JsonSerializer<Object> _delegate;
+
+    @SuppressWarnings("unchecked")
+    protected PackedArraySerializers(Class<T> type, JsonSerializer<?> delegate)
+    {
+        super(type);
+        _delegate = (JsonSerializer<Object>) delegate;
+    }
+
+    protected abstract PackedArraySerializers<T> withDelegate(JsonSerializer<?> delegate);
+
+    protected abstract int _length(T value);
+
+    /**
+     * Method for writing array contents using bulk-write method of given generator
+     */
+    protected abstract void _writeArray(T value, ProtobufGenerator g) throws IOException;
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property)
+        throws JsonMappingException
+    {
+        JsonSerializer<?> ser = _delegate;
+        if (ser instanceof ContextualSerializer) {
+            ser = ((ContextualSerializer) ser).createContextual(prov, property);
+        }
+        return (ser == _delegate) ? this : withDelegate(ser);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider prov, T value) {
+        return (value == null) || (_length(value) == 0);
+    }
+
+    @Override
+    public void serialize(T value, JsonGenerator g, SerializerProvider provider) throws IOException
+    {
+        if (g instanceof ProtobufGenerator) {
+            _writeArray(value, (ProtobufGenerator) g);
+        } else {
+            _delegate.serialize(value, g, provider);
+        }
+    }
+
+    @Override
+    public void serializeWithType(T value, JsonGenerator g, SerializerProvider provider,
+            TypeSerializer typeSer) throws IOException
+    {
+        _delegate.serializeWithType(value, g, provider, typeSer);
+    }
+
+    /*
+    /**********************************************************
+    /* Concrete implementations
+    /**********************************************************
+     */
+
+    public final static class IntSer extends PackedArraySerializers<int[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public IntSer() {
+            this(StdArraySerializers.findStandardImpl(int[].class));
+        }
+
+        protected IntSer(JsonSerializer<?> delegate) {
+            super(int[].class, delegate);
+        }
+
+        @Override
+        protected IntSer withDelegate(JsonSerializer<?> delegate) {
+            return new IntSer(delegate);
+        }
+
+        @Override
+        protected int _length(int[] value) {
+            return value.length;
+        }
+
+        @Override
+        protected void _writeArray(int[] value, ProtobufGenerator g) throws IOException {
+            g.writeArray(value, 0, value.length);
+        }
+    }
+
+    public final static class LongSer extends PackedArraySerializers<long[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public LongSer() {
+            this(StdArraySerializers.findStandardImpl(long[].class));
+        }
+
+        protected LongSer(JsonSerializer<?> delegate) {
+            super(long[].class, delegate);
+        }
+
+        @Override
+        protected LongSer withDelegate(JsonSerializer<?> delegate) {
+            return new LongSer(delegate);
+        }
+
+        @Override
+        protected int _length(long[] value) {
+            return value.length;
+        }
+
+        @Override
+        protected void _writeArray(long[] value, ProtobufGenerator g) throws IOException {
+            g.writeArray(value, 0, value.length);
+        }
+    }
+
+    public final static class DoubleSer extends PackedArraySerializers<double[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public DoubleSer() {
+            this(StdArraySerializers.findStandardImpl(double[].class));
+        }
+
+        protected DoubleSer(JsonSerializer<?> delegate) {
+            super(double[].class, delegate);
+        }
+
+        @Override
+        protected DoubleSer withDelegate(JsonSerializer<?> delegate) {
+            return new DoubleSer(delegate);
+        }
+
+        @Override
+        protected int _length(double[] value) {
+            return value.length;
+        }
+
+        @Override
+        protected void _writeArray(double[] value, ProtobufGenerator g) throws IOException {
+            g.writeArray(value, 0, value.length);
+        }
+    }
+
+    public final static class FloatSer extends PackedArraySerializers<float[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        public FloatSer() {
+            this(StdArraySerializers.findStandardImpl(float[].class));
+        }
+
+        protected FloatSer(JsonSerializer<?> delegate) {
+            super(float[].class, delegate);
+        }
+
+        @Override
+        protected FloatSer withDelegate(JsonSerializer<?> delegate) {
+            return new FloatSer(delegate);
+        }
+
+        @Override
+        protected int _length(float[] value) {
+            return value.length;
+        }
+
+        @Override
+        protected void _writeArray(float[] value, ProtobufGenerator g) throws IOException {
+            g.writeArray(value, 0, value.length);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.util.Arrays;
+
+/**
+ * Container for serialized sizes of length-prefixed entries (nested messages,
+ * packed arrays; and root message if written length-delimited), used for
+ * writing content in two passes, similar to <code>getSerializedSize()</code>
+ * of the standard protobuf library: first pass only calculates sizes, in order
+ * in which entries are started; second pass then writes length prefixes directly,
+ * without buffering contents of entries.
+ *<p>
+ * Since sizes are matched by order, value must be serialized identically
+ * during both passes; generator verifies that actual sizes match recorded ones.
+ *<p>
+ * Instances are not thread-safe, but may be reused (see {@link #reset}).
+ *
+ * @since 2.7.10
+ */
+public class PrecomputedSizes
+{
+    /**
+     * Sizes of entries, in order in which entries are started
+     */
+    protected int[] _sizes = new int[32];
+
+    /**
+     * Number of entries for which sizes have been recorded
+     */
+    protected int _count;
+
+    /**
+     * Index of the next entry to write, during second pass
+     */
+    protected int _nextIndex;
+
+    /**
+     * Whether sizes are being recorded (first pass), or used (second pass)
+     */
+    protected boolean _recording = true;
+
+    /**
+     * Number of length prefix bytes that are not written during first pass,
+     * but that need to be included in the sizes of enclosing entries
+     */
+    protected long _prefixBytes;
+
+    // Stack of currently open entries: index of entry, and either start
+    // position (first pass) or expected end position (second pass)
+
+    protected int[] _openIndexes = new int[16];
+
+    protected long[] _openPositions = new long[16];
+
+    protected int _depth;
+
+    public PrecomputedSizes() { }
+
+    /*
+    /**********************************************************
+    /* Public API
+    /**********************************************************
+     */
+
+    /**
+     * Method for clearing all recorded sizes, to start recording
+     * sizes for another value.
+     */
+    public void reset() {
+        _count = 0;
+        _nextIndex = 0;
+        _recording = true;
+        _prefixBytes = 0L;
+        _depth = 0;
+    }
+
+    /**
+     * Method called once sizes for a value have been recorded, to switch to using
+     * them for writing the value.
+     */
+    public void rewind() {
+        _nextIndex = 0;
+        _recording = false;
+        _depth = 0;
+    }
+
+    public boolean isRecording() { return _recording; }
+
+    /**
+     * @return Number of entries for which sizes have been recorded
+     */
+    public int size() { return _count; }
+
+    /**
+     * @return Size of entry with given index, excluding its tag and length prefix
+     */
+    public int sizeAt(int index) {
+        if (index < 0 || index >= _count) {
+            throw new IndexOutOfBoundsException("Invalid index ("+index+"): have "+_count+" sizes");
+        }
+        return _sizes[index];
+    }
+
+    /*
+    /**********************************************************
+    /* Methods for generator
+    /**********************************************************
+     */
+
+    /**
+     * @return Total length of length prefixes of recorded entries
+     */
+    protected long prefixLength() {
+        return _prefixBytes;
+    }
+
+    protected boolean hasOpen() {
+        return _depth > 0;
+    }
+
+    /**
+     * Method called during first pass when starting an entry at given position
+     * (not counting length prefixes of preceding entries)
+     */
+    protected void startRecording(long position)
+    {
+        if (_count == _sizes.length) {
+            _sizes = Arrays.copyOf(_sizes, _count << 1);
+        }
+        _push(_count++, position + _prefixBytes);
+    }
+
+    /**
+     * Method called during first pass when finishing the innermost open entry
+     * at given position.
+     *
+     * @return Size of the entry
+     */
+    protected int finishRecording(long position)
+    {
+        --_depth;
+        long size = position + _prefixBytes - _openPositions[_depth];
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Serialized size of entry too big ("+size+" bytes)");
+        }
+        int len = (int) size;
+        _sizes[_openIndexes[_depth]] = len;
+        _prefixBytes += ProtobufUtil.lengthLength(len);
+        return len;
+    }
+
+    /**
+     * Method called during second pass when starting an entry, to get its size
+     *
+     * @return Size of the entry; or -1 if no more sizes are available
+     */
+    protected int nextSize()
+    {
+        if (_nextIndex >= _count) {
+            return -1;
+        }
+        return _sizes[_nextIndex++];
+    }
+
+    /**
+     * Method called during second pass after writing length prefix of an entry
+     */
+    protected void startWriting(long position, int size) {
+        _push(_nextIndex-1, position + size);
+    }
+
+    /**
+     * Method called during second pass when finishing the innermost open entry
+     *
+     * @return Position at which entry was expected to end
+     */
+    protected long finishWriting() {
+        return _openPositions[--_depth];
+    }
+
+    /**
+     * @return Index of the innermost open entry
+     */
+    protected int currentIndex() {
+        return _openIndexes[_depth-1];
+    }
+
+    private void _push(int index, long position)
+    {
+        if (_depth == _openIndexes.length) {
+            _openIndexes = Arrays.copyOf(_openIndexes, _depth << 1);
+            _openPositions = Arrays.copyOf(_openPositions, _depth << 1);
+        }
+        _openIndexes[_depth] = index;
+        _openPositions[_depth] = position;
+        ++_depth;
+    }
+}
@@ -0,0 +1,102 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Definitions for the block-based container file format written by
+ * {@link ProtobufContainerWriter} and read by {@link ProtobufContainerReader}.
+ * Files are self-describing (header contains protobuf schema definition and
+ * name of the root message type) and splittable (each block is preceded by
+ * a sync marker unique to the file).
+ *<p>
+ * Layout is as follows, with all lengths and counts written as VInts:
+ *<ul>
+ * <li>Header: 4-byte signature ("PBC" and version byte), schema text
+ *   (length, UTF-8 bytes), root type name (length, UTF-8 bytes),
+ *   codec id byte, 16-byte sync marker
+ *  </li>
+ * <li>Zero or more blocks, each consisting of sync marker, number of messages,
+ *   uncompressed length, stored (possibly compressed) length, CRC32 of
+ *   uncompressed content (4 bytes, big-endian) and stored content; uncompressed
+ *   content is a sequence of length-delimited messages (see
+ *   {@link ProtobufParser.Feature#LENGTH_DELIMITED})
+ *  </li>
+ *</ul>
+ *
+ * @since 2.7.10
+ */
+public class ProtobufContainer
+{
+    /**
+     * Compression codecs that may be used for block contents.
+     */
+    public enum Codec {
+        /**
+         * No compression
+         */
+        NONE(0),
+
+        /**
+         * Compression using {@link java.util.zip.Deflater}, without zlib
+         * header or checksum.
+         */
+        DEFLATE(1)
+        ;
+
+        private final int _id;
+
+        private Codec(int id) { _id = id; }
+
+        public int getId() { return _id; }
+
+        public static Codec forId(int id) {
+            for (Codec c : values()) {
+                if (c._id == id) {
+                    return c;
+                }
+            }
+            return null;
+        }
+    }
+
+    public final static byte[] SIGNATURE = new byte[] { 'P', 'B', 'C', 1 };
+
+    public final static int SYNC_MARKER_LENGTH = 16;
+
+    /**
+     * Maximum length of the block header following the sync marker: three
+     * VInts and a 32-bit checksum
+     */
+    protected final static int MAX_BLOCK_HEADER_LENGTH = SYNC_MARKER_LENGTH + 3*5 + 4;
+
+    /**
+     * Default (uncompressed) size of blocks to write, in bytes
+     */
+    public final static int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private ProtobufContainer() { }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    protected static void writeVInt(OutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    protected static void writeInt32(OutputStream out, int value) throws IOException
+    {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
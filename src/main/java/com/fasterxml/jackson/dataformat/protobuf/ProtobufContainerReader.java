@@ -0,0 +1,480 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+/**
+ * Reader for container files written by {@link ProtobufContainerWriter}
+ * (see {@link ProtobufContainer} for details on format). Schema is read from
+ * the file header, and blocks may be decoded either sequentially, in parallel
+ * (using a {@link ForkJoinPool}) or for just a byte range ("split") of the file,
+ * to allow processing of a single file by multiple independent readers.
+ *<p>
+ * Instances are thread-safe after construction: blocks are read using
+ * positional reads of the underlying {@link FileChannel}.
+ *
+ * @since 2.7.10
+ */
+public class ProtobufContainerReader
+    implements Closeable
+{
+    protected final ProtobufMapper _mapper;
+
+    protected final File _file;
+
+    protected final FileChannel _channel;
+
+    protected final ProtobufSchema _schema;
+
+    protected final ProtobufContainer.Codec _codec;
+
+    protected final byte[] _syncMarker;
+
+    /**
+     * Offset of the first block (its sync marker)
+     */
+    protected final long _firstBlockOffset;
+
+    /*
+    /**********************************************************
+    /* Life-cycle
+    /**********************************************************
+     */
+
+    public ProtobufContainerReader(ProtobufMapper mapper, File f) throws IOException
+    {
+        _mapper = mapper;
+        _file = f;
+        _channel = new FileInputStream(f).getChannel();
+        try {
+            InputStream in = new BufferedInputStream(new FileInputStream(f));
+            try {
+                byte[] sig = new byte[ProtobufContainer.SIGNATURE.length];
+                _readFully(in, sig);
+                if (!Arrays.equals(sig, ProtobufContainer.SIGNATURE)) {
+                    throw new IOException("File '"+f+"' is not a protobuf container file: invalid signature");
+                }
+                long offset = sig.length;
+                byte[] schemaDef = _readBytes(in);
+                byte[] typeName = _readBytes(in);
+                offset += _vintLength(schemaDef.length) + schemaDef.length
+                        + _vintLength(typeName.length) + typeName.length;
+                int codecId = in.read();
+                _codec = ProtobufContainer.Codec.forId(codecId);
+                if (_codec == null) {
+                    throw new IOException("Unrecognized compression codec id ("+codecId+") in file '"+f+"'");
+                }
+                _syncMarker = new byte[ProtobufContainer.SYNC_MARKER_LENGTH];
+                _readFully(in, _syncMarker);
+                _firstBlockOffset = offset + 1 + _syncMarker.length;
+                _schema = mapper.schemaLoader().parse(new String(schemaDef, "UTF-8"),
+                        new String(typeName, "UTF-8"));
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            _channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        _channel.close();
+    }
+
+    /*
+    /**********************************************************
+    /* Accessors
+    /**********************************************************
+     */
+
+    /**
+     * Accessor for schema read from the file header.
+     */
+    public ProtobufSchema getSchema() { return _schema; }
+
+    public ProtobufContainer.Codec getCodec() { return _codec; }
+
+    /**
+     * Method for finding out offsets and message counts of all blocks, by
+     * reading block headers.
+     */
+    public List<Block> findBlocks() throws IOException {
+        return findBlocks(0L, Long.MAX_VALUE);
+    }
+
+    /**
+     * Method for finding all blocks that start (that is, sync markers of
+     * which start) at or after <code>start</code>, but before <code>end</code>.
+     * Since blocks may be located using sync markers, given offsets need not
+     * match block boundaries, and so any file may be split into arbitrary
+     * byte ranges to process, with all blocks processed exactly once.
+     */
+    public List<Block> findBlocks(long start, long end) throws IOException
+    {
+        List<Block> result = new ArrayList<Block>();
+        end = Math.min(end, _channel.size());
+        long offset = _findSync(Math.max(start, _firstBlockOffset), end);
+        while ((offset >= 0L) && (offset < end)) {
+            Block b = _readBlockHeader(offset);
+            result.add(b);
+            offset = b.getEndOffset();
+        }
+        return result;
+    }
+
+    /*
+    /**********************************************************
+    /* Reading values
+    /**********************************************************
+     */
+
+    /**
+     * Method for reading all values in the file sequentially.
+     */
+    public <T> List<T> readAll(Class<T> valueType) throws IOException
+    {
+        ObjectReader r = _mapper.readerFor(valueType);
+        List<T> result = new ArrayList<T>();
+        for (Block b : findBlocks()) {
+            _readBlock(r, b, result);
+        }
+        return result;
+    }
+
+    /**
+     * Method for reading all values in the file, decoding blocks in parallel
+     * using given pool.
+     *
+     * @return Values in the same order as in the file
+     */
+    public <T> List<T> readAll(final Class<T> valueType, ForkJoinPool pool) throws IOException
+    {
+        final ObjectReader r = _mapper.readerFor(valueType);
+        List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>();
+        for (final Block b : findBlocks()) {
+            tasks.add(new Callable<List<T>>() {
+                @Override
+                public List<T> call() throws IOException {
+                    return _readBlock(r, b, new ArrayList<T>(b.getMessageCount()));
+                }
+            });
+        }
+        List<T> result = new ArrayList<T>();
+        for (Future<List<T>> f : pool.invokeAll(tasks)) {
+            try {
+                result.addAll(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading container file '"+_file+"'");
+            } catch (ExecutionException e) {
+                Throwable t = e.getCause();
+                if (t instanceof IOException) {
+                    throw (IOException) t;
+                }
+                if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                }
+                throw new IOException(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Method for reading values of all blocks that start within given byte range
+     * (see {@link #findBlocks(long, long)}).
+     */
+    public <T> List<T> readSplit(Class<T> valueType, long start, long end) throws IOException
+    {
+        ObjectReader r = _mapper.readerFor(valueType);
+        List<T> result = new ArrayList<T>();
+        for (Block b : findBlocks(start, end)) {
+            _readBlock(r, b, result);
+        }
+        return result;
+    }
+
+    /**
+     * Method for reading values of given block, appending them to given list.
+     */
+    public <T> List<T> readBlock(Class<T> valueType, Block b, List<T> result) throws IOException {
+        return _readBlock(_mapper.readerFor(valueType), b, result);
+    }
+
+    /*
+    /**********************************************************
+    /* Internal methods
+    /**********************************************************
+     */
+
+    protected <T> List<T> _readBlock(ObjectReader r, Block b, List<T> result) throws IOException
+    {
+        byte[] content = _decodeBlock(b);
+        ProtobufParser p = _mapper.getFactory().createParser(content);
+        p.setSchema(_schema);
+        p.enable(ProtobufParser.Feature.LENGTH_DELIMITED);
+        MappingIterator<T> it = r.readValues(p);
+        int count = 0;
+        try {
+            while (it.hasNextValue()) {
+                result.add(it.nextValue());
+                ++count;
+            }
+        } finally {
+            it.close();
+        }
+        if (count != b.getMessageCount()) {
+            throw new IOException("Corrupt block at offset "+b.getOffset()+" of '"+_file
+                    +"': expected "+b.getMessageCount()+" messages, got "+count);
+        }
+        return result;
+    }
+
+    /**
+     * Method for reading, decompressing and verifying contents of given block.
+     */
+    protected byte[] _decodeBlock(Block b) throws IOException
+    {
+        byte[] stored = _read(b._contentOffset, b._storedLength);
+        byte[] content = stored;
+        if (_codec == ProtobufContainer.Codec.DEFLATE) {
+            content = new byte[b._rawLength];
+            Inflater inf = new Inflater(true);
+            try {
+                inf.setInput(stored);
+                int len = 0;
+                while (len < content.length) {
+                    int count = inf.inflate(content, len, content.length - len);
+                    if (count == 0 && (inf.finished() || inf.needsInput() || inf.needsDictionary())) {
+                        break;
+                    }
+                    len += count;
+                }
+                if (len != content.length) {
+                    throw new IOException("Corrupt block at offset "+b.getOffset()+" of '"+_file
+                            +"': decompressed to "+len+" bytes, expected "+content.length);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt block at offset "+b.getOffset()+" of '"+_file
+                        +"': "+e.getMessage(), e);
+            } finally {
+                inf.end();
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+        if ((int) crc.getValue() != b._checksum) {
+            throw new IOException("Checksum mismatch for block at offset "+b.getOffset()+" of '"+_file+"'");
+        }
+        return content;
+    }
+
+    protected Block _readBlockHeader(long offset) throws IOException
+    {
+        int len = (int) Math.min(ProtobufContainer.MAX_BLOCK_HEADER_LENGTH, _channel.size() - offset);
+        ByteBuffer bb = ByteBuffer.wrap(_read(offset, len));
+        for (int i = 0; i < _syncMarker.length; ++i) {
+            if (!bb.hasRemaining() || (bb.get() != _syncMarker[i])) {
+                throw new IOException("Invalid sync marker at offset "+offset+" of '"+_file+"'");
+            }
+        }
+        try {
+            int count = _readVInt(bb);
+            int rawLength = _readVInt(bb);
+            int storedLength = _readVInt(bb);
+            int checksum = bb.getInt();
+            long contentOffset = offset + bb.position();
+            if ((count < 0) || (rawLength < 0) || (storedLength < 0)
+                    || (contentOffset + storedLength > _channel.size())) {
+                throw new IOException("Corrupt or truncated block at offset "+offset+" of '"+_file+"'");
+            }
+            return new Block(offset, count, rawLength, storedLength, checksum, contentOffset);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Truncated block header at offset "+offset+" of '"+_file+"'");
+        }
+    }
+
+    /**
+     * Method for finding offset of the first sync marker at or after
+     * given start offset, but before given end offset.
+     *
+     * @return Offset of sync marker found, if any; -1 if none
+     */
+    protected long _findSync(long start, long end) throws IOException
+    {
+        final byte[] sync = _syncMarker;
+        final long size = _channel.size();
+        ByteBuffer bb = ByteBuffer.allocate(8192);
+        long offset = start;
+        while (offset < end) {
+            bb.clear();
+            int count = _readAt(bb, offset);
+            if (count < sync.length) {
+                break;
+            }
+            final byte[] buf = bb.array();
+            final int last = count - sync.length;
+            for (int i = 0; i <= last; ++i) {
+                if ((offset + i) >= end) {
+                    return -1L;
+                }
+                if (buf[i] == sync[0] && _matches(buf, i, sync)) {
+                    return offset + i;
+                }
+            }
+            if ((offset + count) >= size) {
+                break;
+            }
+            // overlap, so that markers spanning chunks are found too
+            offset += last + 1;
+        }
+        return -1L;
+    }
+
+    private static boolean _matches(byte[] buf, int offset, byte[] sync)
+    {
+        for (int i = 1; i < sync.length; ++i) {
+            if (buf[offset+i] != sync[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected byte[] _read(long offset, int len) throws IOException
+    {
+        ByteBuffer bb = ByteBuffer.allocate(len);
+        while (bb.hasRemaining()) {
+            if (_readAt(bb, offset + bb.position()) <= 0) {
+                throw new EOFException("Unexpected end of file '"+_file+"' at offset "+(offset + bb.position()));
+            }
+        }
+        return bb.array();
+    }
+
+    private int _readAt(ByteBuffer bb, long offset) throws IOException
+    {
+        int start = bb.position();
+        while (bb.hasRemaining()) {
+            int count = _channel.read(bb, offset + (bb.position() - start));
+            if (count < 0) {
+                break;
+            }
+        }
+        return bb.position() - start;
+    }
+
+    private static int _readVInt(ByteBuffer bb) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = bb.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid VInt in block header: more than 5 bytes");
+    }
+
+    private static int _vintLength(int value)
+    {
+        int len = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            ++len;
+        }
+        return len;
+    }
+
+    private static byte[] _readBytes(InputStream in) throws IOException
+    {
+        int len = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of container file header");
+            }
+            if (shift > 28) {
+                throw new IOException("Invalid length in container file header");
+            }
+            len |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                break;
+            }
+        }
+        if (len < 0) {
+            throw new IOException("Invalid length ("+len+") in container file header");
+        }
+        byte[] result = new byte[len];
+        _readFully(in, result);
+        return result;
+    }
+
+    private static void _readFully(InputStream in, byte[] b) throws IOException
+    {
+        int offset = 0;
+        while (offset < b.length) {
+            int count = in.read(b, offset, b.length - offset);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of container file header");
+            }
+            offset += count;
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Helper types
+    /**********************************************************
+     */
+
+    /**
+     * Information about a single block of a container file, as read from
+     * its header.
+     */
+    public final static class Block
+    {
+        protected final long _offset;
+        protected final int _messageCount;
+        protected final int _rawLength, _storedLength;
+        protected final int _checksum;
+        protected final long _contentOffset;
+
+        protected Block(long offset, int count, int rawLength, int storedLength,
+                int checksum, long contentOffset)
+        {
+            _offset = offset;
+            _messageCount = count;
+            _rawLength = rawLength;
+            _storedLength = storedLength;
+            _checksum = checksum;
+            _contentOffset = contentOffset;
+        }
+
+        /**
+         * @return Offset of the block (its sync marker) within file
+         */
+        public long getOffset() { return _offset; }
+
+        public int getMessageCount() { return _messageCount; }
+
+        /**
+         * @return Offset right after the last byte of the block
+         */
+        public long getEndOffset() { return _contentOffset + _storedLength; }
+    }
+}
@@ -0,0 +1,230 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.*;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+/**
+ * Writer for producing container files (see {@link ProtobufContainer} for
+ * details on format): values are serialized as length-delimited messages into
+ * blocks of about configured size, and blocks are written along with
+ * message counts, checksums and sync markers, optionally compressed.
+ *<p>
+ * Instances are not thread-safe.
+ *
+ * @since 2.7.10
+ */
+public class ProtobufContainerWriter
+    implements Closeable, Flushable
+{
+    protected final OutputStream _out;
+
+    protected final ProtobufContainer.Codec _codec;
+
+    protected final int _blockSize;
+
+    protected final byte[] _syncMarker;
+
+    /**
+     * Buffer in which contents of the current block are serialized
+     */
+    protected final ByteArrayOutputStream _block;
+
+    protected final SequenceWriter _blockWriter;
+
+    protected final CRC32 _crc = new CRC32();
+
+    protected Deflater _deflater;
+
+    protected byte[] _compressBuffer;
+
+    /**
+     * Number of messages in the current block
+     */
+    protected int _blockCount;
+
+    protected boolean _closed;
+
+    /**
+     * @param w Writer to use for serializing values: schema will be set,
+     *   and {@link ProtobufGenerator.Feature#LENGTH_DELIMITED} enabled, on it
+     * @param schema Schema to use for writing messages; also written in the header,
+     *   so it must have native definition (schemas read in compiled form do not)
+     * @param out Stream to write container file to
+     * @param codec Compression codec to use for blocks
+     * @param blockSize Size of uncompressed content after which a block is written
+     */
+    public ProtobufContainerWriter(ObjectWriter w, ProtobufSchema schema,
+            OutputStream out, ProtobufContainer.Codec codec, int blockSize)
+        throws IOException
+    {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid block size ("+blockSize+"): must be positive");
+        }
+        if (schema.getSource() == null) {
+            throw new IllegalArgumentException("Invalid schema (root type '"+schema.getRootType().getName()
+                    +"'): container files need a native schema definition");
+        }
+        _out = out;
+        _codec = codec;
+        _blockSize = blockSize;
+        _syncMarker = _generateSyncMarker();
+        _block = new ByteArrayOutputStream(blockSize + (blockSize >> 2));
+        _blockWriter = w.with(schema)
+                .with(ProtobufGenerator.Feature.LENGTH_DELIMITED)
+                .writeValues(_block);
+        _writeHeader(schema);
+    }
+
+    /*
+    /**********************************************************
+    /* Public API
+    /**********************************************************
+     */
+
+    public ProtobufContainerWriter write(Object value) throws IOException
+    {
+        if (_closed) {
+            throw new IllegalStateException("Container writer already closed");
+        }
+        _blockWriter.write(value);
+        ++_blockCount;
+        if (_block.size() >= _blockSize) {
+            _writeBlock();
+        }
+        return this;
+    }
+
+    public ProtobufContainerWriter writeAll(Iterable<?> values) throws IOException
+    {
+        for (Object value : values) {
+            write(value);
+        }
+        return this;
+    }
+
+    /**
+     * Method that writes out the current block (if it contains any messages),
+     * and flushes the underlying stream, so that all messages written so far
+     * may be read back.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        if (!_closed) {
+            _writeBlock();
+            _out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (!_closed) {
+            _writeBlock();
+            _closed = true;
+            _blockWriter.close();
+            if (_deflater != null) {
+                _deflater.end();
+            }
+            _out.close();
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Internal methods
+    /**********************************************************
+     */
+
+    protected void _writeHeader(ProtobufSchema schema) throws IOException
+    {
+        _out.write(ProtobufContainer.SIGNATURE);
+        _writeString(schema.getSource().toString());
+        _writeString(schema.getRootType().getName());
+        _out.write(_codec.getId());
+        _out.write(_syncMarker);
+    }
+
+    protected void _writeBlock() throws IOException
+    {
+        if (_blockCount == 0) {
+            return;
+        }
+        _blockWriter.flush();
+        final byte[] raw = _block.toByteArray();
+        _crc.reset();
+        _crc.update(raw, 0, raw.length);
+
+        byte[] stored = raw;
+        int storedLen = raw.length;
+        if (_codec == ProtobufContainer.Codec.DEFLATE) {
+            storedLen = _deflate(raw);
+            stored = _compressBuffer;
+        }
+        _out.write(_syncMarker);
+        ProtobufContainer.writeVInt(_out, _blockCount);
+        ProtobufContainer.writeVInt(_out, raw.length);
+        ProtobufContainer.writeVInt(_out, storedLen);
+        ProtobufContainer.writeInt32(_out, (int) _crc.getValue());
+        _out.write(stored, 0, storedLen);
+
+        _block.reset();
+        _blockCount = 0;
+    }
+
+    /**
+     * @return Length of compressed content, stored in {@link #_compressBuffer}
+     */
+    protected int _deflate(byte[] raw) throws IOException
+    {
+        if (_deflater == null) {
+            _deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        } else {
+            _deflater.reset();
+        }
+        // should usually be big enough, but may need to grow for incompressible content
+        if ((_compressBuffer == null) || (_compressBuffer.length < raw.length)) {
+            _compressBuffer = new byte[raw.length + 64];
+        }
+        _deflater.setInput(raw);
+        _deflater.finish();
+        int len = 0;
+        while (!_deflater.finished()) {
+            if (len == _compressBuffer.length) {
+                byte[] b = new byte[len + (len >> 1)];
+                System.arraycopy(_compressBuffer, 0, b, 0, len);
+                _compressBuffer = b;
+            }
+            len += _deflater.deflate(_compressBuffer, len, _compressBuffer.length - len);
+        }
+        return len;
+    }
+
+    protected void _writeString(String str) throws IOException
+    {
+        byte[] b = str.getBytes("UTF-8");
+        ProtobufContainer.writeVInt(_out, b.length);
+        _out.write(b);
+    }
+
+    protected byte[] _generateSyncMarker()
+    {
+        UUID uuid = UUID.randomUUID();
+        byte[] result = new byte[ProtobufContainer.SYNC_MARKER_LENGTH];
+        long l = uuid.getMostSignificantBits();
+        for (int i = 0; i < 8; ++i) {
+            result[i] = (byte) (l >>> (56 - 8*i));
+        }
+        l = uuid.getLeastSignificantBits();
+        for (int i = 0; i < 8; ++i) {
+            result[8+i] = (byte) (l >>> (56 - 8*i));
+        }
+        return result;
+    }
+}
@@ -2,6 +2,9 @@ package com.fasterxml.jackson.dataformat.protobuf;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.core.format.InputAccessor;
@@ -13,6 +16,38 @@ public class ProtobufFactory extends JsonFactory
 {
     private static final long serialVersionUID = 1;
 
+    /**
+     * Bitfield (set of flags) of all parser features that are enabled
+     * by default.
+     *
+     * @since 2.7.10
+     */
+    final static int DEFAULT_PROTOBUF_PARSER_FEATURE_FLAGS = ProtobufParser.Feature.collectDefaults();
+
+    /**
+     * Bitfield (set of flags) of all generator features that are enabled
+     * by default.
+     *
+     * @since 2.7.10
+     */
+    final static int DEFAULT_PROTOBUF_GENERATOR_FEATURE_FLAGS = ProtobufGenerator.Feature.collectDefaults();
+
+    /*
+    /**********************************************************
+    /* Configuration
+    /**********************************************************
+     */
+
+    /**
+     * @since 2.7.10
+     */
+    protected int _protobufParserFeatures = DEFAULT_PROTOBUF_PARSER_FEATURE_FLAGS;
+
+    /**
+     * @since 2.7.10
+     */
+    protected int _protobufGeneratorFeatures = DEFAULT_PROTOBUF_GENERATOR_FEATURE_FLAGS;
+
     /*
     /**********************************************************
     /* Factory construction, configuration
@@ -28,6 +63,8 @@ public class ProtobufFactory extends JsonFactory
     protected ProtobufFactory(ProtobufFactory src, ObjectCodec oc)
     {
         super(src, oc);
+        _protobufParserFeatures = src._protobufParserFeatures;
+        _protobufGeneratorFeatures = src._protobufGeneratorFeatures;
     }
 
     @Override
@@ -103,18 +140,120 @@ public class ProtobufFactory extends JsonFactory
         return true;
     }
 
-    // No format-specific configuration, yet:
-/*    
     @Override
-    public Class<? extends FormatFeature> getFormatReadFeatureType() {
-        return null;
+    public Class<ProtobufParser.Feature> getFormatReadFeatureType() {
+        return ProtobufParser.Feature.class;
     }
 
     @Override
-    public Class<? extends FormatFeature> getFormatWriteFeatureType() {
-        return null;
+    public Class<ProtobufGenerator.Feature> getFormatWriteFeatureType() {
+        return ProtobufGenerator.Feature.class;
+    }
+
+    /*
+    /**********************************************************
+    /* Configuration, parser settings
+    /**********************************************************
+     */
+
+    /**
+     * Method for enabling or disabling specified parser feature
+     * (check {@link ProtobufParser.Feature} for list of features)
+     *
+     * @since 2.7.10
+     */
+    public final ProtobufFactory configure(ProtobufParser.Feature f, boolean state)
+    {
+        if (state) {
+            enable(f);
+        } else {
+            disable(f);
+        }
+        return this;
+    }
+
+    /**
+     * Method for enabling specified parser feature
+     * (check {@link ProtobufParser.Feature} for list of features)
+     *
+     * @since 2.7.10
+     */
+    public ProtobufFactory enable(ProtobufParser.Feature f) {
+        _protobufParserFeatures |= f.getMask();
+        return this;
+    }
+
+    /**
+     * Method for disabling specified parser features
+     * (check {@link ProtobufParser.Feature} for list of features)
+     *
+     * @since 2.7.10
+     */
+    public ProtobufFactory disable(ProtobufParser.Feature f) {
+        _protobufParserFeatures &= ~f.getMask();
+        return this;
+    }
+
+    /**
+     * Checked whether specified parser feature is enabled.
+     *
+     * @since 2.7.10
+     */
+    public final boolean isEnabled(ProtobufParser.Feature f) {
+        return (_protobufParserFeatures & f.getMask()) != 0;
+    }
+
+    /*
+    /**********************************************************
+    /* Configuration, generator settings
+    /**********************************************************
+     */
+
+    /**
+     * Method for enabling or disabling specified generator feature
+     * (check {@link ProtobufGenerator.Feature} for list of features)
+     *
+     * @since 2.7.10
+     */
+    public final ProtobufFactory configure(ProtobufGenerator.Feature f, boolean state) {
+        if (state) {
+            enable(f);
+        } else {
+            disable(f);
+        }
+        return this;
+    }
+
+    /**
+     * Method for enabling specified generator features
+     * (check {@link ProtobufGenerator.Feature} for list of features)
+     *
+     * @since 2.7.10
+     */
+    public ProtobufFactory enable(ProtobufGenerator.Feature f) {
+        _protobufGeneratorFeatures |= f.getMask();
+        return this;
+    }
+
+    /**
+     * Method for disabling specified generator feature
+     * (check {@link ProtobufGenerator.Feature} for list of features)
+     *
+     * @since 2.7.10
+     */
+    public ProtobufFactory disable(ProtobufGenerator.Feature f) {
+        _protobufGeneratorFeatures &= ~f.getMask();
+        return this;
+    }
+
+    /**
+     * Check whether specified generator feature is enabled.
+     *
+     * @since 2.7.10
+     */
+    public final boolean isEnabled(ProtobufGenerator.Feature f) {
+        return (_protobufGeneratorFeatures & f.getMask()) != 0;
     }
-*/
 
     /*
     /**********************************************************
@@ -127,6 +266,36 @@ public class ProtobufFactory extends JsonFactory
         return _createParser(new FileInputStream(f), _createContext(f, true));
     }
 
+    /**
+     * Alternative to {@link #createParser(File)} that memory-maps the file instead of
+     * reading it via {@link InputStream}: this is usually more efficient for large
+     * files, as no system calls are needed for reading, and longer String and binary
+     * values (as well as skipped content) are accessed directly from mapped memory.
+     * Files larger than 1 gigabyte are mapped in sections.
+     *<p>
+     * Note that the file must not be truncated while being read; and that as usual
+     * with memory-mapped files, mapped memory is only released once the JVM garbage
+     * collects buffers involved.
+     */
+    public ProtobufParser createMappedParser(File f) throws IOException {
+        return createMappedParser(f, 0L);
+    }
+
+    /**
+     * Variant of {@link #createMappedParser(File)} that starts reading content at
+     * given offset within the file, instead of its beginning: usually used with
+     * {@link ProtobufParser.Feature#LENGTH_DELIMITED}, to start reading from a
+     * specific message (see {@link DelimitedIndex}).
+     *
+     * @since 2.7.10
+     */
+    public ProtobufParser createMappedParser(File f, long offset) throws IOException {
+        IOContext ctxt = _createContext(f, true);
+        FileChannel ch = new FileInputStream(f).getChannel();
+        return new ProtobufParser(ctxt, _parserFeatures, _protobufParserFeatures,
+                _objectCodec, ch, offset, ctxt.allocReadIOBuffer());
+    }
+
     @Override
     public ProtobufParser createParser(URL url) throws IOException {
         return _createParser(_optimizedStreamFromURL(url), _createContext(url, true));
@@ -147,6 +316,38 @@ public class ProtobufFactory extends JsonFactory
         return _createParser(data, offset, len, _createContext(data, true));
     }
 
+    /**
+     * Method for constructing parser for reading content between the current
+     * position and limit of given {@link ByteBuffer}. Position of the buffer
+     * is not modified.
+     *<p>
+     * Heap buffers are decoded directly from their backing array, with no copying;
+     * other (direct, read-only) buffers are read in chunks into the recyclable
+     * input buffer, similar to how streams are handled.
+     */
+    public ProtobufParser createParser(ByteBuffer data) throws IOException {
+        IOContext ctxt = _createContext(data, true);
+        if (data.hasArray()) {
+            return _createParser(data.array(), data.arrayOffset() + data.position(),
+                    data.remaining(), ctxt);
+        }
+        return new ProtobufParser(ctxt, _parserFeatures, _protobufParserFeatures,
+                _objectCodec, data.duplicate(), ctxt.allocReadIOBuffer());
+    }
+
+    /**
+     * Method for constructing a non-blocking parser, to which content is fed
+     * using {@link NonBlockingProtobufParser#feedInput}, instead of it being
+     * read from a blocking source.
+     *
+     * @since 2.7.10
+     */
+    public NonBlockingProtobufParser createNonBlockingParser() throws IOException {
+        IOContext ctxt = _createContext(null, false);
+        return new NonBlockingProtobufParser(ctxt, _parserFeatures, _protobufParserFeatures,
+                _objectCodec, ctxt.allocReadIOBuffer());
+    }
+
     /*
     /**********************************************************
     /* Overridden generator factory methods
@@ -175,6 +376,34 @@ public class ProtobufFactory extends JsonFactory
         return _createProtobufGenerator(ctxt, _generatorFeatures, _objectCodec, out);
     }
 
+    /**
+     * Method for constructing generator that writes into given (heap or direct)
+     * buffer, starting at its current position; content that does not fit
+     * in remaining space results in an {@link IOException}.
+     * To write into a growable chain of buffers instead, construct generator
+     * for a {@link ChunkedByteBufferOutputStream}.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufGenerator createGenerator(ByteBuffer buffer) throws IOException {
+        IOContext ctxt = _createContext(buffer, false);
+        OutputStream out = _decorate(new ByteBufferOutputStream(buffer), ctxt);
+        return _createProtobufGenerator(ctxt, _generatorFeatures, _objectCodec, out);
+    }
+
+    /**
+     * Method for constructing generator that writes to given (blocking) channel.
+     * If channel is a {@link java.nio.channels.GatheringByteChannel}, buffered
+     * contents of nested Messages are written using gathering writes.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufGenerator createGenerator(WritableByteChannel ch) throws IOException {
+        IOContext ctxt = _createContext(ch, false);
+        OutputStream out = _decorate(new ChannelOutputStream(ch), ctxt);
+        return _createProtobufGenerator(ctxt, _generatorFeatures, _objectCodec, out);
+    }
+
     /*
     /******************************************************
     /* Overridden internal factory methods
@@ -190,7 +419,7 @@ public class ProtobufFactory extends JsonFactory
     protected ProtobufParser _createParser(InputStream in, IOContext ctxt) throws IOException
     {
         byte[] buf = ctxt.allocReadIOBuffer();
-        return new ProtobufParser(ctxt, _parserFeatures,
+        return new ProtobufParser(ctxt, _parserFeatures, _protobufParserFeatures,
                 _objectCodec, in, buf, 0, 0, true);
     }
 
@@ -208,8 +437,8 @@ public class ProtobufFactory extends JsonFactory
     @Override
     protected ProtobufParser _createParser(byte[] data, int offset, int len, IOContext ctxt) throws IOException
     {
-        return new ProtobufParser(ctxt, _parserFeatures,
-                _objectCodec, null, data, offset, len, false);
+        return new ProtobufParser(ctxt, _parserFeatures, _protobufParserFeatures,
+                _objectCodec, null, data, offset, offset+len, false);
     }
 
     @Override
@@ -230,7 +459,10 @@ public class ProtobufFactory extends JsonFactory
     private final ProtobufGenerator _createProtobufGenerator(IOContext ctxt,
             int stdFeat, ObjectCodec codec, OutputStream out) throws IOException
     {
-        return new ProtobufGenerator(ctxt, stdFeat, _objectCodec, out);
+        if (ProtobufGenerator.Feature.REVERSE_ENCODING.enabledIn(_protobufGeneratorFeatures)) {
+            return new ReverseProtobufGenerator(ctxt, stdFeat, _protobufGeneratorFeatures, _objectCodec, out);
+        }
+        return new ProtobufGenerator(ctxt, stdFeat, _protobufGeneratorFeatures, _objectCodec, out);
     }
     
     protected <T> T _nonByteTarget() {
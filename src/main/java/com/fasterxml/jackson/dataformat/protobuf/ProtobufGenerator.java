@@ -4,6 +4,7 @@ import java.io.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.core.base.GeneratorBase;
@@ -11,12 +12,93 @@ import com.fasterxml.jackson.core.io.IOContext;
 import com.fasterxml.jackson.core.json.JsonWriteContext;
 import com.fasterxml.jackson.dataformat.protobuf.schema.FieldType;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufField;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufFieldName;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufMessage;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
 import com.fasterxml.jackson.dataformat.protobuf.schema.WireType;
 
 public class ProtobufGenerator extends GeneratorBase
 {
+    /**
+     * Enumeration that defines all togglable features for Protobuf generators
+     *
+     * @since 2.7.10
+     */
+    public enum Feature implements FormatFeature
+    {
+        /**
+         * Feature that determines whether root-level messages are to be written
+         * length-delimited, that is, preceded by their length as a VInt (similar
+         * to <code>writeDelimitedTo()</code> of the standard protobuf library).
+         * Enabling this allows writing a stream of messages, using
+         * {@link com.fasterxml.jackson.databind.SequenceWriter}, to be read using
+         * {@link ProtobufParser.Feature#LENGTH_DELIMITED}.
+         *<p>
+         * Feature is disabled by default.
+         */
+        LENGTH_DELIMITED(false),
+
+        /**
+         * Feature that determines whether {@link ProtobufFactory} constructs
+         * {@link ReverseProtobufGenerator}s, which encode messages back-to-front
+         * (without need to buffer contents of nested messages), instead of
+         * standard generators. Note that this feature has to be enabled on
+         * the factory (or mapper): since it determines type of generator,
+         * it can not be changed for an existing generator, and trying to do
+         * so (for example, using <code>ObjectWriter.with(...)</code>) results
+         * in an {@link IllegalArgumentException}.
+         *<p>
+         * Feature is disabled by default.
+         */
+        REVERSE_ENCODING(false),
+
+        /**
+         * Feature that determines whether nested Message values are written
+         * as groups (delimited by start-group and end-group tags, wire types
+         * 3 and 4), instead of being length-prefixed. Since length of contents
+         * need not be known in advance, contents of nested Messages are not
+         * buffered but written out as they are generated; this keeps memory
+         * usage constant regardless of size of nested Messages.
+         * Note that this applies to all nested Message fields (but not to the
+         * root-level Message), and that readers must support group encoding:
+         * {@link ProtobufParser} accepts groups for all Message fields.
+         *<p>
+         * Feature is disabled by default.
+         */
+        WRITE_NESTED_AS_GROUPS(false),
+        ;
+
+        final boolean _defaultState;
+        final int _mask;
+
+        /**
+         * Method that calculates bit set (flags) of all features that
+         * are enabled by default.
+         */
+        public static int collectDefaults()
+        {
+            int flags = 0;
+            for (Feature f : values()) {
+                if (f.enabledByDefault()) {
+                    flags |= f.getMask();
+                }
+            }
+            return flags;
+        }
+
+        private Feature(boolean defaultState) {
+            _defaultState = defaultState;
+            _mask = (1 << ordinal());
+        }
+
+        @Override
+        public boolean enabledByDefault() { return _defaultState; }
+        @Override
+        public boolean enabledIn(int flags) { return (flags & _mask) != 0; }
+        @Override
+        public int getMask() { return _mask; }
+    }
+
     /*
     /**********************************************************
     /* Constants
@@ -52,6 +134,14 @@ public class ProtobufGenerator extends GeneratorBase
 
     protected ProtobufSchema _schema;
 
+    /**
+     * Bit flag composed of bits that indicate which
+     * {@link ProtobufGenerator.Feature}s are enabled.
+     *
+     * @since 2.7.10
+     */
+    protected int _formatFeatures;
+
     /*
     /**********************************************************
     /* Output state
@@ -105,6 +195,61 @@ public class ProtobufGenerator extends GeneratorBase
      */
     protected ByteAccumulator _buffered;
 
+    /**
+     * Pool for secondary buffers and accumulators used for buffering;
+     * constructed when first needed.
+     *
+     * @since 2.7.10
+     */
+    protected AccumulatorPool _accumulatorPool;
+
+    /**
+     * Number of currently open length-prefixed entries whose contents are
+     * still fully contained in the current buffer, with room for length
+     * reserved in front of contents (as opposed to being accumulated using
+     * {@link #_buffered}). These are always the innermost open entries.
+     *
+     * @since 2.7.10
+     */
+    protected int _inlineDepth;
+
+    /**
+     * Offsets of open inline entries (of their tags, if any) in the current buffer
+     *
+     * @since 2.7.10
+     */
+    protected int[] _inlineStarts = new int[8];
+
+    /**
+     * Offsets of bytes reserved for length of open inline entries
+     *
+     * @since 2.7.10
+     */
+    protected int[] _inlineLengthOffsets = new int[8];
+
+    /**
+     * Type tags of open inline entries, or -1 for entries without tag
+     *
+     * @since 2.7.10
+     */
+    protected int[] _inlineTags = new int[8];
+
+    /**
+     * Sizes of length-prefixed entries, if using precomputed sizes instead
+     * of buffering: if so, {@link #_buffered} is never used.
+     *
+     * @since 2.7.10
+     */
+    protected PrecomputedSizes _sizes;
+
+    /**
+     * Number of bytes written to {@link #_output} so far; only needed for
+     * keeping track of positions when using precomputed sizes.
+     *
+     * @since 2.7.10
+     */
+    protected long _bytesWritten;
+
     /**
      * Current context, in form we can use it.
      */
@@ -132,12 +277,27 @@ public class ProtobufGenerator extends GeneratorBase
     /**********************************************************
      */
 
+    /**
+     * @deprecated Since 2.7.10, use variant that takes format features
+     */
+    @Deprecated
     public ProtobufGenerator(IOContext ctxt, int jsonFeatures,
             ObjectCodec codec, OutputStream output)
         throws IOException
+    {
+        this(ctxt, jsonFeatures, 0, codec, output);
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    public ProtobufGenerator(IOContext ctxt, int jsonFeatures, int formatFeatures,
+            ObjectCodec codec, OutputStream output)
+        throws IOException
     {
         super(jsonFeatures, codec, BOGUS_WRITE_CONTEXT);
         _ioContext = ctxt;
+        _formatFeatures = formatFeatures;
         _output = output;
         _pbContext = _rootContext = ProtobufWriteContext.createNullContext();
         _currBuffer = _origCurrBuffer = ctxt.allocWriteEncodingBuffer();
@@ -200,6 +360,84 @@ public class ProtobufGenerator extends GeneratorBase
         return _output;
     }
 
+    @Override
+    public int getFormatFeatures() {
+        return _formatFeatures;
+    }
+
+    @Override
+    public JsonGenerator overrideFormatFeatures(int values, int mask) {
+        _setFormatFeatures((_formatFeatures & ~mask) | (values & mask));
+        return this;
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    public ProtobufGenerator enable(Feature f) {
+        _setFormatFeatures(_formatFeatures | f.getMask());
+        return this;
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    public ProtobufGenerator disable(Feature f) {
+        _setFormatFeatures(_formatFeatures & ~f.getMask());
+        return this;
+    }
+
+    private void _setFormatFeatures(int newFeatures)
+    {
+        // Type of generator is determined by this feature, so it can not change
+        if (((_formatFeatures ^ newFeatures) & Feature.REVERSE_ENCODING.getMask()) != 0) {
+            throw new IllegalArgumentException("Can not change Feature "+Feature.REVERSE_ENCODING
+                    +" for an existing generator (of type "+getClass().getName()
+                    +"): needs to be configured on ProtobufFactory");
+        }
+        _formatFeatures = newFeatures;
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    public final boolean isEnabled(Feature f) {
+        return (_formatFeatures & f.getMask()) != 0;
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    public ProtobufGenerator configure(Feature f, boolean state) {
+        if (state) {
+            enable(f);
+        } else {
+            disable(f);
+        }
+        return this;
+    }
+
+    /**
+     * Method for specifying sizes of length-prefixed entries to use: if sizes are
+     * being recorded (see {@link PrecomputedSizes#isRecording}), this generator
+     * only calculates them and output should be discarded; otherwise recorded
+     * sizes are used for writing length prefixes directly, without buffering.
+     * Must be called before writing any content.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufGenerator setPrecomputedSizes(PrecomputedSizes sizes) {
+        _sizes = sizes;
+        return this;
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    public PrecomputedSizes getPrecomputedSizes() {
+        return _sizes;
+    }
+
     /**
      * Calculating actual amount of buffering is somewhat complicated, and can not
      * necessarily give 100% accurate answer due to presence of VInt encoding for
@@ -282,7 +520,9 @@ public class ProtobufGenerator extends GeneratorBase
         // field means an array until START_OBJECT
         // NOTE: not ideal -- depends on if it really is sibling field of an array,
         // or an entry within
-        if (f != null && _pbContext.notArray()) {
+        if (sstr instanceof ProtobufFieldName) { // resolution cached by name itself
+            f = ((ProtobufFieldName) sstr).resolve(_currMessage);
+        } else if (f != null && _pbContext.notArray()) {
             f = f.nextIf(name);
             if (f == null) {
                 f = _currMessage.field(name);
@@ -312,16 +552,17 @@ public class ProtobufGenerator extends GeneratorBase
      */
 
     @Override
-    public final void flush() throws IOException
+    public void flush() throws IOException
     {
         // can only flush if we do not need accumulation for length prefixes
-        if (_buffered == null) {
+        if ((_buffered == null) && (_inlineDepth == 0)) {
             int start = _currStart;
             int len = _currPtr - start;
             if (len > 0) {
                 _currStart = 0;
                 _currPtr = 0;
                 _output.write(_currBuffer, start, len);
+                _bytesWritten += len;
             }
         }
         _output.flush();
@@ -426,13 +667,31 @@ public class ProtobufGenerator extends GeneratorBase
                 _reportError("Can not write START_OBJECT without field (message type "+_currMessage.getName()+")");
             }
             _currMessage = _schema.getRootType();
-            // note: no buffering on root
+            // note: no buffering on root, unless we need length prefix
+            if (Feature.LENGTH_DELIMITED.enabledIn(_formatFeatures)) {
+                _complete = false;
+                _startBuffering();
+            }
         } else {
             // but also, field value must be Message if so
             if (!_currField.isObject) {
                 _reportError("Can not write START_OBJECT: type of field '"+_currField.name+"' not Message but: "+_currField.type);
             }
             _currMessage = _currField.getMessageType();
+            if (_writeTag && Feature.WRITE_NESTED_AS_GROUPS.enabledIn(_formatFeatures)) {
+                // no buffering needed for groups: just start tag
+                final int id = _currField.id;
+                _writeGroupTag((id << 3) | WireType.GROUP_START);
+                _pbContext = _pbContext.createChildGroupContext(_currMessage,
+                        (id << 3) | WireType.GROUP_END);
+                if (_inObject) {
+                    _currField = null;
+                } else {
+                    _inObject = true;
+                }
+                _writeTag = true;
+                return;
+            }
             // and we need to start buffering, or add more nesting
             // but we may or may not want to write tag for object
             if (_writeTag) {
@@ -460,6 +719,7 @@ public class ProtobufGenerator extends GeneratorBase
         if (!_inObject) {
             _reportError("Current context not an object but "+_pbContext.getTypeDesc());
         }
+        final int endGroupTag = _pbContext.getEndGroupTag();
         _pbContext = _pbContext.getParent();
         if (_pbContext.inRoot()) {
             if (!_complete) {
@@ -473,11 +733,255 @@ public class ProtobufGenerator extends GeneratorBase
         boolean inObj = _pbContext.inObject();
         _inObject = inObj;
         _writeTag = inObj || !_pbContext.inArray() || !_currField.packed;
-        if (_buffered != null) { // null for root
+        if (endGroupTag != 0) {
+            _writeGroupTag(endGroupTag);
+        } else if (_hasOpenEntries()) { // not for root
             _finishBuffering();
         }
     }
 
+    /*
+    /**********************************************************
+    /* Public API: bulk array output
+    /**********************************************************
+     */
+
+    /**
+     * Overridden to write packed arrays in a single pass: for fixed-length
+     * element types length prefix is known up front, and for VInts it is
+     * calculated before writing, so no buffering is needed.
+     * Unpacked arrays are written one element at a time as usual.
+     *
+     * @since 2.7.10
+     */
+    @Override
+    public void writeArray(int[] array, int offset, int length) throws IOException
+    {
+        _verifyArrayOffsets(array.length, offset, length);
+        if (!_canWritePacked()) {
+            super.writeArray(array, offset, length);
+            return;
+        }
+        final int end = offset + length;
+        switch (_currField.wireType) {
+        case WireType.VINT:
+            {
+                final boolean zigzag = _currField.usesZigZag;
+                long total = 0L;
+                for (int i = offset; i < end; ++i) {
+                    int v = array[i];
+                    total += _vintLength(zigzag ? ProtobufUtil.zigzagEncode(v) : v);
+                }
+                _writePackedPrefix(total);
+                int i = offset;
+                while (i < end) {
+                    _ensureRoom(5);
+                    final byte[] buf = _currBuffer;
+                    int ptr = _currPtr;
+                    final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 5);
+                    for (; i < chunkEnd; ++i) {
+                        int v = array[i];
+                        ptr = _appendVInt(zigzag ? ProtobufUtil.zigzagEncode(v) : v, buf, ptr);
+                    }
+                    _currPtr = ptr;
+                }
+            }
+            return;
+        case WireType.FIXED_32BIT:
+            _writePackedPrefix(4L * length);
+            for (int i = offset; i < end; ) {
+                _ensureRoom(4);
+                final byte[] buf = _currBuffer;
+                int ptr = _currPtr;
+                final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 4);
+                for (; i < chunkEnd; ++i) {
+                    ptr = _appendInt32(array[i], buf, ptr);
+                }
+                _currPtr = ptr;
+            }
+            return;
+        case WireType.FIXED_64BIT:
+            _writePackedPrefix(8L * length);
+            for (int i = offset; i < end; ) {
+                _ensureRoom(8);
+                final byte[] buf = _currBuffer;
+                int ptr = _currPtr;
+                final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 8);
+                for (; i < chunkEnd; ++i) {
+                    ptr = _appendInt64(array[i], buf, ptr);
+                }
+                _currPtr = ptr;
+            }
+            return;
+        default:
+            super.writeArray(array, offset, length);
+        }
+    }
+
+    /**
+     * Overridden to write packed arrays in a single pass, similar to
+     * {@link #writeArray(int[], int, int)}.
+     *
+     * @since 2.7.10
+     */
+    @Override
+    public void writeArray(long[] array, int offset, int length) throws IOException
+    {
+        _verifyArrayOffsets(array.length, offset, length);
+        if (!_canWritePacked()) {
+            super.writeArray(array, offset, length);
+            return;
+        }
+        final int end = offset + length;
+        switch (_currField.wireType) {
+        case WireType.VINT:
+            {
+                final boolean zigzag = _currField.usesZigZag;
+                long total = 0L;
+                for (int i = offset; i < end; ++i) {
+                    long v = array[i];
+                    total += _vlongLength(zigzag ? ProtobufUtil.zigzagEncode(v) : v);
+                }
+                _writePackedPrefix(total);
+                int i = offset;
+                while (i < end) {
+                    _ensureRoom(10);
+                    final byte[] buf = _currBuffer;
+                    int ptr = _currPtr;
+                    final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 10);
+                    for (; i < chunkEnd; ++i) {
+                        long v = array[i];
+                        ptr = _appendVLong(zigzag ? ProtobufUtil.zigzagEncode(v) : v, buf, ptr);
+                    }
+                    _currPtr = ptr;
+                }
+            }
+            return;
+        case WireType.FIXED_32BIT:
+            _writePackedPrefix(4L * length);
+            for (int i = offset; i < end; ) {
+                _ensureRoom(4);
+                final byte[] buf = _currBuffer;
+                int ptr = _currPtr;
+                final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 4);
+                for (; i < chunkEnd; ++i) {
+                    ptr = _appendInt32((int) array[i], buf, ptr);
+                }
+                _currPtr = ptr;
+            }
+            return;
+        case WireType.FIXED_64BIT:
+            _writePackedPrefix(8L * length);
+            for (int i = offset; i < end; ) {
+                _ensureRoom(8);
+                final byte[] buf = _currBuffer;
+                int ptr = _currPtr;
+                final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 8);
+                for (; i < chunkEnd; ++i) {
+                    ptr = _appendInt64(array[i], buf, ptr);
+                }
+                _currPtr = ptr;
+            }
+            return;
+        default:
+            super.writeArray(array, offset, length);
+        }
+    }
+
+    /**
+     * Overridden to write packed arrays in a single pass, similar to
+     * {@link #writeArray(int[], int, int)}.
+     *
+     * @since 2.7.10
+     */
+    @Override
+    public void writeArray(double[] array, int offset, int length) throws IOException
+    {
+        _verifyArrayOffsets(array.length, offset, length);
+        if (!_canWritePacked()) {
+            super.writeArray(array, offset, length);
+            return;
+        }
+        final int end = offset + length;
+        switch (_currField.wireType) {
+        case WireType.FIXED_32BIT:
+            _writePackedPrefix(4L * length);
+            for (int i = offset; i < end; ) {
+                _ensureRoom(4);
+                final byte[] buf = _currBuffer;
+                int ptr = _currPtr;
+                final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 4);
+                for (; i < chunkEnd; ++i) {
+                    ptr = _appendInt32(Float.floatToRawIntBits((float) array[i]), buf, ptr);
+                }
+                _currPtr = ptr;
+            }
+            return;
+        case WireType.FIXED_64BIT:
+            _writePackedPrefix(8L * length);
+            for (int i = offset; i < end; ) {
+                _ensureRoom(8);
+                final byte[] buf = _currBuffer;
+                int ptr = _currPtr;
+                final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 8);
+                for (; i < chunkEnd; ++i) {
+                    ptr = _appendInt64(Double.doubleToLongBits(array[i]), buf, ptr);
+                }
+                _currPtr = ptr;
+            }
+            return;
+        default:
+            super.writeArray(array, offset, length);
+        }
+    }
+
+    /**
+     * Method for writing an array of <code>float</code> values; packed arrays
+     * are written in a single pass, similar to {@link #writeArray(int[], int, int)}.
+     *
+     * @since 2.7.10
+     */
+    public void writeArray(float[] array, int offset, int length) throws IOException
+    {
+        _verifyArrayOffsets(array.length, offset, length);
+        final int end = offset + length;
+        if (_canWritePacked()) {
+            if (_currField.wireType == WireType.FIXED_32BIT) {
+                _writePackedPrefix(4L * length);
+                for (int i = offset; i < end; ) {
+                    _ensureRoom(4);
+                    final byte[] buf = _currBuffer;
+                    int ptr = _currPtr;
+                    final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 4);
+                    for (; i < chunkEnd; ++i) {
+                        ptr = _appendInt32(Float.floatToRawIntBits(array[i]), buf, ptr);
+                    }
+                    _currPtr = ptr;
+                }
+                return;
+            }
+            if (_currField.wireType == WireType.FIXED_64BIT) {
+                _writePackedPrefix(8L * length);
+                for (int i = offset; i < end; ) {
+                    _ensureRoom(8);
+                    final byte[] buf = _currBuffer;
+                    int ptr = _currPtr;
+                    final int chunkEnd = Math.min(end, i + (buf.length - ptr) / 8);
+                    for (; i < chunkEnd; ++i) {
+                        ptr = _appendInt64(Double.doubleToLongBits(array[i]), buf, ptr);
+                    }
+                    _currPtr = ptr;
+                }
+                return;
+            }
+        }
+        writeStartArray();
+        for (int i = offset; i < end; ++i) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
     /*
     /**********************************************************
     /* Output method implementations, textual
@@ -1080,6 +1584,10 @@ public class ProtobufGenerator extends GeneratorBase
             }
             offset += max;
 
+            if (_inlineDepth > 0) {
+                _currPtr = ptr;
+                _convertInline();
+            }
             ByteAccumulator acc = _buffered;
             final int start = _currStart;
             _currStart = 0;
@@ -1090,6 +1598,7 @@ public class ProtobufGenerator extends GeneratorBase
             if (acc == null) {
                 if (toFlush > 0) {
                     _output.write(_currBuffer, start, toFlush);
+                    _bytesWritten += toFlush;
                 }
                 ptr = 0;
                 continue;
@@ -1099,7 +1608,7 @@ public class ProtobufGenerator extends GeneratorBase
             if (toFlush > 0) {
                 acc.append(_currBuffer, start, toFlush);
             }
-            _currBuffer = ProtobufUtil.allocSecondary(_currBuffer);
+            _currBuffer = _accumulatorPool.allocSecondary();
         }
     }
 
@@ -1109,6 +1618,16 @@ public class ProtobufGenerator extends GeneratorBase
     /**********************************************************
      */
     
+    /**
+     * Helper method for writing start and end tags of groups; since these
+     * have no value, main tag handling is not used.
+     */
+    private final void _writeGroupTag(int tag) throws IOException
+    {
+        _ensureRoom(5);
+        _currPtr = ProtobufUtil.appendLengthLength(tag, _currBuffer, _currPtr);
+    }
+
     private final void _writeVInt(int v) throws IOException
     {
         // Max tag length 5 bytes, then at most 5 bytes
@@ -1213,10 +1732,10 @@ public class ProtobufGenerator extends GeneratorBase
             buf[ptr++] = (byte) ((v & 0x7F) + 0x80);
             // but then can switch to int for remaining max 28 bits
             i = (int) (v >> 7);
-            do {
+            while (i > 0x7F) {
                 buf[ptr++] = (byte) ((i & 0x7F) + 0x80);
                 i >>= 7;
-            } while (i > 0x7F);
+            }
             buf[ptr++] = (byte) i;
         }
         _currPtr = ptr;
@@ -1298,6 +1817,114 @@ public class ProtobufGenerator extends GeneratorBase
         _currPtr =  ptr;
     }
 
+    /*
+    /**********************************************************
+    /* Internal bulk array writes
+    /**********************************************************
+     */
+
+    /**
+     * Helper method for checking whether current field is a packed array that
+     * can be written in a single pass
+     */
+    private final boolean _canWritePacked()
+    {
+        final ProtobufField f = _currField;
+        return _inObject && (f != null) && (f != UNKNOWN_FIELD)
+                && f.packed && f.isArray();
+    }
+
+    private final void _verifyArrayOffsets(int arrayLength, int offset, int length)
+    {
+        if ((offset < 0) || (length < 0) || ((offset + length) > arrayLength)) {
+            throw new IllegalArgumentException(String.format(
+                    "invalid argument(s) (offset=%d, length=%d) for input array of %d element",
+                    offset, length, arrayLength));
+        }
+    }
+
+    /**
+     * Helper method for writing tag and length prefix of a packed array
+     * of given (encoded) length.
+     */
+    private final void _writePackedPrefix(long length) throws IOException
+    {
+        if (length > Integer.MAX_VALUE) {
+            _reportError("Packed array for field '"+_currField.name+"' too long ("+length+" bytes)");
+        }
+        _ensureRoom(10);
+        int ptr = _writeTag(_currPtr);
+        _currPtr = ProtobufUtil.appendLengthLength((int) length, _currBuffer, ptr);
+    }
+
+    // NOTE: matches encoding used by `_writeVInt()`, negative values as 5 bytes
+    private final static int _vintLength(int v) {
+        if (v < 0) {
+            return 5;
+        }
+        return ProtobufUtil.lengthLength(v);
+    }
+
+    private final static int _vlongLength(long v) {
+        if (v < 0L) {
+            return 10;
+        }
+        int len = 1;
+        while (v > 0x7F) {
+            v >>>= 7;
+            ++len;
+        }
+        return len;
+    }
+
+    private final static int _appendVInt(int v, byte[] buf, int ptr)
+    {
+        if (v < 0) {
+            buf[ptr++] = (byte) ((v & 0x7F) + 0x80);
+            v >>>= 7;
+            buf[ptr++] = (byte) ((v & 0x7F) + 0x80);
+            v >>= 7;
+            buf[ptr++] = (byte) ((v & 0x7F) + 0x80);
+            v >>= 7;
+            buf[ptr++] = (byte) ((v & 0x7F) + 0x80);
+            v >>= 7;
+            buf[ptr++] = (byte) v;
+            return ptr;
+        }
+        while (v > 0x7F) {
+            buf[ptr++] = (byte) ((v & 0x7F) + 0x80);
+            v >>= 7;
+        }
+        buf[ptr++] = (byte) v;
+        return ptr;
+    }
+
+    private final static int _appendVLong(long v, byte[] buf, int ptr)
+    {
+        // negative values take all 10 bytes; unsigned shift works for all
+        while ((v & ~0x7FL) != 0L) {
+            buf[ptr++] = (byte) ((v & 0x7F) + 0x80);
+            v >>>= 7;
+        }
+        buf[ptr++] = (byte) v;
+        return ptr;
+    }
+
+    private final static int _appendInt32(int v, byte[] buf, int ptr)
+    {
+        buf[ptr++] = (byte) v;
+        buf[ptr++] = (byte) (v >> 8);
+        buf[ptr++] = (byte) (v >> 16);
+        buf[ptr++] = (byte) (v >> 24);
+        return ptr;
+    }
+
+    private final static int _appendInt64(long v64, byte[] buf, int ptr)
+    {
+        ptr = _appendInt32((int) v64, buf, ptr);
+        return _appendInt32((int) (v64 >> 32), buf, ptr);
+    }
+
     /*
     /**********************************************************
     /* Helper methods, buffering
@@ -1308,10 +1935,16 @@ public class ProtobufGenerator extends GeneratorBase
     {
         if (_writeTag) {
             final byte[] buf = _currBuffer;
-            int tag = _currField.typedTag;
-            if (tag <= 0x7F) {
-                buf[ptr++] = (byte) tag;
+            int len = _currField.typedTagLength;
+            if (len <= 4) { // precomputed bytes
+                int bytes = _currField.typedTagBytes;
+                buf[ptr++] = (byte) bytes;
+                while (--len > 0) {
+                    bytes >>= 8;
+                    buf[ptr++] = (byte) bytes;
+                }
             } else {
+                int tag = _currField.typedTag;
                 // Note: caller must have ensured space for at least 5 bytes
                 do {
                     buf[ptr++] = (byte) ((tag & 0x7F) + 0x80);
@@ -1327,54 +1960,56 @@ public class ProtobufGenerator extends GeneratorBase
      * Method called when buffering an entry that should be prefixed
      * with a type tag.
      */
-    private final void _startBuffering(int typedTag) throws IOException
+    protected void _startBuffering(int typedTag) throws IOException
     {
-        // need to ensure room for tag id, length (10 bytes); might as well ask for bit more
-        _ensureRoom(20);
-        // and leave the gap of 10 bytes
-        int ptr = _currPtr;
-
-        // root level content to flush first?
-        if (_buffered == null) {
-            int start = _currStart;
-            int len = ptr - start;
-            if (len > 0) {
-                ptr = 0;
-                _output.write(_currBuffer, start, len);
-            }
+        if (_sizes != null) {
+            _startSized(typedTag);
+            return;
         }
-        _currStart = _currPtr = ptr + 10;
-        _buffered = new ByteAccumulator(_buffered, typedTag, _currBuffer, ptr);
+        _startInline(typedTag);
     }
 
     /**
      * Method called when buffering an entry that should not be prefixed
      * with a type tag.
      */
-    private final void _startBuffering() throws IOException
+    protected void _startBuffering() throws IOException
     {
-        // since no tag written, could skimp on space needed
-        _ensureRoom(16);
-        int ptr = _currPtr;
+        if (_sizes != null) {
+            _startSized(-1);
+            return;
+        }
+        _startInline(-1);
+    }
 
-        /* 02-Jun-2015, tatu: It would seem like we should check for flushing here,
-         *  similar to method above. But somehow that does not seem to be needed...
-         *  Let's add it just to be safe, still.
-         */
-        if (_buffered == null) {
-            int len = ptr - _currStart;
-            if (len > 0) {
-                ptr = 0;
-                _output.write(_currBuffer, _currStart, len);
-            }
+    /**
+     * @return True if there is at least one open length-prefixed entry
+     *
+     * @since 2.7.10
+     */
+    protected boolean _hasOpenEntries() {
+        return (_buffered != null) || (_inlineDepth > 0)
+                || ((_sizes != null) && _sizes.hasOpen());
+    }
+
+    private final AccumulatorPool _accumulatorPool() {
+        if (_accumulatorPool == null) {
+            _accumulatorPool = new AccumulatorPool();
         }
-        
-        _currStart = _currPtr = ptr + 5;
-        _buffered = new ByteAccumulator(_buffered, _currBuffer, ptr);
+        return _accumulatorPool;
     }
 
-    private final void _finishBuffering() throws IOException
+    protected void _finishBuffering() throws IOException
     {
+        if (_sizes != null) {
+            _finishSized();
+            return;
+        }
+        // inline entries are always innermost ones
+        if (_inlineDepth > 0) {
+            _finishInline();
+            return;
+        }
         final int start = _currStart;
         final int currLen = _currPtr - start;
 
@@ -1384,18 +2019,164 @@ public class ProtobufGenerator extends GeneratorBase
         if (acc == null) {
             _currStart = 0;
             _currPtr = 0;
+            // everything written out, so secondary buffers may be reused
+            _accumulatorPool.releaseBuffers(_currBuffer);
         } else {
             _currStart = _currPtr;
         }
     }
 
-    protected final void _ensureRoom(int needed) throws IOException
+    /**
+     * Method for starting a length-prefixed entry within the current buffer:
+     * tag (if any) is written, and a single byte reserved for length, to be
+     * filled in when entry ends (see {@link #_finishInline}).
+     */
+    private final void _startInline(int typedTag) throws IOException
+    {
+        // room for tag, length byte; might as well ask for bit more
+        _ensureRoom(16);
+        int ptr = _currPtr;
+        int depth = _inlineDepth;
+        if (depth == _inlineStarts.length) {
+            _inlineStarts = Arrays.copyOf(_inlineStarts, depth << 1);
+            _inlineLengthOffsets = Arrays.copyOf(_inlineLengthOffsets, depth << 1);
+            _inlineTags = Arrays.copyOf(_inlineTags, depth << 1);
+        }
+        _inlineStarts[depth] = ptr;
+        _inlineTags[depth] = typedTag;
+        if (typedTag != -1) {
+            ptr = ProtobufUtil.appendLengthLength(typedTag, _currBuffer, ptr);
+        }
+        _inlineLengthOffsets[depth] = ptr;
+        _currPtr = ptr + 1;
+        _inlineDepth = depth + 1;
+    }
+
+    /**
+     * Method for finishing the innermost inline entry: if content is short
+     * (below 128 bytes), reserved byte is enough for length; otherwise content
+     * needs to be moved to make room for a longer length prefix.
+     */
+    private final void _finishInline() throws IOException
+    {
+        final int lenOffset = _inlineLengthOffsets[_inlineDepth-1];
+        final int start = lenOffset + 1;
+        final int len = _currPtr - start;
+        final byte[] buf = _currBuffer;
+
+        if (len <= 0x7F) {
+            buf[lenOffset] = (byte) len;
+            --_inlineDepth;
+            return;
+        }
+        final int extra = ProtobufUtil.lengthLength(len) - 1;
+        if ((_currPtr + extra) > buf.length) {
+            // no room to move content within buffer, need to accumulate
+            _convertInline();
+            _finishBuffering();
+            return;
+        }
+        System.arraycopy(buf, start, buf, start + extra, len);
+        ProtobufUtil.appendLengthLength(len, buf, lenOffset);
+        _currPtr += extra;
+        --_inlineDepth;
+    }
+
+    /**
+     * Method called when content of open inline entries can not be kept within
+     * the current buffer (since it needs to be flushed, or replaced): if so, all
+     * of them are converted to {@link ByteAccumulator}s, in which content is
+     * accumulated across buffers.
+     */
+    private final void _convertInline() throws IOException
+    {
+        final byte[] buf = _currBuffer;
+        final int depth = _inlineDepth;
+        final int first = _inlineStarts[0];
+
+        // first, content of enclosing entry (or root) preceding inline entries
+        int len = first - _currStart;
+        if (len > 0) {
+            if (_buffered == null) {
+                _output.write(buf, _currStart, len);
+                _bytesWritten += len;
+            } else {
+                _buffered.append(buf, _currStart, len);
+            }
+        }
+        final AccumulatorPool pool = _accumulatorPool();
+        for (int i = 0; i < depth; ++i) {
+            // tag and length written to separate prefix buffer, since
+            // current buffer may get reused before accumulator is finished
+            _buffered = pool.accumulator(_buffered, _inlineTags[i], new byte[10], 0);
+            int start = _inlineLengthOffsets[i] + 1;
+            int end = (i+1 < depth) ? _inlineStarts[i+1] : _currPtr;
+            if (end > start) {
+                _buffered.append(buf, start, end - start);
+            }
+        }
+        _currStart = _currPtr;
+        _inlineDepth = 0;
+    }
+
+    /**
+     * Method called instead of {@link #_startBuffering(int)} when using
+     * precomputed sizes: during first pass only tag is written, and during
+     * second pass both tag and length prefix.
+     */
+    private final void _startSized(int typedTag) throws IOException
+    {
+        _ensureRoom(10);
+        int ptr = _currPtr;
+        if (typedTag != -1) {
+            ptr = ProtobufUtil.appendLengthLength(typedTag, _currBuffer, ptr);
+        }
+        final PrecomputedSizes sizes = _sizes;
+        if (sizes.isRecording()) {
+            _currPtr = ptr;
+            sizes.startRecording(_outputPosition());
+            return;
+        }
+        int len = sizes.nextSize();
+        if (len < 0) {
+            _reportError("No precomputed size for entry #"+sizes.size()
+                    +": content differs from that used for calculating sizes");
+        }
+        _currPtr = ProtobufUtil.appendLengthLength(len, _currBuffer, ptr);
+        sizes.startWriting(_outputPosition(), len);
+    }
+
+    private final void _finishSized() throws IOException
+    {
+        final PrecomputedSizes sizes = _sizes;
+        if (sizes.isRecording()) {
+            sizes.finishRecording(_outputPosition());
+            return;
+        }
+        int index = sizes.currentIndex();
+        long expEnd = sizes.finishWriting();
+        long end = _outputPosition();
+        if (end != expEnd) {
+            _reportError("Serialized size of entry #"+index+" ("+(end - expEnd + sizes.sizeAt(index))
+                    +") differs from precomputed size ("+sizes.sizeAt(index)
+                    +"): content differs from that used for calculating sizes");
+        }
+    }
+
+    private final long _outputPosition() {
+        return _bytesWritten + (_currPtr - _currStart);
+    }
+
+    protected void _ensureRoom(int needed) throws IOException
     {
         // common case: we got it already
         if ((_currPtr + needed) <= _currBuffer.length) {
             return;
         }
         // if not, either simple (flush), or 
+        if (_inlineDepth > 0) {
+            _convertInline();
+        }
         final int start = _currStart;
         final int currLen = _currPtr - start;
         
@@ -1407,6 +2188,7 @@ public class ProtobufGenerator extends GeneratorBase
             // without accumulation, we know buffer is free for reuse
             if (currLen > 0) {
                 _output.write(_currBuffer, start, currLen);
+                _bytesWritten += currLen;
             }
             return;
         }
@@ -1415,12 +2197,21 @@ public class ProtobufGenerator extends GeneratorBase
         if (currLen > 0) {
             acc.append(_currBuffer, start, currLen);
         }
-        _currBuffer = ProtobufUtil.allocSecondary(_currBuffer);
+        _currBuffer = _accumulatorPool.allocSecondary();
     }
 
     protected void _complete() throws IOException
     {
         _complete = true;
+        // root-level message written length-delimited may still be open
+        if (_sizes != null) {
+            while (_sizes.hasOpen()) {
+                _finishSized();
+            }
+        }
+        while (_inlineDepth > 0) {
+            _finishBuffering();
+        }
         final int start = _currStart;
         final int currLen = _currPtr - start;
         _currPtr = start;
@@ -1429,6 +2220,7 @@ public class ProtobufGenerator extends GeneratorBase
         if (acc == null) {
             if (currLen > 0) {
                 _output.write(_currBuffer, start, currLen);
+                _bytesWritten += currLen;
                 _currStart = 0;
                 _currPtr = 0;
             }
@@ -1438,6 +2230,9 @@ public class ProtobufGenerator extends GeneratorBase
                 acc = acc.finish(_output);
             }
             _buffered = null;
+            _currStart = 0;
+            _currPtr = 0;
+            _accumulatorPool.releaseBuffers(_currBuffer);
         }
     }
 
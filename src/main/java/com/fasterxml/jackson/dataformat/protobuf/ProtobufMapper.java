@@ -1,13 +1,38 @@
 package com.fasterxml.jackson.dataformat.protobuf;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
 
 public class ProtobufMapper extends ObjectMapper
 {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Minimum number of messages decoded by a single task, when reading
+     * length-delimited messages in parallel
+     */
+    protected final static int MIN_RECORDS_PER_TASK = 64;
+
+    /**
+     * Minimum number of bytes decoded by a single task, when reading
+     * files of length-delimited messages in parallel
+     */
+    protected final static int MIN_BYTES_PER_TASK = 64 * 1024;
+
     protected ProtobufSchemaLoader _schemaLoader = ProtobufSchemaLoader.std;
 
     /*
@@ -22,6 +47,7 @@ public class ProtobufMapper extends ObjectMapper
 
     public ProtobufMapper(ProtobufFactory f) {
         super(f);
+        registerModule(new ProtobufModule());
     }
 
     protected ProtobufMapper(ProtobufMapper src) {
@@ -58,4 +84,230 @@ public class ProtobufMapper extends ObjectMapper
     public void setSchemaLoader(ProtobufSchemaLoader l) {
         _schemaLoader = l;
     }
+
+    /*
+    /**********************************************************
+    /* Writing with precomputed sizes
+    /**********************************************************
+     */
+
+    /**
+     * Method for serializing given value in two passes: first calculating
+     * serialized sizes of all nested messages and packed arrays, and then writing
+     * content with length prefixes directly, without having to buffer contents
+     * of nested messages (see {@link PrecomputedSizes}). This is usually more
+     * efficient for deeply nested values, as well as when writing big messages.
+     *<p>
+     * Note that value must serialize identically during both passes: it can not be
+     * modified concurrently.
+     *
+     * @since 2.7.10
+     */
+    public void writeSizedValue(OutputStream out, ProtobufSchema schema, Object value)
+        throws IOException
+    {
+        PrecomputedSizes sizes = new PrecomputedSizes();
+        _writeSized(new NopOutputStream(), schema, value, sizes);
+        sizes.rewind();
+        _writeSized(out, schema, value, sizes);
+    }
+
+    /**
+     * Method for serializing given value as a byte array in two passes;
+     * see {@link #writeSizedValue(OutputStream, ProtobufSchema, Object)}.
+     *
+     * @since 2.7.10
+     */
+    public byte[] writeSizedValueAsBytes(ProtobufSchema schema, Object value)
+        throws IOException
+    {
+        PrecomputedSizes sizes = new PrecomputedSizes();
+        NopOutputStream counter = new NopOutputStream();
+        _writeSized(counter, schema, value, sizes);
+        sizes.rewind();
+        // since we know the exact size, no need to grow buffer
+        long size = counter.count + sizes.prefixLength();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(size, Integer.MAX_VALUE));
+        _writeSized(bytes, schema, value, sizes);
+        return bytes.toByteArray();
+    }
+
+    protected void _writeSized(OutputStream out, ProtobufSchema schema, Object value,
+            PrecomputedSizes sizes)
+        throws IOException
+    {
+        ProtobufGenerator g = getFactory().createGenerator(out);
+        g.setSchema(schema);
+        g.setPrecomputedSizes(sizes);
+        boolean closed = false;
+        try {
+            writeValue(g, value);
+            closed = true;
+            g.close();
+        } finally {
+            if (!closed) {
+                g.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                try {
+                    g.close();
+                } catch (IOException e) { }
+            }
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Parallel reading of length-delimited messages
+    /**********************************************************
+     */
+
+    /**
+     * Method for decoding a sequence of length-delimited messages (see
+     * {@link ProtobufParser.Feature#LENGTH_DELIMITED}) in parallel, using given
+     * {@link ForkJoinPool}. Message boundaries are first located by only reading
+     * length prefixes, after which ranges of messages are decoded concurrently, each
+     * with a parser of its own.
+     *
+     * @return Decoded values, in the same order as messages in the content
+     *
+     * @since 2.7.10
+     */
+    public <T> List<T> readDelimitedValues(Class<T> valueType, ProtobufSchema schema,
+            byte[] content, int offset, int len, ForkJoinPool pool)
+        throws IOException
+    {
+        return readDelimitedValues(valueType, schema,
+                ByteBuffer.wrap(content, offset, len), pool);
+    }
+
+    /**
+     * Method for decoding a sequence of length-delimited messages contained
+     * between position and limit of given buffer, in parallel using given
+     * {@link ForkJoinPool}. Buffer position is not modified.
+     *
+     * @return Decoded values, in the same order as messages in the content
+     *
+     * @since 2.7.10
+     */
+    public <T> List<T> readDelimitedValues(Class<T> valueType, ProtobufSchema schema,
+            ByteBuffer content, ForkJoinPool pool)
+        throws IOException
+    {
+        final long[] offsets = DelimitedReadTask.findOffsets(content);
+        final int count = offsets.length - 1;
+        // Aim at few tasks per thread, to allow balancing; but avoid tiny tasks
+        int perTask = Math.max(MIN_RECORDS_PER_TASK, count / (4 * pool.getParallelism()));
+        ObjectReader r = readerFor(valueType).with(schema);
+        try {
+            return pool.invoke(DelimitedReadTask.<T>forBuffer(r, schema, content, offsets, perTask));
+        } catch (RuntimeException e) {
+            throw DelimitedReadTask.unwrap(e);
+        }
+    }
+
+    /**
+     * Method for decoding a file of length-delimited messages, in parallel using
+     * given {@link ForkJoinPool}. Message boundaries are first located by reading
+     * length prefixes (and skipping contents) of the file, after which ranges of
+     * messages are memory-mapped and decoded concurrently, one window per task:
+     * so file size is not limited by maximum size of a single mapped region.
+     *
+     * @return Decoded values, in the same order as messages in the file
+     *
+     * @since 2.7.10
+     */
+    public <T> List<T> readDelimitedValues(Class<T> valueType, ProtobufSchema schema,
+            File f, ForkJoinPool pool)
+        throws IOException
+    {
+        return _readDelimitedValues(valueType, schema, f, pool,
+                ProtobufParser.DEFAULT_MAX_MAPPED_WINDOW);
+    }
+
+    protected <T> List<T> _readDelimitedValues(Class<T> valueType, ProtobufSchema schema,
+            File f, ForkJoinPool pool, int maxWindow)
+        throws IOException
+    {
+        FileInputStream in = new FileInputStream(f);
+        try {
+            final long size = in.getChannel().size();
+            // As with buffers, aim at few tasks per thread; but avoid tiny tasks
+            long rangeSize = Math.max(MIN_BYTES_PER_TASK, size / (4 * pool.getParallelism()));
+            // note: reading moves position of channel, but mapping uses absolute offsets
+            long[] ranges = DelimitedReadTask.findRanges(new BufferedInputStream(in), size,
+                    Math.min(rangeSize, maxWindow), maxWindow);
+            ObjectReader r = readerFor(valueType).with(schema);
+            return pool.invoke(DelimitedReadTask.<T>forFile(r, schema, in.getChannel(), ranges));
+        } catch (RuntimeException e) {
+            throw DelimitedReadTask.unwrap(e);
+        } finally {
+            in.close();
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Container files
+    /**********************************************************
+     */
+
+    /**
+     * Method for constructing writer for producing a container file
+     * (see {@link ProtobufContainer}) with uncompressed blocks of default size.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufContainerWriter containerWriter(ProtobufSchema schema, OutputStream out)
+        throws IOException
+    {
+        return containerWriter(schema, out, ProtobufContainer.Codec.NONE,
+                ProtobufContainer.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Method for constructing writer for producing a container file
+     * (see {@link ProtobufContainer}) with specified block compression and size.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufContainerWriter containerWriter(ProtobufSchema schema, OutputStream out,
+            ProtobufContainer.Codec codec, int blockSize)
+        throws IOException
+    {
+        return new ProtobufContainerWriter(writer(), schema, out, codec, blockSize);
+    }
+
+    /**
+     * Method for constructing reader for given container file (see
+     * {@link ProtobufContainer}): schema is read from the file header.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufContainerReader containerReader(File f) throws IOException {
+        return new ProtobufContainerReader(this, f);
+    }
+
+    /*
+    /**********************************************************
+    /* Helper classes
+    /**********************************************************
+     */
+
+    /**
+     * Output stream used for the first pass of writing with precomputed sizes:
+     * content is discarded, only its length retained.
+     */
+    private final static class NopOutputStream extends OutputStream
+    {
+        long count;
+
+        @Override
+        public void write(int b) {
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int offset, int len) {
+            count += len;
+        }
+    }
 }
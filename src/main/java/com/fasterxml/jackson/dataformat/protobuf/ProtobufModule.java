@@ -0,0 +1,31 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Module that registers protobuf-specific (de)serializers, as well as
+ * {@link ProtobufSerializerModifier} for bean property names: registered by
+ * {@link ProtobufMapper} by default, but may also be registered with a plain
+ * {@link com.fasterxml.jackson.databind.ObjectMapper} that uses
+ * {@link ProtobufFactory}.
+ *
+ * @since 2.7.10
+ */
+public class ProtobufModule extends SimpleModule
+{
+    private static final long serialVersionUID = 1L;
+
+    public ProtobufModule()
+    {
+        super("ProtobufModule", PackageVersion.VERSION);
+        addDeserializer(int[].class, new PackedArrayDeserializers.IntDeser());
+        addDeserializer(long[].class, new PackedArrayDeserializers.LongDeser());
+        addDeserializer(double[].class, new PackedArrayDeserializers.DoubleDeser());
+        addDeserializer(float[].class, new PackedArrayDeserializers.FloatDeser());
+        addSerializer(int[].class, new PackedArraySerializers.IntSer());
+        addSerializer(long[].class, new PackedArraySerializers.LongSer());
+        addSerializer(double[].class, new PackedArraySerializers.DoubleSer());
+        addSerializer(float[].class, new PackedArraySerializers.FloatSer());
+        setSerializerModifier(new ProtobufSerializerModifier());
+    }
+}
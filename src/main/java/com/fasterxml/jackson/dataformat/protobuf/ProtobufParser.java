@@ -3,6 +3,9 @@ package com.fasterxml.jackson.dataformat.protobuf;
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 
 import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.core.base.ParserMinimalBase;
@@ -15,45 +18,110 @@ import com.fasterxml.jackson.dataformat.protobuf.schema.*;
 
 public class ProtobufParser extends ParserMinimalBase
 {
+    /**
+     * Enumeration that defines all togglable features for Protobuf parsers.
+     *
+     * @since 2.7.10
+     */
+    public enum Feature implements FormatFeature
+    {
+        /**
+         * Feature that determines whether root-level messages are expected to be
+         * length-delimited, that is, preceded by their length as a VInt (as written
+         * by <code>writeDelimitedTo()</code> of the standard protobuf library),
+         * instead of the whole input being a single message.
+         * If enabled, parser will return a sequence of root-level messages, so that
+         * {@link com.fasterxml.jackson.databind.ObjectReader#readValues} may be used
+         * for reading a stream of messages.
+         *<p>
+         * Feature is disabled by default.
+         */
+        LENGTH_DELIMITED(false),
+        ;
+
+        final boolean _defaultState;
+        final int _mask;
+
+        /**
+         * Method that calculates bit set (flags) of all features that
+         * are enabled by default.
+         */
+        public static int collectDefaults()
+        {
+            int flags = 0;
+            for (Feature f : values()) {
+                if (f.enabledByDefault()) {
+                    flags |= f.getMask();
+                }
+            }
+            return flags;
+        }
+
+        private Feature(boolean defaultState) {
+            _defaultState = defaultState;
+            _mask = (1 << ordinal());
+        }
+
+        @Override
+        public boolean enabledByDefault() { return _defaultState; }
+        @Override
+        public boolean enabledIn(int flags) { return (flags & _mask) != 0; }
+        @Override
+        public int getMask() { return _mask; }
+    }
+
     // State constants
 
     // State right after parser created; may start root Object
-    private final static int STATE_INITIAL = 0;
+    protected final static int STATE_INITIAL = 0;
 
     // State in which we expect another root-object entry key
-    private final static int STATE_ROOT_KEY = 1;
+    protected final static int STATE_ROOT_KEY = 1;
 
     // State after STATE_ROOT_KEY, when we are about to get a value
     // (scalar or structured)
-    private final static int STATE_ROOT_VALUE = 2;
+    protected final static int STATE_ROOT_VALUE = 2;
 
     // Similar to root-key state, but for nested messages
-    private final static int STATE_NESTED_KEY = 3;
+    protected final static int STATE_NESTED_KEY = 3;
     
-    private final static int STATE_NESTED_VALUE = 4;
+    protected final static int STATE_NESTED_VALUE = 4;
 
     // State in which an unpacked array is starting
-    private final static int STATE_ARRAY_START = 5;
+    protected final static int STATE_ARRAY_START = 5;
 
-    private final static int STATE_ARRAY_START_PACKED = 6;
+    protected final static int STATE_ARRAY_START_PACKED = 6;
 
     // first array of unpacked array
-    private final static int STATE_ARRAY_VALUE_FIRST = 7;
+    protected final static int STATE_ARRAY_VALUE_FIRST = 7;
 
     // other values of an unpacked array
-    private final static int STATE_ARRAY_VALUE_OTHER = 8;
+    protected final static int STATE_ARRAY_VALUE_OTHER = 8;
 
-    private final static int STATE_ARRAY_VALUE_PACKED = 9;
+    protected final static int STATE_ARRAY_VALUE_PACKED = 9;
 
-    private final static int STATE_ARRAY_END = 10;
+    protected final static int STATE_ARRAY_END = 10;
 
     // state in which the final END_OBJECT is to be returned
-    private final static int STATE_MESSAGE_END = 11;
+    protected final static int STATE_MESSAGE_END = 11;
     
     // State after either reaching end-of-input, or getting explicitly closed
-    private final static int STATE_CLOSED = 12;
+    protected final static int STATE_CLOSED = 12;
 
     private final static int[] UTF8_UNIT_CODES = ProtobufUtil.sUtf8UnitLengths;
+
+    /**
+     * Maximum size of a single memory-mapped region when reading from a
+     * {@link FileChannel}; larger files are mapped one window at a time.
+     */
+    protected final static int DEFAULT_MAX_MAPPED_WINDOW = 1 << 30;
+
+    /**
+     * Maximum nesting depth of groups skipped as values of unknown fields:
+     * since groups have no length prefix, their contents must be traversed,
+     * and more deeply nested content is reported as an error.
+     */
+    protected final static int MAX_SKIPPED_GROUP_DEPTH = 100;
     
     /*
     /**********************************************************
@@ -67,7 +135,15 @@ public class ProtobufParser extends ParserMinimalBase
     protected ObjectCodec _objectCodec;
 
     protected ProtobufSchema _schema;
-    
+
+    /**
+     * Bit flag composed of bits that indicate which
+     * {@link ProtobufParser.Feature}s are enabled.
+     *
+     * @since 2.7.10
+     */
+    protected int _formatFeatures;
+
     /*
     /**********************************************************
     /* Generic I/O state
@@ -204,6 +280,26 @@ public class ProtobufParser extends ParserMinimalBase
      */
     protected InputStream _inputStream;
 
+    /**
+     * Alternative to {@link #_inputStream}: off-heap {@link ByteBuffer} from which
+     * content is read into {@link #_inputBuffer} in chunks, if one in use.
+     * (heap-based buffers are accessed directly, as a byte array)
+     */
+    protected ByteBuffer _inputByteBuffer;
+
+    /**
+     * File channel from which content is memory-mapped (into {@link #_inputByteBuffer}),
+     * if one in use.
+     */
+    protected FileChannel _inputChannel;
+
+    /**
+     * Offset within {@link #_inputChannel} of the first byte that has not yet been mapped.
+     */
+    protected long _channelMappedEnd;
+
+    protected int _maxMappedWindow = DEFAULT_MAX_MAPPED_WINDOW;
+
     /**
      * Current buffer from which data is read; generally data is read into
      * buffer from input source, but in some cases pre-loaded buffer
@@ -247,6 +343,14 @@ public class ProtobufParser extends ParserMinimalBase
 
     protected int _nextTag;
 
+    /**
+     * Flag set when the current Message field was encoded as a group (start-group
+     * wire type) instead of being length-prefixed.
+     *
+     * @since 2.7.10
+     */
+    protected boolean _groupStart;
+
     /**
      * Length of the value that parser points to, for scalar values that use length
      * prefixes (Strings, binary data).
@@ -322,13 +426,29 @@ public class ProtobufParser extends ParserMinimalBase
     /**********************************************************
      */
 
+    /**
+     * @deprecated Since 2.7.10, use variant that takes format features
+     */
+    @Deprecated
     public ProtobufParser(IOContext ctxt, int parserFeatures,
             ObjectCodec codec,
             InputStream in, byte[] inputBuffer, int start, int end,
             boolean bufferRecyclable)
+    {
+        this(ctxt, parserFeatures, 0, codec, in, inputBuffer, start, end, bufferRecyclable);
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    public ProtobufParser(IOContext ctxt, int parserFeatures, int formatFeatures,
+            ObjectCodec codec,
+            InputStream in, byte[] inputBuffer, int start, int end,
+            boolean bufferRecyclable)
     {
         super(parserFeatures);
         _ioContext = ctxt;
+        _formatFeatures = formatFeatures;
         _objectCodec = codec;
 
         _inputStream = in;
@@ -343,6 +463,50 @@ public class ProtobufParser extends ParserMinimalBase
         _tokenInputCol = -1;
     }
 
+    /**
+     * Constructor used for reading content from a {@link ByteBuffer} that does
+     * not expose its backing array (usually a direct buffer): content is
+     * read in chunks into given (recyclable) input buffer.
+     */
+    public ProtobufParser(IOContext ctxt, int parserFeatures, int formatFeatures,
+            ObjectCodec codec, ByteBuffer in, byte[] inputBuffer)
+    {
+        this(ctxt, parserFeatures, formatFeatures, codec, null, inputBuffer, 0, 0, true);
+        _inputByteBuffer = in;
+    }
+
+    /**
+     * Constructor used for reading content of a file by memory-mapping it:
+     * short values are read through given (recyclable) input buffer, but longer
+     * String and binary values, as well as skipped content, are accessed
+     * directly from mapped memory.
+     */
+    public ProtobufParser(IOContext ctxt, int parserFeatures, int formatFeatures,
+            ObjectCodec codec, FileChannel in, byte[] inputBuffer)
+    {
+        this(ctxt, parserFeatures, formatFeatures, codec, in, 0L, inputBuffer);
+    }
+
+    /**
+     * Constructor used for reading content of a file by memory-mapping it,
+     * starting at given offset within the file. Offset is included in
+     * locations parser reports, so that {@link JsonLocation#getByteOffset()}
+     * refers to offset within the file.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufParser(IOContext ctxt, int parserFeatures, int formatFeatures,
+            ObjectCodec codec, FileChannel in, long startOffset, byte[] inputBuffer)
+    {
+        this(ctxt, parserFeatures, formatFeatures, codec, null, inputBuffer, 0, 0, true);
+        if (startOffset < 0L) {
+            throw new IllegalArgumentException("Invalid start offset ("+startOffset+"): can not be negative");
+        }
+        _inputChannel = in;
+        _channelMappedEnd = startOffset;
+        _currInputProcessed = startOffset;
+    }
+
     public void setSchema(ProtobufSchema schema)
     {
         if (_schema == schema) {
@@ -366,6 +530,73 @@ public class ProtobufParser extends ParserMinimalBase
         _objectCodec = c;
     }
 
+    @Override
+    public int getFormatFeatures() {
+        return _formatFeatures;
+    }
+
+    @Override
+    public JsonParser overrideFormatFeatures(int values, int mask) {
+        _formatFeatures = (_formatFeatures & ~mask) | (values & mask);
+        return this;
+    }
+
+    /*
+    /**********************************************************
+    /* Public API, configuration
+    /**********************************************************
+     */
+
+    /**
+     * Method for enabling specified Protobuf feature
+     * (check {@link Feature} for list of features)
+     *
+     * @since 2.7.10
+     */
+    public ProtobufParser enable(ProtobufParser.Feature f)
+    {
+        _formatFeatures |= f.getMask();
+        return this;
+    }
+
+    /**
+     * Method for disabling specified Protobuf feature
+     * (check {@link Feature} for list of features)
+     *
+     * @since 2.7.10
+     */
+    public ProtobufParser disable(ProtobufParser.Feature f)
+    {
+        _formatFeatures &= ~f.getMask();
+        return this;
+    }
+
+    /**
+     * Method for enabling or disabling specified Protobuf feature
+     * (check {@link Feature} for list of features)
+     *
+     * @since 2.7.10
+     */
+    public ProtobufParser configure(ProtobufParser.Feature f, boolean state)
+    {
+        if (state) {
+            enable(f);
+        } else {
+            disable(f);
+        }
+        return this;
+    }
+
+    /**
+     * Method for checking whether specified Protobuf {@link Feature}
+     * is enabled.
+     *
+     * @since 2.7.10
+     */
+    public boolean isEnabled(ProtobufParser.Feature f) {
+        return (_formatFeatures & f.getMask()) != 0;
+    }
+
     /*                                                                                       
     /**********************************************************                              
     /* Versioned                                                                             
@@ -575,6 +806,19 @@ public class ProtobufParser extends ParserMinimalBase
             if (_schema == null) {
                 _reportError("No Schema has been assigned: can not decode content");
             }
+            if (Feature.LENGTH_DELIMITED.enabledIn(_formatFeatures)) {
+                // either end of input, or length of the next message
+                if (_inputPtr >= _inputEnd) {
+                    if (!loadMore()) {
+                        close();
+                        return (_currToken = null);
+                    }
+                }
+                int len = _decodeLength();
+                _currentEndOffset = _inputPtr + len;
+                _parsingContext.setEndOffset(_currentEndOffset);
+                _tokenInputTotal = _currInputProcessed + _inputPtr;
+            }
             _currentMessage = _schema.getRootType();
             _currentField = _currentMessage.firstField();
             _state = STATE_ROOT_KEY;
@@ -582,11 +826,13 @@ public class ProtobufParser extends ParserMinimalBase
             return (_currToken = JsonToken.START_OBJECT);
 
         case STATE_ROOT_KEY:
-            // end-of-input?
-            if (_inputPtr >= _inputEnd) {
-                if (!loadMore()) {
-                    close();
-                    return (_currToken = JsonToken.END_OBJECT);
+            if (_checkRootEnd()) {
+                return (_currToken = JsonToken.END_OBJECT);
+            }
+            {
+                ProtobufField f = _matchNextField();
+                if (f != null) {
+                    return _handleMatchedKey(f, STATE_ROOT_VALUE);
                 }
             }
             return _handleRootKey(_decodeVInt());
@@ -600,6 +846,12 @@ public class ProtobufParser extends ParserMinimalBase
             if (_checkEnd()) {
                 return (_currToken = JsonToken.END_OBJECT);
             }
+            {
+                ProtobufField f = _matchNextField();
+                if (f != null) {
+                    return _handleMatchedKey(f, STATE_NESTED_VALUE);
+                }
+            }
             return _handleNestedKey(_decodeVInt());
 
         case STATE_ARRAY_START:
@@ -639,8 +891,8 @@ public class ProtobufParser extends ParserMinimalBase
             if (_inputPtr >= _inputEnd) {
                 if (!loadMore()) {
                     ProtobufReadContext parent = _parsingContext.getParent();
-                    // Ok to end if and only if root value
-                    if (!parent.inRoot()) {
+                    // Ok to end if and only if root value (and no length prefix)
+                    if (!parent.inRoot() || Feature.LENGTH_DELIMITED.enabledIn(_formatFeatures)) {
                         _reportInvalidEOF();
                     }
                     _parsingContext = parent;
@@ -651,8 +903,9 @@ public class ProtobufParser extends ParserMinimalBase
             }
             {
                 int tag = _decodeVInt();
-                // expected case: another value in same array
-                if (_currentField.id == (tag >> 3)) {
+                // expected case: another value in same array (but not end of enclosing group)
+                if ((_currentField.id == (tag >> 3)) && ((tag & 0x7) != WireType.GROUP_END)) {
+                    _groupStart = ((tag & 0x7) == WireType.GROUP_START);
                     JsonToken t = _readNextValue(_currentField.type, STATE_ARRAY_VALUE_OTHER);
                     _currToken = t;
                     // remain in same state
@@ -696,6 +949,7 @@ public class ProtobufParser extends ParserMinimalBase
             }
 
         case STATE_MESSAGE_END: // occurs if we end with array
+            close();
             return (_currToken = JsonToken.END_OBJECT);
             
         case STATE_CLOSED:
@@ -716,6 +970,30 @@ public class ProtobufParser extends ParserMinimalBase
             _reportErrorF("Decoding: current inputPtr (%d) exceeds end offset (%d) (for message of type %s): corrupt content?",
                     _inputPtr, _currentEndOffset, _currentMessage.getName());
         }
+        if (_parsingContext.isGroup()) {
+            _reportErrorF("Missing end-group tag for group of type %s: enclosing message ends",
+                    _currentMessage.getName());
+        }
+        _popContext();
+        return true;
+    }
+
+    /**
+     * Helper method called when end-group tag has been read within a nested Message,
+     * to verify that it matches the current group, and end it.
+     */
+    private void _endGroup(int id) throws IOException
+    {
+        ProtobufReadContext parentCtxt = _parsingContext.getParent();
+        if (!_parsingContext.isGroup() || (parentCtxt.getField().id != id)) {
+            _reportErrorF("Unexpected end-group tag (field id %d) within message of type %s",
+                    id, _currentMessage.getName());
+        }
+        _popContext();
+    }
+
+    private void _popContext()
+    {
         ProtobufReadContext parentCtxt = _parsingContext.getParent();
         _parsingContext = parentCtxt;
         _currentMessage = parentCtxt.getMessageType();
@@ -728,9 +1006,111 @@ public class ProtobufParser extends ParserMinimalBase
         } else {
             _state = STATE_NESTED_KEY;
         }
+    }
+
+    /**
+     * Helper method called to check whether the root-level message ends: either
+     * at end-of-input or, with length-delimited messages, at the end offset.
+     * If so, state is updated (and parser closed at end-of-input).
+     */
+    private boolean _checkRootEnd() throws IOException
+    {
+        if (Feature.LENGTH_DELIMITED.enabledIn(_formatFeatures)) {
+            if (_inputPtr < _currentEndOffset) {
+                if (_inputPtr >= _inputEnd) {
+                    loadMoreGuaranteed();
+                }
+                return false;
+            }
+            if (_inputPtr > _currentEndOffset) {
+                _reportErrorF("Decoding: current inputPtr (%d) exceeds end offset (%d) (for message of type %s): corrupt content?",
+                        _inputPtr, _currentEndOffset, _currentMessage.getName());
+            }
+            // may have more messages to decode
+            _parsingContext.setEndOffset(Integer.MAX_VALUE);
+            _currentEndOffset = Integer.MAX_VALUE;
+            _state = STATE_INITIAL;
+            return true;
+        }
+        if ((_inputPtr < _inputEnd) || loadMore()) {
+            return false;
+        }
+        close();
+        return true;
+    }
+
+    /**
+     * Helper method for checking whether the next key is for the field following
+     * the current one (or the current one itself, for first field of a Message),
+     * by comparing raw bytes of the tag with precomputed ones, without decoding.
+     * If so, tag is consumed.
+     *
+     * @return Matched field, if any; null if none (in which case nothing was consumed)
+     */
+    private final ProtobufField _matchNextField()
+    {
+        final ProtobufField curr = _currentField;
+        if (curr == null) {
+            return null;
+        }
+        ProtobufField f = curr.next;
+        if ((f != null) && _matchTag(f)) {
+            return f;
+        }
+        return _matchTag(curr) ? curr : null;
+    }
+
+    private final boolean _matchTag(ProtobufField f)
+    {
+        int len = f.typedTagLength;
+        final int ptr = _inputPtr;
+        if ((len > 4) || ((ptr + len) > _inputEnd)) {
+            return false;
+        }
+        final byte[] buf = _inputBuffer;
+        int bytes = f.typedTagBytes;
+        if (buf[ptr] != (byte) bytes) {
+            return false;
+        }
+        for (int i = 1; i < len; ++i) {
+            bytes >>= 8;
+            if (buf[ptr+i] != (byte) bytes) {
+                return false;
+            }
+        }
+        _inputPtr = ptr + len;
         return true;
     }
 
+    /**
+     * Helper method called when key has been matched by {@link #_matchNextField}:
+     * since wire type is the expected one, no validation is needed.
+     */
+    private final JsonToken _handleMatchedKey(ProtobufField f, int valueState)
+    {
+        _currentField = f;
+        _groupStart = false;
+        _parsingContext.setCurrentName(f.name);
+        if (f.repeated) {
+            _state = f.packed ? STATE_ARRAY_START_PACKED : STATE_ARRAY_START;
+        } else {
+            _state = valueState;
+        }
+        return (_currToken = JsonToken.FIELD_NAME);
+    }
+
+    /**
+     * Helper method for checking whether name of current field matches given name:
+     * for {@link ProtobufFieldName} usually just an identity check.
+     */
+    protected final boolean _matchesName(SerializableString sstr)
+    {
+        if (sstr instanceof ProtobufFieldName) {
+            return ((ProtobufFieldName) sstr).matches(_currentMessage, _currentField);
+        }
+        return _currentField.name.equals(sstr.getValue());
+    }
+
     private JsonToken _handleRootKey(int tag) throws IOException
     {
         int wireType = (tag & 0x7);
@@ -746,9 +1126,7 @@ public class ProtobufParser extends ParserMinimalBase
         }
         _parsingContext.setCurrentName(f.name);
         // otherwise quickly validate compatibility
-        if (!f.isValidFor(wireType)) {
-            _reportIncompatibleType(f, wireType);
-        }
+        _verifyWireType(f, wireType);
         // array?
         if (f.repeated) {
             if (f.packed) {
@@ -767,15 +1145,21 @@ public class ProtobufParser extends ParserMinimalBase
     {
         int wireType = (tag & 0x7);
         int id = (tag >> 3);
+        if (wireType == WireType.GROUP_END) {
+            _endGroup(id);
+            return (_currToken = JsonToken.END_OBJECT);
+        }
 
         ProtobufField f;
         if ((_currentField == null) || (f = _currentField.nextOrThisIf(id)) == null) {
             f = _currentMessage.field(id);
         }
-        _parsingContext.setCurrentName(f.name);
-        if (!f.isValidFor(wireType)) {
-            _reportIncompatibleType(f, wireType);
+        // Note: may be null; if so, value needs to be skipped
+        if (f == null) {
+            return _skipUnknownField(id, wireType);
         }
+        _parsingContext.setCurrentName(f.name);
+        _verifyWireType(f, wireType);
 
         // array?
         if (f.repeated) {
@@ -918,6 +1302,13 @@ public class ProtobufParser extends ParserMinimalBase
             {
                 ProtobufMessage msg = _currentField.getMessageType();
                 _currentMessage = msg;
+                _state = STATE_NESTED_KEY;
+                if (_groupStart) {
+                    // no length: group ends with end-group tag, within enclosing Message
+                    _parsingContext = _parsingContext.createChildGroupContext(msg, _currentField, _currentEndOffset);
+                    _currentField = msg.firstField();
+                    return JsonToken.START_OBJECT;
+                }
                 int len = _decodeLength();
                 int newEnd = _inputPtr + len;
 
@@ -927,7 +1318,6 @@ public class ProtobufParser extends ParserMinimalBase
                             _currentField.name, msg.getName(), newEnd, _currentEndOffset, len);
                 }
                 _currentEndOffset = newEnd; 
-                _state = STATE_NESTED_KEY;
                 _parsingContext = _parsingContext.createChildObjectContext(msg, _currentField, newEnd);            
                 _currentField = msg.firstField();
             }
@@ -940,49 +1330,69 @@ public class ProtobufParser extends ParserMinimalBase
         return type;
     }
 
-    private JsonToken _skipUnknownField(int tag, int wireType) throws IOException
+    private JsonToken _skipUnknownField(int id, int wireType) throws IOException
     {
-        // First: is this even allowed?
-        if (!isEnabled(JsonParser.Feature.IGNORE_UNDEFINED)) {
-            _reportErrorF("Undefined property (id %d, wire type %d) for message type %s: not allowed to ignore, as `JsonParser.Feature.IGNORE_UNDEFINED` disabled",
-                    tag, wireType, _currentMessage.getName());
-        }
-        
         while (true) {
-            _skipUnknownValue(wireType);
-            if (_state == STATE_NESTED_KEY) {
+            // First: is this even allowed?
+            if (!_isSkippable(id)) {
+                _reportErrorF("Undefined property (id %d, wire type %d) for message type %s: not allowed to ignore, as `JsonParser.Feature.IGNORE_UNDEFINED` disabled",
+                        id, wireType, _currentMessage.getName());
+            }
+            // packed arrays use wire type of elements, but are length-prefixed:
+            // so for excluded fields, need to use field definition
+            ProtobufField excluded = _currentMessage.excludedField(id);
+            if ((excluded != null) && excluded.packed) {
+                _skipBytes(_decodeLength());
+            } else {
+                _skipUnknownValue(id, wireType);
+            }
+            if (_parsingContext.inRoot()) {
+                if (_checkRootEnd()) {
+                    return (_currToken = JsonToken.END_OBJECT);
+                }
+            } else {
                 if (_checkEnd()) {
                     return (_currToken = JsonToken.END_OBJECT);
                 }
                 if (_inputPtr >= _inputEnd) {
                     loadMoreGuaranteed();
                 }
-            } else if (_inputPtr >= _inputEnd) {
-                if (!loadMore()) {
-                    close();
-                    return (_currToken = JsonToken.END_OBJECT);
-                }
             }
-            tag = _decodeVInt();
-            
+            int tag = _decodeVInt();
             wireType = (tag & 0x7);
+            id = (tag >> 3);
+            if ((wireType == WireType.GROUP_END) && !_parsingContext.inRoot()) {
+                _endGroup(id);
+                return (_currToken = JsonToken.END_OBJECT);
+            }
             // Note: may be null; if so, value needs to be skipped
-            _currentField = _currentMessage.field(tag >> 3);
-            if (_currentField == null) {
-                _skipUnknownValue(wireType);
+            ProtobufField f = _currentMessage.field(id);
+            if (f == null) {
                 continue;
             }
-            _parsingContext.setCurrentName(_currentField.name);
-            _state = STATE_ROOT_VALUE;
+            _currentField = f;
+            _parsingContext.setCurrentName(f.name);
             // otherwise quickly validate compatibility
-            if (!_currentField.isValidFor(wireType)) {
-                _reportIncompatibleType(_currentField, wireType);
+            _verifyWireType(f, wireType);
+            if (f.repeated) {
+                _state = f.packed ? STATE_ARRAY_START_PACKED : STATE_ARRAY_START;
+            } else {
+                _state = _parsingContext.inRoot() ? STATE_ROOT_VALUE : STATE_NESTED_VALUE;
             }
             return (_currToken = JsonToken.FIELD_NAME);
         }
     }
-        
-    private void _skipUnknownValue(int wireType) throws IOException
+
+    /**
+     * Helper method for checking whether field with given id, not included in
+     * the current message type, may be skipped: either because it was excluded
+     * from a projected schema, or because skipping of unknown fields is enabled.
+     */
+    protected final boolean _isSkippable(int id) {
+        return _currentMessage.isExcluded(id) || isEnabled(JsonParser.Feature.IGNORE_UNDEFINED);
+    }
+
+    private void _skipUnknownValue(int id, int wireType) throws IOException
     {
         switch (wireType) {
         case WireType.VINT:
@@ -992,34 +1402,125 @@ public class ProtobufParser extends ParserMinimalBase
             _skipBytes(4);
             break;
         case WireType.FIXED_64BIT:
-            _skipBytes(64);
+            _skipBytes(8);
             break;
         case WireType.LENGTH_PREFIXED:
             int len = _decodeLength();
             _skipBytes(len);
             break;
+        case WireType.GROUP_START:
+            _skipGroup(id);
+            break;
         default:
             _reportError(String.format("Unrecognized wire type 0x%x for unknown field within message of type %s)",
                     wireType, _currentMessage.getName()));
         }
     }
 
+    /**
+     * Helper method for skipping contents of a group, including its
+     * end-group tag, after start-group tag has been read. Nested groups are
+     * skipped iteratively, keeping track of field ids of enclosing groups.
+     */
+    private void _skipGroup(int id) throws IOException
+    {
+        int[] enclosing = null;
+        int depth = 0;
+        while (true) {
+            if (_inputPtr >= _inputEnd) {
+                loadMoreGuaranteed();
+            }
+            int tag = _decodeVInt();
+            int wireType = tag & 0x7;
+            if (wireType == WireType.GROUP_END) {
+                if ((tag >> 3) != id) {
+                    _reportErrorF("Mismatched end-group tag (field id %d) for group with field id %d",
+                            (tag >> 3), id);
+                }
+                if (depth == 0) {
+                    return;
+                }
+                id = enclosing[--depth];
+            } else if (wireType == WireType.GROUP_START) {
+                if (depth == (MAX_SKIPPED_GROUP_DEPTH-1)) {
+                    _reportErrorF("Nesting depth of skipped groups exceeds maximum of %d (within message of type %s)",
+                            MAX_SKIPPED_GROUP_DEPTH, _currentMessage.getName());
+                }
+                if (enclosing == null) {
+                    enclosing = new int[8];
+                } else if (depth == enclosing.length) {
+                    enclosing = Arrays.copyOf(enclosing, depth + depth);
+                }
+                enclosing[depth++] = id;
+                id = tag >> 3;
+            } else {
+                _skipUnknownValue(tag >> 3, wireType);
+            }
+        }
+    }
+
     /*
     /**********************************************************
     /* Public API, traversal, nextXxxValue/nextFieldName
     /**********************************************************
      */
 
+    /**
+     * Overridden to take advantage of the fact that nested Messages and packed
+     * arrays are length-prefixed: so instead of decoding contents, we can skip
+     * to the end offset directly. Unpacked arrays have no length so their
+     * contents must be traversed.
+     */
+    @Override
+    public JsonParser skipChildren() throws IOException
+    {
+        JsonToken end;
+        if (_currToken == JsonToken.START_OBJECT) {
+            if (_parsingContext.inRoot()) {
+                // root-level Message extends to end-of-input, unless length-delimited
+                if (Feature.LENGTH_DELIMITED.enabledIn(_formatFeatures)) {
+                    _skipBytes(_currentEndOffset - _inputPtr);
+                } else {
+                    _skipToEndOfInput();
+                }
+                _checkRootEnd();
+                _currToken = JsonToken.END_OBJECT;
+                return this;
+            }
+            if (_parsingContext.isGroup()) {
+                // no length for groups: need to skip contents field by field
+                _numTypesValid = NR_UNKNOWN;
+                _skipGroup(_parsingContext.getParent().getField().id);
+                _popContext();
+                _currToken = JsonToken.END_OBJECT;
+                return this;
+            }
+            end = JsonToken.END_OBJECT;
+        } else if ((_currToken == JsonToken.START_ARRAY) && (_state == STATE_ARRAY_VALUE_PACKED)) {
+            end = JsonToken.END_ARRAY;
+        } else {
+            return super.skipChildren();
+        }
+        _numTypesValid = NR_UNKNOWN;
+        _skipBytes(_currentEndOffset - _inputPtr);
+        // will also pop context, reset state
+        _checkEnd();
+        _currToken = end;
+        return this;
+    }
+
     @Override
     public boolean nextFieldName(SerializableString sstr) throws IOException
     {
         if (_state == STATE_ROOT_KEY) {
-            if (_inputPtr >= _inputEnd) {
-                if (!loadMore()) {
-                    close();
-                    _currToken = JsonToken.END_OBJECT;
-                    return false;
-                }
+            if (_checkRootEnd()) {
+                _currToken = JsonToken.END_OBJECT;
+                return false;
+            }
+            ProtobufField matched = _matchNextField();
+            if (matched != null) {
+                _handleMatchedKey(matched, STATE_ROOT_VALUE);
+                return _matchesName(sstr);
             }
             int tag = _decodeVInt();
             // inlined _handleRootKey()
@@ -1029,15 +1530,12 @@ public class ProtobufParser extends ParserMinimalBase
 
             ProtobufField f = _findField(id);
             if (f == null) {
-                _skipUnknownField(id, wireType);
-                // may or may not match, but let caller figure it out
-                return false;
+                return (_skipUnknownField(id, wireType) == JsonToken.FIELD_NAME)
+                        && _matchesName(sstr);
             }
             String name = _currentField.name;
             _parsingContext.setCurrentName(name);
-            if (!_currentField.isValidFor(wireType)) {
-                _reportIncompatibleType(_currentField, wireType);
-            }
+            _verifyWireType(_currentField, wireType);
 
             // array?
             if (_currentField.repeated) {
@@ -1050,30 +1548,37 @@ public class ProtobufParser extends ParserMinimalBase
                 _state = STATE_ROOT_VALUE;
             }
             _currToken = JsonToken.FIELD_NAME;
-            return name.equals(sstr.getValue());
+            return _matchesName(sstr);
         }
         if (_state == STATE_NESTED_KEY) {
             if (_checkEnd()) {
                 _currToken = JsonToken.END_OBJECT;
                 return false;
             }
+            ProtobufField matched = _matchNextField();
+            if (matched != null) {
+                _handleMatchedKey(matched, STATE_NESTED_VALUE);
+                return _matchesName(sstr);
+            }
             int tag = _decodeVInt();
             // inlined '_handleNestedKey()'
 
             int wireType = (tag & 0x7);
             int id = (tag >> 3);
+            if (wireType == WireType.GROUP_END) {
+                _endGroup(id);
+                _currToken = JsonToken.END_OBJECT;
+                return false;
+            }
 
             ProtobufField f = _findField(id);
             if (f == null) {
-                _skipUnknownField(id, wireType);
-                // may or may not match, but let caller figure it out
-                return false;
+                return (_skipUnknownField(id, wireType) == JsonToken.FIELD_NAME)
+                        && _matchesName(sstr);
             }
             final String name = _currentField.name;
             _parsingContext.setCurrentName(name);
-            if (!_currentField.isValidFor(wireType)) {
-                _reportIncompatibleType(_currentField, wireType);
-            }
+            _verifyWireType(_currentField, wireType);
 
             // array?
             if (_currentField.repeated) {
@@ -1086,21 +1591,23 @@ public class ProtobufParser extends ParserMinimalBase
                 _state = STATE_NESTED_VALUE;
             }
             _currToken = JsonToken.FIELD_NAME;
-            return name.equals(sstr.getValue());
+            return _matchesName(sstr);
         }
-        return (nextToken() == JsonToken.FIELD_NAME) && sstr.getValue().equals(getCurrentName());
+        return (nextToken() == JsonToken.FIELD_NAME) && _matchesName(sstr);
     }
 
     @Override
     public String nextFieldName() throws IOException
     {
         if (_state == STATE_ROOT_KEY) {
-            if (_inputPtr >= _inputEnd) {
-                if (!loadMore()) {
-                    close();
-                    _currToken = JsonToken.END_OBJECT;
-                    return null;
-                }
+            if (_checkRootEnd()) {
+                _currToken = JsonToken.END_OBJECT;
+                return null;
+            }
+            ProtobufField matched = _matchNextField();
+            if (matched != null) {
+                _handleMatchedKey(matched, STATE_ROOT_VALUE);
+                return matched.name;
             }
             int tag = _decodeVInt();
             // inlined _handleRootKey()
@@ -1110,15 +1617,12 @@ public class ProtobufParser extends ParserMinimalBase
 
             ProtobufField f = _findField(id);
             if (f == null) {
-                _skipUnknownField(id, wireType);
-                // may or may not match, but let caller figure it out
-                return null;
+                return (_skipUnknownField(id, wireType) == JsonToken.FIELD_NAME)
+                        ? _currentField.name : null;
             }
             String name = _currentField.name;
             _parsingContext.setCurrentName(name);
-            if (!_currentField.isValidFor(wireType)) {
-                _reportIncompatibleType(_currentField, wireType);
-            }
+            _verifyWireType(_currentField, wireType);
 
             // array?
             if (_currentField.repeated) {
@@ -1138,23 +1642,30 @@ public class ProtobufParser extends ParserMinimalBase
                 _currToken = JsonToken.END_OBJECT;
                 return null;
             }
+            ProtobufField matched = _matchNextField();
+            if (matched != null) {
+                _handleMatchedKey(matched, STATE_NESTED_VALUE);
+                return matched.name;
+            }
             int tag = _decodeVInt();
             // inlined '_handleNestedKey()'
 
             int wireType = (tag & 0x7);
             int id = (tag >> 3);
+            if (wireType == WireType.GROUP_END) {
+                _endGroup(id);
+                _currToken = JsonToken.END_OBJECT;
+                return null;
+            }
 
             ProtobufField f = _findField(id);
             if (f == null) {
-                _skipUnknownField(id, wireType);
-                // may or may not match, but let caller figure it out
-                return null;
+                return (_skipUnknownField(id, wireType) == JsonToken.FIELD_NAME)
+                        ? _currentField.name : null;
             }
             final String name = _currentField.name;
             _parsingContext.setCurrentName(name);
-            if (!_currentField.isValidFor(wireType)) {
-                _reportIncompatibleType(_currentField, wireType);
-            }
+            _verifyWireType(_currentField, wireType);
 
             // array?
             if (_currentField.repeated) {
@@ -1182,6 +1693,179 @@ public class ProtobufParser extends ParserMinimalBase
         return f;
     }
 
+    /*
+    /**********************************************************
+    /* Public API, bulk access to arrays
+    /**********************************************************
+     */
+
+    /**
+     * Method that may be called when the current token is {@link JsonToken#START_ARRAY},
+     * to read all elements of the array as <code>int</code> values, after which
+     * the current token is the matching {@link JsonToken#END_ARRAY}.
+     * Packed arrays of 32-bit integral types are decoded in a single loop, without
+     * producing individual tokens; other arrays are read token by token.
+     *
+     * @return Values of the array, or null if current token is not
+     *   {@link JsonToken#START_ARRAY}
+     *
+     * @since 2.7.10
+     */
+    public int[] readIntArray() throws IOException
+    {
+        if (_currToken != JsonToken.START_ARRAY) {
+            return null;
+        }
+        if (_state == STATE_ARRAY_VALUE_PACKED) {
+            int[] result;
+            switch (_currentField.type) {
+            case VINT32_STD:
+                result = _readPackedVInts(false);
+                break;
+            case VINT32_Z:
+                result = _readPackedVInts(true);
+                break;
+            case FIXINT32:
+                result = new int[_packedCount(4)];
+                _readPackedFixed32(result);
+                break;
+            default:
+                result = null;
+            }
+            if (result != null) {
+                _endPackedArray();
+                return result;
+            }
+        }
+        int[] result = new int[16];
+        int count = 0;
+        while (_nextArrayElement()) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count << 1);
+            }
+            result[count++] = getIntValue();
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Method similar to {@link #readIntArray()}, but for reading <code>long</code> values:
+     * packed arrays of all integral types are decoded in a single loop.
+     *
+     * @since 2.7.10
+     */
+    public long[] readLongArray() throws IOException
+    {
+        if (_currToken != JsonToken.START_ARRAY) {
+            return null;
+        }
+        if (_state == STATE_ARRAY_VALUE_PACKED) {
+            long[] result;
+            switch (_currentField.type) {
+            case VINT64_STD:
+                result = _readPackedVLongs(false);
+                break;
+            case VINT64_Z:
+                result = _readPackedVLongs(true);
+                break;
+            case FIXINT64:
+                result = new long[_packedCount(8)];
+                _readPackedFixed64(result);
+                break;
+            case VINT32_STD:
+                result = _readPackedVIntsAsLongs(false);
+                break;
+            case VINT32_Z:
+                result = _readPackedVIntsAsLongs(true);
+                break;
+            case FIXINT32:
+                result = new long[_packedCount(4)];
+                _readPackedFixed32(result);
+                break;
+            default:
+                result = null;
+            }
+            if (result != null) {
+                _endPackedArray();
+                return result;
+            }
+        }
+        long[] result = new long[16];
+        int count = 0;
+        while (_nextArrayElement()) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count << 1);
+            }
+            result[count++] = getLongValue();
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Method similar to {@link #readIntArray()}, but for reading <code>double</code> values:
+     * packed arrays of <code>double</code> and <code>float</code> values are decoded
+     * in a single loop.
+     *
+     * @since 2.7.10
+     */
+    public double[] readDoubleArray() throws IOException
+    {
+        if (_currToken != JsonToken.START_ARRAY) {
+            return null;
+        }
+        if (_state == STATE_ARRAY_VALUE_PACKED) {
+            double[] result = null;
+            if (_currentField.type == FieldType.DOUBLE) {
+                result = new double[_packedCount(8)];
+                _readPackedDoubles(result);
+            } else if (_currentField.type == FieldType.FLOAT) {
+                result = new double[_packedCount(4)];
+                _readPackedFloats(result);
+            }
+            if (result != null) {
+                _endPackedArray();
+                return result;
+            }
+        }
+        double[] result = new double[16];
+        int count = 0;
+        while (_nextArrayElement()) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count << 1);
+            }
+            result[count++] = getDoubleValue();
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Method similar to {@link #readIntArray()}, but for reading <code>float</code> values:
+     * packed arrays of <code>float</code> values are decoded in a single loop.
+     *
+     * @since 2.7.10
+     */
+    public float[] readFloatArray() throws IOException
+    {
+        if (_currToken != JsonToken.START_ARRAY) {
+            return null;
+        }
+        if ((_state == STATE_ARRAY_VALUE_PACKED) && (_currentField.type == FieldType.FLOAT)) {
+            float[] result = new float[_packedCount(4)];
+            _readPackedFloats(result);
+            _endPackedArray();
+            return result;
+        }
+        float[] result = new float[16];
+        int count = 0;
+        while (_nextArrayElement()) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count << 1);
+            }
+            result[count++] = getFloatValue();
+        }
+        return Arrays.copyOf(result, count);
+    }
+
     /*
     /**********************************************************
     /* Public API, access to token information, text
@@ -1656,7 +2340,11 @@ public class ProtobufParser extends ParserMinimalBase
                 // or if not, could we read?
                 if (len >= _inputBuffer.length) {
                     // If not enough space, need different handling
-                    _finishLongText(len);
+                    if (_hasDirectInput()) {
+                        _finishLongTextDirect(len);
+                    } else {
+                        _finishLongText(len);
+                    }
                     return;
                 }
                 _loadToHaveAtLeast(len);
@@ -1676,6 +2364,15 @@ public class ProtobufParser extends ParserMinimalBase
     protected byte[] _finishBytes(int len) throws IOException
     {
         byte[] b = new byte[len];
+        if (_hasDirectInput()) {
+            int avail = Math.min(len, _inputEnd - _inputPtr);
+            System.arraycopy(_inputBuffer, _inputPtr, b, 0, avail);
+            _inputPtr += avail;
+            if (avail < len) {
+                _consumeDirect(b, avail, len - avail);
+            }
+            return b;
+        }
         if (_inputPtr >= _inputEnd) {
             loadMoreGuaranteed();
         }
@@ -1694,15 +2391,28 @@ public class ProtobufParser extends ParserMinimalBase
     }
 
     private final String _finishShortText(int len) throws IOException
+    {
+        int inPtr = _inputPtr;
+        _inputPtr += len;
+        return _decodeText(_inputBuffer, inPtr, len);
+    }
+
+    /**
+     * Method called to decode long String value from a direct source (file
+     * or off-heap buffer) as a single block, instead of via input buffer.
+     */
+    private final void _finishLongTextDirect(int len) throws IOException
+    {
+        _decodeText(_finishBytes(len), 0, len);
+    }
+
+    private final String _decodeText(byte[] inputBuf, int inPtr, int len) throws IOException
     {
         char[] outBuf = _textBuffer.emptyAndGetCurrentSegment();
         if (outBuf.length < len) { // one minor complication
             outBuf = _textBuffer.expandCurrentSegment(len);
         }
         int outPtr = 0;
-        int inPtr = _inputPtr;
-        _inputPtr += len;
-        final byte[] inputBuf = _inputBuffer;
 
         // Let's actually do a tight loop for ASCII first:
         final int end = inPtr + len;
@@ -1866,10 +2576,10 @@ public class ProtobufParser extends ParserMinimalBase
 
     protected final boolean loadMore() throws IOException
     {
-        if (_inputStream != null) {
+        if ((_inputStream != null) || _hasDirectInput()) {
             _currInputProcessed += _inputEnd;
 
-            int count = _inputStream.read(_inputBuffer, 0, _inputBuffer.length);
+            int count = _readInput(0, _inputBuffer.length);
             if (count > 0) {
                 _currentEndOffset = _parsingContext.adjustEnd(_inputEnd);
                 _inputPtr = 0;
@@ -1897,7 +2607,7 @@ public class ProtobufParser extends ParserMinimalBase
     protected final void _loadToHaveAtLeast(int minAvailable) throws IOException
     {
         // No input stream, no leading (either we are closed, or have non-stream input source)
-        if (_inputStream == null) {
+        if ((_inputStream == null) && !_hasDirectInput()) {
             throw _constructError("Needed to read "+minAvailable+" bytes, reached end-of-input");
         }
         // Need to move remaining data in front?
@@ -1914,7 +2624,7 @@ public class ProtobufParser extends ParserMinimalBase
         _inputPtr = 0;
         _inputEnd = amount;
         while (_inputEnd < minAvailable) {
-            int count = _inputStream.read(_inputBuffer, _inputEnd, _inputBuffer.length - _inputEnd);
+            int count = _readInput(_inputEnd, _inputBuffer.length - _inputEnd);
             if (count < 1) {
                 // End of input
                 _closeInput();
@@ -1928,6 +2638,87 @@ public class ProtobufParser extends ParserMinimalBase
         }
     }
 
+    /**
+     * Helper method for reading more content from the underlying source
+     * into the input buffer.
+     *
+     * @return Number of bytes read, if any; -1 if end-of-input was reached
+     */
+    protected int _readInput(int offset, int maxLen) throws IOException
+    {
+        if (_inputStream != null) {
+            return _inputStream.read(_inputBuffer, offset, maxLen);
+        }
+        ByteBuffer bb = _inputByteBuffer;
+        if ((bb == null) || !bb.hasRemaining()) {
+            if (!_mapNextWindow()) {
+                return -1;
+            }
+            bb = _inputByteBuffer;
+        }
+        int count = Math.min(bb.remaining(), maxLen);
+        bb.get(_inputBuffer, offset, count);
+        return count;
+    }
+
+    protected final boolean _hasDirectInput() {
+        return (_inputByteBuffer != null) || (_inputChannel != null);
+    }
+
+    /**
+     * Helper method called to map the next section of the input file, if any
+     *
+     * @return True if more content was mapped; false if end-of-input was reached
+     */
+    protected boolean _mapNextWindow() throws IOException
+    {
+        final FileChannel ch = _inputChannel;
+        if (ch == null) {
+            return false;
+        }
+        long left = ch.size() - _channelMappedEnd;
+        if (left <= 0L) {
+            return false;
+        }
+        int size = (int) Math.min(left, (long) _maxMappedWindow);
+        _inputByteBuffer = ch.map(FileChannel.MapMode.READ_ONLY, _channelMappedEnd, size);
+        _channelMappedEnd += size;
+        return true;
+    }
+
+    /**
+     * Helper method used with direct input sources (file, off-heap buffer) to move past
+     * given number of bytes that follow contents of the input buffer (all of which
+     * must have been consumed by caller): bytes are either copied into given array,
+     * or, if array is null, just skipped.
+     */
+    protected void _consumeDirect(byte[] dst, int dstOffset, int len) throws IOException
+    {
+        final int buffered = _inputEnd;
+        _currInputProcessed += buffered + len;
+        _parsingContext.adjustEnd(buffered);
+        _currentEndOffset = _parsingContext.adjustEnd(len);
+        _inputPtr = _inputEnd = 0;
+
+        while (len > 0) {
+            ByteBuffer bb = _inputByteBuffer;
+            if ((bb == null) || !bb.hasRemaining()) {
+                if (!_mapNextWindow()) {
+                    _reportInvalidEOF();
+                }
+                bb = _inputByteBuffer;
+            }
+            int count = Math.min(len, bb.remaining());
+            if (dst == null) {
+                bb.position(bb.position() + count);
+            } else {
+                bb.get(dst, dstOffset, count);
+                dstOffset += count;
+            }
+            len -= count;
+        }
+    }
+
     /*
     /**********************************************************
     /* Low-level reading: other
@@ -1944,6 +2735,14 @@ public class ProtobufParser extends ParserMinimalBase
     }
 
     protected void _closeInput() throws IOException {
+        // nothing to close for buffers, but no more content to read either
+        _inputByteBuffer = null;
+        if (_inputChannel != null) {
+            if (_ioContext.isResourceManaged() || isEnabled(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+                _inputChannel.close();
+            }
+            _inputChannel = null;
+        }
         if (_inputStream != null) {
             if (_ioContext.isResourceManaged() || isEnabled(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
                 _inputStream.close();
@@ -1970,6 +2769,14 @@ public class ProtobufParser extends ParserMinimalBase
 
     protected void _skipBytes(int len) throws IOException
     {
+        if (_hasDirectInput()) {
+            int avail = _inputEnd - _inputPtr;
+            if (len > avail) {
+                _inputPtr = _inputEnd;
+                _consumeDirect(null, 0, len - avail);
+                return;
+            }
+        }
         while (true) {
             int toAdd = Math.min(len, _inputEnd - _inputPtr);
             _inputPtr += toAdd;
@@ -1981,6 +2788,13 @@ public class ProtobufParser extends ParserMinimalBase
         }
     }
 
+    protected void _skipToEndOfInput() throws IOException
+    {
+        do {
+            _inputPtr = _inputEnd;
+        } while (loadMore());
+    }
+
     protected void _skipVInt() throws IOException
     {
         int ptr = _inputPtr;
@@ -2018,6 +2832,226 @@ public class ProtobufParser extends ParserMinimalBase
         _reportTooLongVInt(_inputBuffer[_inputPtr-1]);
     }
     
+    /*
+    /**********************************************************
+    /* Helper methods, bulk reading of arrays
+    /**********************************************************
+     */
+
+    /**
+     * Helper method for advancing to the next element of the current array,
+     * if any, when reading array one token at a time.
+     *
+     * @return True if there is another element; false if end of array was reached
+     */
+    private boolean _nextArrayElement() throws IOException
+    {
+        JsonToken t = nextToken();
+        if (t == JsonToken.END_ARRAY) {
+            return false;
+        }
+        if (t == null) {
+            _reportInvalidEOF();
+        }
+        if (t == JsonToken.NOT_AVAILABLE) {
+            _reportError("Can not read array: not enough input available");
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of fixed-length values in the current packed array
+     */
+    private int _packedCount(int valueLength) throws IOException
+    {
+        int len = _currentEndOffset - _inputPtr;
+        if ((len % valueLength) != 0) {
+            _reportErrorF("Invalid length (%d) for packed array of field '%s' (of type %s): not a multiple of %d",
+                    len, _currentField.name, _currentMessage.getName(), valueLength);
+        }
+        return len / valueLength;
+    }
+
+    private int[] _readPackedVInts(boolean zigzag) throws IOException
+    {
+        // every value takes at least one byte, so can not have more than this:
+        final int max = _currentEndOffset - _inputPtr;
+        int[] result = new int[Math.min(max, 1024)];
+        int count = 0;
+        while (_inputPtr < _currentEndOffset) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, Math.min(max, count << 1));
+            }
+            int v = _decodeVInt();
+            result[count++] = zigzag ? ProtobufUtil.zigzagDecode(v) : v;
+        }
+        return (count == result.length) ? result : Arrays.copyOf(result, count);
+    }
+
+    private long[] _readPackedVLongs(boolean zigzag) throws IOException
+    {
+        final int max = _currentEndOffset - _inputPtr;
+        long[] result = new long[Math.min(max, 1024)];
+        int count = 0;
+        while (_inputPtr < _currentEndOffset) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, Math.min(max, count << 1));
+            }
+            long v = _decodeVLong();
+            result[count++] = zigzag ? ProtobufUtil.zigzagDecode(v) : v;
+        }
+        return (count == result.length) ? result : Arrays.copyOf(result, count);
+    }
+
+    // Variant of '_readPackedVInts()' that widens values of 32-bit types as they are decoded
+    private long[] _readPackedVIntsAsLongs(boolean zigzag) throws IOException
+    {
+        final int max = _currentEndOffset - _inputPtr;
+        long[] result = new long[Math.min(max, 1024)];
+        int count = 0;
+        while (_inputPtr < _currentEndOffset) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, Math.min(max, count << 1));
+            }
+            int v = _decodeVInt();
+            result[count++] = zigzag ? ProtobufUtil.zigzagDecode(v) : v;
+        }
+        return (count == result.length) ? result : Arrays.copyOf(result, count);
+    }
+
+    private void _readPackedFixed32(int[] result) throws IOException
+    {
+        final int count = result.length;
+        int i = 0;
+        while (i < count) {
+            int ptr = _inputPtr;
+            // decode all values fully contained in the input buffer in one go
+            final int end = i + Math.min(count - i, (_inputEnd - ptr) >> 2);
+            if (end == i) { // value split across buffer boundary
+                result[i++] = _slow32();
+                continue;
+            }
+            final byte[] b = _inputBuffer;
+            for (; i < end; ++i, ptr += 4) {
+                result[i] = _fixed32(b, ptr);
+            }
+            _inputPtr = ptr;
+        }
+    }
+
+    private void _readPackedFixed32(long[] result) throws IOException
+    {
+        final int count = result.length;
+        int i = 0;
+        while (i < count) {
+            int ptr = _inputPtr;
+            final int end = i + Math.min(count - i, (_inputEnd - ptr) >> 2);
+            if (end == i) {
+                result[i++] = _slow32();
+                continue;
+            }
+            final byte[] b = _inputBuffer;
+            for (; i < end; ++i, ptr += 4) {
+                result[i] = _fixed32(b, ptr);
+            }
+            _inputPtr = ptr;
+        }
+    }
+
+    private void _readPackedFixed64(long[] result) throws IOException
+    {
+        final int count = result.length;
+        int i = 0;
+        while (i < count) {
+            int ptr = _inputPtr;
+            final int end = i + Math.min(count - i, (_inputEnd - ptr) >> 3);
+            if (end == i) {
+                result[i++] = _slow64();
+                continue;
+            }
+            final byte[] b = _inputBuffer;
+            for (; i < end; ++i, ptr += 8) {
+                result[i] = _long(_fixed32(b, ptr), _fixed32(b, ptr+4));
+            }
+            _inputPtr = ptr;
+        }
+    }
+
+    private void _readPackedFloats(float[] result) throws IOException
+    {
+        final int count = result.length;
+        int i = 0;
+        while (i < count) {
+            int ptr = _inputPtr;
+            final int end = i + Math.min(count - i, (_inputEnd - ptr) >> 2);
+            if (end == i) {
+                result[i++] = Float.intBitsToFloat(_slow32());
+                continue;
+            }
+            final byte[] b = _inputBuffer;
+            for (; i < end; ++i, ptr += 4) {
+                result[i] = Float.intBitsToFloat(_fixed32(b, ptr));
+            }
+            _inputPtr = ptr;
+        }
+    }
+
+    private void _readPackedFloats(double[] result) throws IOException
+    {
+        final int count = result.length;
+        int i = 0;
+        while (i < count) {
+            int ptr = _inputPtr;
+            final int end = i + Math.min(count - i, (_inputEnd - ptr) >> 2);
+            if (end == i) {
+                result[i++] = Float.intBitsToFloat(_slow32());
+                continue;
+            }
+            final byte[] b = _inputBuffer;
+            for (; i < end; ++i, ptr += 4) {
+                result[i] = Float.intBitsToFloat(_fixed32(b, ptr));
+            }
+            _inputPtr = ptr;
+        }
+    }
+
+    private void _readPackedDoubles(double[] result) throws IOException
+    {
+        final int count = result.length;
+        int i = 0;
+        while (i < count) {
+            int ptr = _inputPtr;
+            final int end = i + Math.min(count - i, (_inputEnd - ptr) >> 3);
+            if (end == i) {
+                result[i++] = Double.longBitsToDouble(_slow64());
+                continue;
+            }
+            final byte[] b = _inputBuffer;
+            for (; i < end; ++i, ptr += 8) {
+                result[i] = Double.longBitsToDouble(_long(_fixed32(b, ptr), _fixed32(b, ptr+4)));
+            }
+            _inputPtr = ptr;
+        }
+    }
+
+    private final static int _fixed32(byte[] b, int ptr) {
+        return (b[ptr] & 0xFF) | ((b[ptr+1] & 0xFF) << 8)
+                | ((b[ptr+2] & 0xFF) << 16) | (b[ptr+3] << 24);
+    }
+
+    /**
+     * Helper method called after all values of a packed array have been read
+     */
+    private void _endPackedArray() throws IOException
+    {
+        _numTypesValid = NR_UNKNOWN;
+        // will also pop context, reset state
+        if (!_checkEnd()) {
+            VersionUtil.throwInternal();
+        }
+        _currToken = JsonToken.END_ARRAY;
+    }
+
     /*
     /**********************************************************
     /* Helper methods, decoding
@@ -2331,6 +3365,21 @@ public class ProtobufParser extends ParserMinimalBase
         _reportError(String.format(format, args));
     }
 
+    /**
+     * Helper method for verifying that wire type is valid for given field:
+     * besides the standard wire type, Message fields may be encoded as groups.
+     */
+    private final void _verifyWireType(ProtobufField field, int wireType) throws JsonParseException
+    {
+        if (field.isValidFor(wireType)) {
+            _groupStart = false;
+        } else if (field.isObject && (wireType == WireType.GROUP_START)) {
+            _groupStart = true;
+        } else {
+            _reportIncompatibleType(field, wireType);
+        }
+    }
+
     private void _reportIncompatibleType(ProtobufField field, int wireType) throws JsonParseException
     {
         _reportErrorF
@@ -34,6 +34,14 @@ public final class ProtobufReadContext
      * by this context (if message context) ends.
      */
     protected int _endOffset;
+
+    /**
+     * Whether this (Object) context is for a Message encoded as a group,
+     * that is, ends with end-group tag instead of at end offset.
+     *
+     * @since 2.7.10
+     */
+    protected boolean _group;
     
     /*
     /**********************************************************
@@ -67,6 +75,7 @@ public final class ProtobufReadContext
         _index = -1;
         _currentName = null;
         _endOffset = endOffset;
+        _group = false;
     }
 
     // // // Factory methods
@@ -94,7 +103,7 @@ public final class ProtobufReadContext
         ProtobufReadContext ctxt = _child;
         if (ctxt == null) {
             _child = ctxt = new ProtobufReadContext(this, _messageType,
-                    TYPE_ARRAY, 0);
+                    TYPE_ARRAY, endOffset);
         } else {
             ctxt.reset(_messageType, TYPE_ARRAY, endOffset);
         }
@@ -116,6 +125,21 @@ public final class ProtobufReadContext
         return ctxt;
     }
 
+    /**
+     * Factory method for constructing context for a nested Message encoded
+     * as a group: end offset is that of the enclosing Message, as group
+     * can not extend past it.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufReadContext createChildGroupContext(ProtobufMessage messageType,
+            ProtobufField f, int endOffset)
+    {
+        ProtobufReadContext ctxt = createChildObjectContext(messageType, f, endOffset);
+        ctxt._group = true;
+        return ctxt;
+    }
+
     /*
     /**********************************************************
     /* Abstract method implementations
@@ -140,32 +164,39 @@ public final class ProtobufReadContext
      * root context.
      */
     public int adjustEnd(int bytesConsumed) {
-        if (_type == TYPE_ROOT) {
-            return _endOffset;
-        }
-        int newOffset = _endOffset - bytesConsumed;
-
-        _endOffset = newOffset;
-
-        for (ProtobufReadContext ctxt = _parent; ctxt != null; ctxt = ctxt.getParent()) {
+        for (ProtobufReadContext ctxt = this; ctxt != null; ctxt = ctxt.getParent()) {
             ctxt._adjustEnd(bytesConsumed);
         }
-
         // could do sanity check here; but caller should catch it
-        return newOffset;
+        return _endOffset;
     }
 
     private void _adjustEnd(int bytesConsumed) {
-        if (_type != TYPE_ROOT) {
+        // root context only has end offset for length-delimited messages;
+        // and contexts within (arrays, groups) share it
+        if (_endOffset != Integer.MAX_VALUE) {
             _endOffset -= bytesConsumed;
         }
     }
     
     public int getEndOffset() { return _endOffset; }
 
+    /**
+     * Method for assigning end offset of the root context, for length-delimited
+     * messages; {@link Integer#MAX_VALUE} is used to indicate that there is no end.
+     *
+     * @since 2.7.10
+     */
+    public void setEndOffset(int end) { _endOffset = end; }
+
     public ProtobufMessage getMessageType() { return _messageType; }
 
     public ProtobufField getField() { return _field; }
+
+    /**
+     * @since 2.7.10
+     */
+    public boolean isGroup() { return _group; }
     
     public void setMessageType(ProtobufMessage mt) { _messageType = mt; }
     
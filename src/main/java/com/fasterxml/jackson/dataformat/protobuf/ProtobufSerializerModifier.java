@@ -0,0 +1,61 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.util.List;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufFieldName;
+
+/**
+ * {@link BeanSerializerModifier} registered by {@link ProtobufModule}: replaces
+ * names of bean properties with {@link ProtobufFieldName}s, so that
+ * {@link ProtobufGenerator} can resolve fields for names once per message type,
+ * instead of looking up fields by name for every property written.
+ *<p>
+ * Only plain {@link BeanPropertyWriter}s are changed; sub-classes (like
+ * virtual properties) are left as is.
+ *
+ * @since 2.7.10
+ */
+public class ProtobufSerializerModifier extends BeanSerializerModifier
+    implements java.io.Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public List<BeanPropertyWriter> changeProperties(SerializationConfig config,
+            BeanDescription beanDesc, List<BeanPropertyWriter> beanProperties)
+    {
+        for (int i = 0, end = beanProperties.size(); i < end; ++i) {
+            BeanPropertyWriter writer = beanProperties.get(i);
+            if (writer.getClass() == BeanPropertyWriter.class) {
+                beanProperties.set(i, new ResolvingPropertyWriter(writer,
+                        new ProtobufFieldName(writer.getName())));
+            }
+        }
+        return beanProperties;
+    }
+
+    /**
+     * Property writer that uses a {@link ProtobufFieldName} as its name;
+     * also retained if property is renamed (for example, when unwrapped).
+     */
+    protected static class ResolvingPropertyWriter extends BeanPropertyWriter
+    {
+        private static final long serialVersionUID = 1L;
+
+        public ResolvingPropertyWriter(BeanPropertyWriter base, SerializedString name) {
+            super(base, name);
+        }
+
+        @Override
+        protected BeanPropertyWriter _new(PropertyName newName) {
+            BeanPropertyWriter w = super._new(newName);
+            return new ResolvingPropertyWriter(w, new ProtobufFieldName(w.getName()));
+        }
+    }
+}
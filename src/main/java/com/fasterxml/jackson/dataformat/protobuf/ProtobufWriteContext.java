@@ -22,6 +22,14 @@ public class ProtobufWriteContext
      */
     protected ProtobufField _field;
 
+    /**
+     * For Object contexts written as groups: tag (with wire type of
+     * {@link WireType#GROUP_END}) to write after contents; 0 if not a group.
+     *
+     * @since 2.7.10
+     */
+    protected int _endGroupTag;
+
     /**
      * @since 2.5
      */
@@ -56,6 +64,7 @@ public class ProtobufWriteContext
         _type = type;
         _message = msg;
         _field = f;
+        _endGroupTag = 0;
     }
     
     // // // Factory methods
@@ -93,6 +102,18 @@ public class ProtobufWriteContext
         return ctxt;
     }
 
+    /**
+     * Factory method for constructing context for a nested Message written
+     * as a group, delimited by start and end tags instead of length prefix.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufWriteContext createChildGroupContext(ProtobufMessage type, int endGroupTag) {
+        ProtobufWriteContext ctxt = createChildObjectContext(type);
+        ctxt._endGroupTag = endGroupTag;
+        return ctxt;
+    }
+
     /*
     /**********************************************************
     /* Simple accessors, mutators
@@ -129,6 +150,16 @@ public class ProtobufWriteContext
         return _message;
     }
 
+    /**
+     * @return Tag to write at the end of this context, if written as a group;
+     *    0 if not
+     *
+     * @since 2.7.10
+     */
+    public int getEndGroupTag() {
+        return _endGroupTag;
+    }
+
     public boolean notArray() { return _type != TYPE_ARRAY; }
     
     public StringBuilder appendDesc(StringBuilder sb) {
@@ -0,0 +1,257 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.IOContext;
+
+/**
+ * Alternate {@link ProtobufGenerator} implementation that encodes messages
+ * back-to-front. All content of a root-level message is first encoded into
+ * a single (growing) buffer, without length prefixes, recording start and
+ * end offsets of nested messages and packed arrays. Once message is complete,
+ * contents are copied into output buffer in reverse order, from the end:
+ * this way, length of each nested entry is known when its prefix is written,
+ * so neither buffering of nested contents nor calculating sizes in advance
+ * is needed.
+ *<p>
+ * Since nothing is written before the root-level message is complete,
+ * memory usage is proportional to the size of the message.
+ *<p>
+ * Enabled using {@link ProtobufGenerator.Feature#REVERSE_ENCODING}.
+ *
+ * @since 2.7.10
+ */
+public class ReverseProtobufGenerator extends ProtobufGenerator
+{
+    /**
+     * Marker used in place of type tag for ends of entries
+     */
+    protected final static int END_MARKER = -2;
+
+    /**
+     * Type tag used for entries without tag (root-level length-delimited messages)
+     */
+    protected final static int NO_TAG = -1;
+
+    /**
+     * Maximum size of output buffer retained for reuse
+     */
+    protected final static int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    /**
+     * Offsets of starts and ends of entries in the current buffer
+     */
+    protected int[] _eventOffsets = new int[32];
+
+    /**
+     * Type tags of entry starts, or {@link #END_MARKER} for entry ends
+     */
+    protected int[] _eventTags = new int[32];
+
+    protected int _eventCount;
+
+    /**
+     * Number of currently open entries
+     */
+    protected int _openCount;
+
+    /**
+     * Buffer into which contents are copied, in reverse order of entries
+     */
+    protected byte[] _outputBuffer;
+
+    /**
+     * Stack of offsets of ends of entries, in output buffer
+     */
+    protected int[] _endOffsets = new int[16];
+
+    public ReverseProtobufGenerator(IOContext ctxt, int jsonFeatures, int formatFeatures,
+            ObjectCodec codec, OutputStream output)
+        throws IOException
+    {
+        super(ctxt, jsonFeatures, formatFeatures, codec, output);
+    }
+
+    /**
+     * Sizes are not needed for reverse encoding, so this method does nothing.
+     */
+    @Override
+    public ProtobufGenerator setPrecomputedSizes(PrecomputedSizes sizes) {
+        return this;
+    }
+
+    /*
+    /**********************************************************
+    /* Overridden methods
+    /**********************************************************
+     */
+
+    @Override
+    public void flush() throws IOException
+    {
+        // can only write out content not within a (partial) message
+        if ((_eventCount == 0) && (_currPtr > 0)) {
+            _output.write(_currBuffer, 0, _currPtr);
+            _bytesWritten += _currPtr;
+            _currPtr = 0;
+        }
+        _output.flush();
+    }
+
+    @Override
+    protected void _releaseBuffers()
+    {
+        // buffer may have been grown; only return the original one
+        if (_currBuffer != null) {
+            _currBuffer = _origCurrBuffer;
+        }
+        _outputBuffer = null;
+        super._releaseBuffers();
+    }
+
+    /*
+    /**********************************************************
+    /* Overridden internal methods
+    /**********************************************************
+     */
+
+    @Override
+    protected void _startBuffering(int typedTag) throws IOException {
+        _addEvent(typedTag);
+        ++_openCount;
+    }
+
+    @Override
+    protected void _startBuffering() throws IOException {
+        _addEvent(NO_TAG);
+        ++_openCount;
+    }
+
+    @Override
+    protected void _finishBuffering() throws IOException {
+        _addEvent(END_MARKER);
+        --_openCount;
+    }
+
+    @Override
+    protected boolean _hasOpenEntries() {
+        return (_openCount > 0);
+    }
+
+    /**
+     * Instead of flushing, buffer is grown as necessary
+     */
+    @Override
+    protected void _ensureRoom(int needed) throws IOException
+    {
+        final int len = _currBuffer.length;
+        if ((_currPtr + needed) > len) {
+            _currBuffer = Arrays.copyOf(_currBuffer, Math.max(_currPtr + needed, len + (len >> 1)));
+        }
+    }
+
+    @Override
+    protected void _writeLengthPrefixed(byte[] data, int offset, int len) throws IOException
+    {
+        // up to 5 bytes for tag, 5 for length
+        _ensureRoom(len + 10);
+        super._writeLengthPrefixed(data, offset, len);
+    }
+
+    @Override
+    protected void _complete() throws IOException
+    {
+        _complete = true;
+        // root-level message written length-delimited may still be open
+        while (_openCount > 0) {
+            _finishBuffering();
+        }
+        final int end = _currPtr;
+        if (_eventCount == 0) {
+            if (end > 0) {
+                _output.write(_currBuffer, 0, end);
+                _bytesWritten += end;
+            }
+        } else {
+            _encodeReverse(end);
+            _eventCount = 0;
+        }
+        _currStart = 0;
+        _currPtr = 0;
+    }
+
+    /*
+    /**********************************************************
+    /* Internal methods
+    /**********************************************************
+     */
+
+    private final void _addEvent(int tag)
+    {
+        final int count = _eventCount;
+        if (count == _eventOffsets.length) {
+            _eventOffsets = Arrays.copyOf(_eventOffsets, count << 1);
+            _eventTags = Arrays.copyOf(_eventTags, count << 1);
+        }
+        _eventOffsets[count] = _currPtr;
+        _eventTags[count] = tag;
+        _eventCount = count + 1;
+    }
+
+    protected void _encodeReverse(int end) throws IOException
+    {
+        final byte[] src = _currBuffer;
+        final int[] offsets = _eventOffsets;
+        final int[] tags = _eventTags;
+
+        // each entry adds up to 5 bytes for tag, 5 for length
+        final int maxLen = end + 10 * _eventCount;
+        byte[] out = _outputBuffer;
+        if ((out == null) || (out.length < maxLen)) {
+            out = new byte[maxLen];
+            _outputBuffer = (maxLen <= MAX_RETAINED_BUFFER) ? out : null;
+        }
+        int head = out.length;
+        int srcEnd = end;
+        int depth = 0;
+
+        for (int i = _eventCount; --i >= 0; ) {
+            final int offset = offsets[i];
+            final int len = srcEnd - offset;
+            if (len > 0) {
+                head -= len;
+                System.arraycopy(src, offset, out, head, len);
+            }
+            srcEnd = offset;
+            final int tag = tags[i];
+            if (tag == END_MARKER) {
+                if (depth == _endOffsets.length) {
+                    _endOffsets = Arrays.copyOf(_endOffsets, depth << 1);
+                }
+                _endOffsets[depth++] = head;
+            } else {
+                head = _prependVInt(out, head, _endOffsets[--depth] - head);
+                if (tag != NO_TAG) {
+                    head = _prependVInt(out, head, tag);
+                }
+            }
+        }
+        if (srcEnd > 0) {
+            head -= srcEnd;
+            System.arraycopy(src, 0, out, head, srcEnd);
+        }
+        final int total = out.length - head;
+        _output.write(out, head, total);
+        _bytesWritten += total;
+    }
+
+    private final static int _prependVInt(byte[] buf, int head, int value)
+    {
+        head -= ProtobufUtil.lengthLength(value);
+        ProtobufUtil.appendLengthLength(value, buf, head);
+        return head;
+    }
+}
@@ -0,0 +1,214 @@
+package com.fasterxml.jackson.dataformat.protobuf.schema;
+
+import java.io.*;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link ProtobufSchemaLoader} that caches {@link NativeProtobufSchema}s it
+ * has loaded, to avoid reading and parsing same protoc definitions again.
+ * Since native schemas in turn cache {@link ProtobufSchema}s constructed
+ * for root types, repeated loads of same definition with same root type
+ * return same schema instance.
+ *<p>
+ * Entries are keyed by source:
+ *<ul>
+ * <li>Files by absolute path, along with last-modified timestamp and length,
+ *   so that changed files are reloaded
+ *  </li>
+ * <li>URLs by external form: content is assumed not to change (if it may,
+ *   {@link #clear} may be called)
+ *  </li>
+ * <li>Definitions given as text (as well as those read from streams and readers)
+ *   by SHA-256 hash of text, so that text itself need not be retained
+ *  </li>
+ *</ul>
+ * At most specified number of entries are retained, evicting least recently
+ * used entries first.
+ *<p>
+ * Instances are thread-safe and may be shared; loading and parsing is done
+ * without holding a lock, so concurrent loads of a definition not yet
+ * cached may both parse it.
+ * Instance may be used with {@link com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper}
+ * by calling its <code>setSchemaLoader</code> method.
+ *
+ * @since 2.7.10
+ */
+public class CachingProtobufSchemaLoader extends ProtobufSchemaLoader
+{
+    private static final long serialVersionUID = 1L;
+
+    public final static int DEFAULT_MAX_ENTRIES = 100;
+
+    protected final int _maxEntries;
+
+    protected final transient Map<String,NativeProtobufSchema> _cache;
+
+    protected transient long _hitCount, _missCount;
+
+    public CachingProtobufSchemaLoader() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public CachingProtobufSchemaLoader(int maxEntries)
+    {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Invalid maximum number of entries ("+maxEntries+"): must be positive");
+        }
+        _maxEntries = maxEntries;
+        _cache = new LinkedHashMap<String,NativeProtobufSchema>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,NativeProtobufSchema> eldest) {
+                return size() > _maxEntries;
+            }
+        };
+    }
+
+    // Cache is not serialized, need to recreate
+    protected Object readResolve() {
+        return new CachingProtobufSchemaLoader(_maxEntries);
+    }
+
+    /*
+    /**********************************************************
+    /* Cache access
+    /**********************************************************
+     */
+
+    /**
+     * @return Number of loads for which cached native schema was used
+     */
+    public synchronized long getHitCount() {
+        return _hitCount;
+    }
+
+    /**
+     * @return Number of loads for which definition had to be read and parsed
+     */
+    public synchronized long getMissCount() {
+        return _missCount;
+    }
+
+    /**
+     * @return Number of native schemas currently cached
+     */
+    public synchronized int size() {
+        return _cache.size();
+    }
+
+    /**
+     * Method for removing all cached entries (but not resetting statistics)
+     */
+    public synchronized void clear() {
+        _cache.clear();
+    }
+
+    /*
+    /**********************************************************
+    /* Overridden loading of native schema instances
+    /**********************************************************
+     */
+
+    @Override
+    public NativeProtobufSchema loadNative(File f) throws IOException
+    {
+        File abs = f.getAbsoluteFile();
+        String key = "file:"+abs.getPath()+"@"+abs.lastModified()+"/"+abs.length();
+        NativeProtobufSchema schema = _find(key);
+        if (schema == null) {
+            schema = _add(key, super.loadNative(abs));
+        }
+        return schema;
+    }
+
+    @Override
+    public NativeProtobufSchema loadNative(URL url) throws IOException
+    {
+        String key = "url:"+url.toExternalForm();
+        NativeProtobufSchema schema = _find(key);
+        if (schema == null) {
+            schema = _add(key, super.loadNative(url));
+        }
+        return schema;
+    }
+
+    @Override
+    public NativeProtobufSchema parseNative(String schemaAsString) throws IOException
+    {
+        String key = "text:"+_hash(schemaAsString);
+        NativeProtobufSchema schema = _find(key);
+        if (schema == null) {
+            schema = _add(key, super.parseNative(schemaAsString));
+        }
+        return schema;
+    }
+
+    @Override
+    public NativeProtobufSchema loadNative(InputStream in, boolean close) throws IOException {
+        return loadNative(new InputStreamReader(in, "UTF-8"), close);
+    }
+
+    @Override
+    protected NativeProtobufSchema loadNative(Reader r, boolean close) throws IOException
+    {
+        String text;
+        try {
+            text = _readAll(r);
+        } finally {
+            if (close) {
+                try { r.close(); } catch (IOException e) { }
+            }
+        }
+        return parseNative(text);
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    protected synchronized NativeProtobufSchema _find(String key)
+    {
+        NativeProtobufSchema schema = _cache.get(key);
+        if (schema == null) {
+            ++_missCount;
+        } else {
+            ++_hitCount;
+        }
+        return schema;
+    }
+
+    protected synchronized NativeProtobufSchema _add(String key, NativeProtobufSchema schema)
+    {
+        // if another thread got there first, use its instance, to keep root type caching shared
+        NativeProtobufSchema old = _cache.get(key);
+        if (old != null) {
+            return old;
+        }
+        _cache.put(key, schema);
+        return schema;
+    }
+
+    protected String _hash(String text) throws IOException
+    {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) { // should never occur, always supported
+            throw new IOException(e.getMessage(), e);
+        }
+        byte[] digest = md.digest(text.getBytes("UTF-8"));
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
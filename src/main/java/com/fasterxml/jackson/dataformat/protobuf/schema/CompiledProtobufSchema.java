@@ -0,0 +1,345 @@
+package com.fasterxml.jackson.dataformat.protobuf.schema;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Helper class for writing resolved {@link ProtobufSchema}s in a compact
+ * binary ("compiled") format, and for reading them back. Reading constructs
+ * {@link ProtobufMessage}s and {@link ProtobufField}s directly, without
+ * parsing protoc definitions or resolving types, so it is much faster than
+ * loading schema from source; compiled schemas may be produced at build time
+ * and loaded at startup.
+ *<p>
+ * Compiled format contains message type graph reachable from root type
+ * (including projections, if any), but not the native definition; so schemas
+ * read do not support {@link ProtobufSchema#withRootType} for other types.
+ * Format is versioned, and only meant to be read by same version of this
+ * module that wrote it.
+ *
+ * @since 2.7.10
+ */
+public class CompiledProtobufSchema
+{
+    /**
+     * Marker bytes ("JPBS") at start of compiled schemas
+     */
+    protected final static int MAGIC = 0x4A504253;
+
+    protected final static int FORMAT_VERSION = 1;
+
+    private final static int F_REQUIRED = 0x01;
+    private final static int F_REPEATED = 0x02;
+    private final static int F_PACKED = 0x04;
+    private final static int F_DEPRECATED = 0x08;
+
+    private CompiledProtobufSchema() { }
+
+    /*
+    /**********************************************************
+    /* Writing
+    /**********************************************************
+     */
+
+    /**
+     * Method for writing given schema in compiled format into given stream;
+     * stream is not closed.
+     */
+    public static void write(ProtobufSchema schema, OutputStream out) throws IOException
+    {
+        // First: find all types, message types in breadth-first order, root type first
+        Map<ProtobufMessage,Integer> msgIndexes = new IdentityHashMap<ProtobufMessage,Integer>();
+        Map<ProtobufEnum,Integer> enumIndexes = new IdentityHashMap<ProtobufEnum,Integer>();
+        List<ProtobufMessage> msgs = new ArrayList<ProtobufMessage>();
+        List<ProtobufEnum> enums = new ArrayList<ProtobufEnum>();
+        _addMessage(schema.getRootType(), msgIndexes, msgs);
+        for (int i = 0; i < msgs.size(); ++i) {
+            ProtobufMessage msg = msgs.get(i);
+            if (msg._projectedFrom != null) {
+                _addMessage(msg._projectedFrom, msgIndexes, msgs);
+            }
+            for (ProtobufField f : msg._fields) {
+                if (f.getMessageType() != null) {
+                    _addMessage(f.getMessageType(), msgIndexes, msgs);
+                }
+                ProtobufEnum et = f.getEnumType();
+                if ((et != null) && !enumIndexes.containsKey(et)) {
+                    enumIndexes.put(et, enums.size());
+                    enums.add(et);
+                }
+            }
+        }
+
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        dout.writeByte(FORMAT_VERSION);
+
+        dout.writeInt(enums.size());
+        for (ProtobufEnum et : enums) {
+            dout.writeUTF(et._name);
+            dout.writeBoolean(et.usesStandardIndexing());
+            Map<String,Integer> values = et.valueMapping();
+            dout.writeInt(values.size());
+            for (Map.Entry<String,Integer> entry : values.entrySet()) {
+                dout.writeUTF(entry.getKey());
+                dout.writeInt(entry.getValue().intValue());
+            }
+        }
+
+        dout.writeInt(msgs.size());
+        for (ProtobufMessage msg : msgs) {
+            dout.writeUTF(msg.getName());
+            dout.writeInt((msg._projectedFrom == null) ? -1 : msgIndexes.get(msg._projectedFrom));
+            final ProtobufField[] fields = msg._fields;
+            dout.writeInt(fields.length);
+            int firstIndex = -1;
+            for (int i = 0; i < fields.length; ++i) {
+                if (fields[i] == msg.firstField()) {
+                    firstIndex = i;
+                }
+            }
+            dout.writeInt(firstIndex);
+            for (ProtobufField f : fields) {
+                dout.writeUTF(f.name);
+                dout.writeInt(f.id);
+                dout.writeUTF(f.type.name());
+                int flags = 0;
+                if (f.required) {
+                    flags |= F_REQUIRED;
+                }
+                if (f.repeated) {
+                    flags |= F_REPEATED;
+                }
+                if (f.packed) {
+                    flags |= F_PACKED;
+                }
+                if (f.deprecated) {
+                    flags |= F_DEPRECATED;
+                }
+                dout.writeByte(flags);
+                if (f.type == FieldType.MESSAGE) {
+                    dout.writeInt(msgIndexes.get(f.getMessageType()));
+                } else if (f.type == FieldType.ENUM) {
+                    dout.writeInt(enumIndexes.get(f.getEnumType()));
+                }
+            }
+        }
+        dout.flush();
+    }
+
+    /**
+     * Convenience method for writing given schema in compiled format as
+     * a byte array.
+     */
+    public static byte[] writeAsBytes(ProtobufSchema schema) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1000);
+        write(schema, bytes);
+        return bytes.toByteArray();
+    }
+
+    private static void _addMessage(ProtobufMessage msg,
+            Map<ProtobufMessage,Integer> indexes, List<ProtobufMessage> msgs)
+    {
+        if (!indexes.containsKey(msg)) {
+            indexes.put(msg, msgs.size());
+            msgs.add(msg);
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Reading
+    /**********************************************************
+     */
+
+    /**
+     * Method for reading a schema written using {@link #write}; stream is not
+     * closed.
+     *
+     * @throws IOException If content is not a valid compiled schema of
+     *    supported version, or if reading fails
+     */
+    public static ProtobufSchema read(InputStream in) throws IOException
+    {
+        DataInputStream din = new DataInputStream(in);
+        int magic = din.readInt();
+        if (magic != MAGIC) {
+            throw new IOException(String.format(
+                    "Invalid compiled protobuf schema: unrecognized header 0x%08X", magic));
+        }
+        int version = din.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported compiled protobuf schema version "+version
+                    +" (only version "+FORMAT_VERSION+" supported)");
+        }
+
+        final ProtobufEnum[] enums = new ProtobufEnum[_readCount(din)];
+        for (int i = 0; i < enums.length; ++i) {
+            String name = din.readUTF();
+            boolean std = din.readBoolean();
+            int count = _readCount(din);
+            Map<String,Integer> values = new LinkedHashMap<String,Integer>();
+            for (int j = 0; j < count; ++j) {
+                String valueName = din.readUTF();
+                values.put(valueName, din.readInt());
+            }
+            enums[i] = new ProtobufEnum(name, values, std);
+        }
+
+        // Since message types may refer to each other (and themselves), need to
+        // read all definitions and construct all instances first, and only then fields
+        final int msgCount = _readCount(din);
+        if (msgCount == 0) {
+            throw new IOException("Invalid compiled protobuf schema: no message types");
+        }
+        final String[] names = new String[msgCount];
+        final int[] projectedFrom = new int[msgCount];
+        final int[] firstFields = new int[msgCount];
+        final FieldDef[][] fieldDefs = new FieldDef[msgCount][];
+        for (int i = 0; i < msgCount; ++i) {
+            names[i] = din.readUTF();
+            projectedFrom[i] = din.readInt();
+            if ((projectedFrom[i] < -1) || (projectedFrom[i] >= msgCount)) {
+                throw new IOException("Invalid compiled protobuf schema: invalid projection of message type '"
+                        +names[i]+"'");
+            }
+            FieldDef[] defs = new FieldDef[_readCount(din)];
+            firstFields[i] = din.readInt();
+            if (firstFields[i] >= defs.length) {
+                throw new IOException("Invalid compiled protobuf schema: first field index "
+                        +firstFields[i]+" out of bounds");
+            }
+            for (int j = 0; j < defs.length; ++j) {
+                defs[j] = FieldDef.read(din, enums.length, msgCount);
+            }
+            fieldDefs[i] = defs;
+        }
+        final ProtobufMessage[] msgs = new ProtobufMessage[msgCount];
+        for (int i = 0; i < msgCount; ++i) {
+            _constructMessage(i, names, projectedFrom, fieldDefs, msgs, 0);
+        }
+        for (int i = 0; i < msgCount; ++i) {
+            _initMessage(msgs[i], fieldDefs[i], firstFields[i], msgs, enums);
+        }
+        return new ProtobufSchema(null, msgs[0]);
+    }
+
+    /**
+     * Convenience method for reading a schema written using {@link #write}
+     * from given byte array.
+     */
+    public static ProtobufSchema read(byte[] compiled) throws IOException {
+        return read(new ByteArrayInputStream(compiled));
+    }
+
+    private static void _constructMessage(int index, String[] names, int[] projectedFrom,
+            FieldDef[][] fieldDefs, ProtobufMessage[] msgs, int depth) throws IOException
+    {
+        if (msgs[index] != null) {
+            return;
+        }
+        // projected types refer to types they were projected from, so construct those first
+        ProtobufMessage from = null;
+        int fromIndex = projectedFrom[index];
+        if (fromIndex >= 0) {
+            if (depth >= msgs.length) { // cyclic projections, can not be valid
+                throw new IOException("Invalid compiled protobuf schema: invalid projection of message type '"
+                        +names[index]+"'");
+            }
+            _constructMessage(fromIndex, names, projectedFrom, fieldDefs, msgs, depth+1);
+            from = msgs[fromIndex];
+        }
+        msgs[index] = new ProtobufMessage(names[index],
+                new ProtobufField[fieldDefs[index].length], from);
+    }
+
+    private static void _initMessage(ProtobufMessage msg, FieldDef[] defs, int firstIndex,
+            ProtobufMessage[] msgs, ProtobufEnum[] enums) throws IOException
+    {
+        final ProtobufField[] fields = msg._fields;
+        for (int i = 0; i < fields.length; ++i) {
+            FieldDef def = defs[i];
+            fields[i] = new ProtobufField(def.name, def.id, def.type,
+                    (def.flags & F_REQUIRED) != 0, (def.flags & F_REPEATED) != 0,
+                    (def.flags & F_PACKED) != 0, (def.flags & F_DEPRECATED) != 0,
+                    (def.type == FieldType.MESSAGE) ? msgs[def.typeIndex] : null,
+                    (def.type == FieldType.ENUM) ? enums[def.typeIndex] : null);
+            if (i > 0) {
+                if (fields[i-1].id >= def.id) {
+                    throw new IOException("Invalid compiled protobuf schema: fields of message type '"
+                            +msg.getName()+"' not in increasing id order");
+                }
+                fields[i-1].assignNext(fields[i]);
+            }
+        }
+        msg.init((firstIndex < 0) ? null : fields[firstIndex]);
+    }
+
+    private static int _readCount(DataInputStream din) throws IOException
+    {
+        int count = din.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid compiled protobuf schema: negative count ("+count+")");
+        }
+        return count;
+    }
+
+    private static int _readIndex(DataInputStream din, int count, String desc) throws IOException
+    {
+        int index = din.readInt();
+        if ((index < 0) || (index >= count)) {
+            throw new IOException("Invalid compiled protobuf schema: "+desc+" index "
+                    +index+" out of bounds (0 - "+(count-1)+")");
+        }
+        return index;
+    }
+
+    /**
+     * Field definition read from compiled schema, before message types
+     * (and so fields) can be constructed.
+     */
+    private final static class FieldDef
+    {
+        public final String name;
+        public final int id;
+        public final FieldType type;
+        public final int flags;
+
+        /**
+         * Index of message or enum type, for fields of those types
+         */
+        public final int typeIndex;
+
+        private FieldDef(String name, int id, FieldType type, int flags, int typeIndex) {
+            this.name = name;
+            this.id = id;
+            this.type = type;
+            this.flags = flags;
+            this.typeIndex = typeIndex;
+        }
+
+        public static FieldDef read(DataInputStream din, int enumCount, int msgCount)
+            throws IOException
+        {
+            String name = din.readUTF();
+            int id = din.readInt();
+            String typeName = din.readUTF();
+            FieldType type;
+            try {
+                type = FieldType.valueOf(typeName);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid compiled protobuf schema: unknown field type '"
+                        +typeName+"'");
+            }
+            int flags = din.readUnsignedByte();
+            int typeIndex = -1;
+            if (type == FieldType.MESSAGE) {
+                typeIndex = _readIndex(din, msgCount, "message type");
+            } else if (type == FieldType.ENUM) {
+                typeIndex = _readIndex(din, enumCount, "enum type");
+            }
+            return new FieldDef(name, id, type, flags, typeIndex);
+        }
+    }
+}
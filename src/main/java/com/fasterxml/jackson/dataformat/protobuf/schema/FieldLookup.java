@@ -1,5 +1,6 @@
 package com.fasterxml.jackson.dataformat.protobuf.schema;
 
+import java.nio.charset.Charset;
 import java.util.*;
 
 /**
@@ -26,12 +27,25 @@ public abstract class FieldLookup
         case 3:
             return new Small3(fields[0], fields[1], fields[2]);
         }
-        // General-purpose "big" one needed:
-        return Big.construct(fields);
+        // General-purpose "big" one needed: collision-free if possible
+        FieldLookup lookup = Hashed.construct(fields);
+        return (lookup == null) ? Big.construct(fields) : lookup;
     }
 
     public abstract ProtobufField findField(String key);
 
+    /**
+     * Method for finding field with name given as UTF-8 encoded bytes.
+     * Default implementation simply decodes name and calls {@link #findField(String)}.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufField findField(byte[] utf8, int offset, int len) {
+        return findField(new String(utf8, offset, len, UTF8));
+    }
+
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
     static class Empty extends FieldLookup {
         public final static Empty instance = new Empty();
 
@@ -137,6 +151,160 @@ public abstract class FieldLookup
         }
     }
     
+    /**
+     * Collision-free lookup using cuckoo hashing: each key is located in one of
+     * two slots, determined by two hash functions (derived from
+     * {@link String#hashCode}), so that lookup needs at most two comparisons,
+     * and never a scan. Constructed with hash table at most half full; if
+     * placement fails, different seeds and bigger table sizes are tried.
+     *<p>
+     * Since field names are usually ASCII identifiers, hash code of a name can
+     * also be calculated directly from its UTF-8 bytes, allowing lookups without
+     * decoding names.
+     *
+     * @since 2.7.10
+     */
+    final static class Hashed extends FieldLookup
+    {
+        private final static int MAX_SEED_TRIES = 8;
+
+        private final static int MAX_SIZE_INCREASES = 3;
+
+        private final int _shift, _seed1, _seed2;
+
+        private final String[] _keys;
+        private final byte[][] _utf8Keys;
+        private final ProtobufField[] _fields;
+
+        private Hashed(int shift, int seed1, int seed2, ProtobufField[] fields)
+        {
+            _shift = shift;
+            _seed1 = seed1;
+            _seed2 = seed2;
+            _fields = fields;
+            final int size = fields.length;
+            _keys = new String[size];
+            _utf8Keys = new byte[size][];
+            for (int i = 0; i < size; ++i) {
+                ProtobufField f = fields[i];
+                if (f != null) {
+                    _keys[i] = f.name;
+                    _utf8Keys[i] = f.name.getBytes(UTF8);
+                }
+            }
+        }
+
+        /**
+         * @return Lookup constructed, if successful; null if keys could not be
+         *    placed (for example, due to hash codes of 3 or more keys being same)
+         */
+        public static Hashed construct(ProtobufField[] allFields)
+        {
+            int bits = 3;
+            while ((1 << bits) < (allFields.length << 1)) {
+                ++bits;
+            }
+            int seed = 0;
+            for (int i = 0; i <= MAX_SIZE_INCREASES; ++i, ++bits) {
+                final int shift = 32 - bits;
+                for (int j = 0; j < MAX_SEED_TRIES; ++j) {
+                    seed += 0x61C88647;
+                    final int seed2 = ~seed * 0x2C1B3C6D;
+                    ProtobufField[] table = _place(allFields, 1 << bits, shift, seed, seed2);
+                    if (table != null) {
+                        return new Hashed(shift, seed, seed2, table);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static ProtobufField[] _place(ProtobufField[] allFields, int size,
+                int shift, int seed1, int seed2)
+        {
+            ProtobufField[] table = new ProtobufField[size];
+            final int maxKicks = size;
+            for (ProtobufField field : allFields) {
+                ProtobufField curr = field;
+                int slot = _slot(curr.name.hashCode(), seed1, shift);
+                for (int kicks = 0; ; ++kicks) {
+                    ProtobufField old = table[slot];
+                    table[slot] = curr;
+                    if (old == null) {
+                        break;
+                    }
+                    if (kicks == maxKicks) {
+                        return null;
+                    }
+                    // evicted key goes to its alternate slot
+                    curr = old;
+                    int h = curr.name.hashCode();
+                    int slot1 = _slot(h, seed1, shift);
+                    slot = (slot == slot1) ? _slot(h, seed2, shift) : slot1;
+                }
+            }
+            return table;
+        }
+
+        private final static int _slot(int hash, int seed, int shift) {
+            return ((hash ^ seed) * 0x9E3779B1) >>> shift;
+        }
+
+        @Override
+        public ProtobufField findField(String key)
+        {
+            final int h = key.hashCode();
+            int slot = _slot(h, _seed1, _shift);
+            String match = _keys[slot];
+            if ((match == key) || key.equals(match)) {
+                return _fields[slot];
+            }
+            slot = _slot(h, _seed2, _shift);
+            match = _keys[slot];
+            if ((match == key) || key.equals(match)) {
+                return _fields[slot];
+            }
+            return null;
+        }
+
+        @Override
+        public ProtobufField findField(byte[] utf8, int offset, int len)
+        {
+            // Same as String.hashCode(), as long as all characters are ASCII
+            int h = 0;
+            final int end = offset + len;
+            for (int i = offset; i < end; ++i) {
+                int b = utf8[i];
+                if (b < 0) { // not ASCII, need to decode
+                    return super.findField(utf8, offset, len);
+                }
+                h = (31 * h) + b;
+            }
+            int slot = _slot(h, _seed1, _shift);
+            if (_equals(_utf8Keys[slot], utf8, offset, len)) {
+                return _fields[slot];
+            }
+            slot = _slot(h, _seed2, _shift);
+            if (_equals(_utf8Keys[slot], utf8, offset, len)) {
+                return _fields[slot];
+            }
+            return null;
+        }
+
+        private final static boolean _equals(byte[] key, byte[] utf8, int offset, int len)
+        {
+            if ((key == null) || (key.length != len)) {
+                return false;
+            }
+            for (int i = 0; i < len; ++i) {
+                if (key[i] != utf8[offset+i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     /**
      * Raw mapping from keys to indices, optimized for fast access via
      * better memory efficiency. Hash area divide in three; main hash,
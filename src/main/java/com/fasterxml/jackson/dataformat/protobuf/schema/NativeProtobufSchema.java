@@ -15,8 +15,31 @@ public class NativeProtobufSchema
     protected final String _name;
     protected final Collection<TypeElement> _nativeTypes;
 
+    /**
+     * Message types by name, for fast lookups; if there are multiple
+     * types with same name, first one is included.
+     *
+     * @since 2.7.10
+     */
+    protected final Map<String,MessageElement> _messageTypesByName;
+
+    /**
+     * @since 2.7.10
+     */
+    protected final MessageElement _firstMessageType;
+
     protected volatile String[] _messageNames;
-    
+
+    /**
+     * Schemas constructed so far, by name of root type, to avoid re-resolving
+     * message graphs: replaced (not modified) when a new schema is added,
+     * so that reads need no locking.
+     *
+     * @since 2.7.10
+     */
+    protected volatile Map<String,ProtobufSchema> _schemasByRootType
+        = Collections.emptyMap();
+
     protected NativeProtobufSchema(ProtoFile input)
     {
         this(input.filePath(), input.typeElements());
@@ -26,6 +49,20 @@ public class NativeProtobufSchema
     {
         _name = name;
         _nativeTypes = types;
+        Map<String,MessageElement> byName = new HashMap<String,MessageElement>();
+        MessageElement first = null;
+        for (TypeElement type : types) {
+            if (type instanceof MessageElement) {
+                if (first == null) {
+                    first = (MessageElement) type;
+                }
+                if (!byName.containsKey(type.name())) {
+                    byName.put(type.name(), (MessageElement) type);
+                }
+            }
+        }
+        _messageTypesByName = byName;
+        _firstMessageType = first;
     }
     
     public static NativeProtobufSchema construct(ProtoFile input) {
@@ -42,19 +79,13 @@ public class NativeProtobufSchema
      */
     public boolean hasMessageType(String messageTypeName)
     {
-        for (TypeElement type : _nativeTypes) {
-            if (messageTypeName.equals(type.name())) {
-                if (type instanceof MessageElement) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return _messageTypesByName.containsKey(messageTypeName);
     }
     
     /**
      * Factory method for constructing Jackson-digestible schema using specified Message type
-     * from native protobuf schema.
+     * from native protobuf schema. Resolved schemas are cached, so calls for same
+     * type return the same (immutable) instance.
      */
     public ProtobufSchema forType(String messageTypeName)
     {
@@ -64,7 +95,7 @@ public class NativeProtobufSchema
                     +"') has no message type with name '"+messageTypeName+"': known types: "
                     +getMessageNames());
         }
-        return new ProtobufSchema(this, TypeResolver.construct(_nativeTypes).resolve(msg));
+        return _schemaFor(msg);
     }
 
     /**
@@ -78,7 +109,7 @@ public class NativeProtobufSchema
             throw new IllegalArgumentException("Protobuf schema definition (name '"+_name
                     +"') contains no message type definitions");
         }
-        return new ProtobufSchema(this, TypeResolver.construct(_nativeTypes).resolve(msg));
+        return _schemaFor(msg);
     }
 
     public List<String> getMessageNames() {
@@ -106,22 +137,35 @@ public class NativeProtobufSchema
      */
     
     protected MessageElement _firstMessageType() {
-        for (TypeElement type : _nativeTypes) {
-            if (type instanceof MessageElement) {
-                return (MessageElement) type;
-            }
-        }
-        return null;
+        return _firstMessageType;
     }
 
     protected MessageElement _messageType(String name) {
-        for (TypeElement type : _nativeTypes) {
-            if ((type instanceof MessageElement)
-                    && name.equals(type.name())) {
-                return (MessageElement) type;
+        return _messageTypesByName.get(name);
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    protected ProtobufSchema _schemaFor(MessageElement msg)
+    {
+        final String name = msg.name();
+        ProtobufSchema schema = _schemasByRootType.get(name);
+        if (schema == null) {
+            // Resolution is side-effect free, so concurrent calls may both resolve
+            // type; one of results will be retained, either is fine to use
+            schema = new ProtobufSchema(this, TypeResolver.construct(_nativeTypes).resolve(msg));
+            synchronized (this) {
+                ProtobufSchema old = _schemasByRootType.get(name);
+                if (old != null) {
+                    return old;
+                }
+                Map<String,ProtobufSchema> schemas = new HashMap<String,ProtobufSchema>(_schemasByRootType);
+                schemas.put(name, schema);
+                _schemasByRootType = schemas;
             }
         }
-        return null;
+        return schema;
     }
 
     private String[] _getMessageNames() {
@@ -19,6 +19,21 @@ public class ProtobufField
      * Combination of numeric tag and 3-bit wire type.
      */
     public final int typedTag;
+
+    /**
+     * Bytes of {@link #typedTag} encoded as VInt, packed in an int with the first
+     * byte in the lowest 8 bits; only used if {@link #typedTagLength} is at most 4.
+     *
+     * @since 2.7.10
+     */
+    public final int typedTagBytes;
+
+    /**
+     * Length of {@link #typedTag} encoded as VInt, in bytes (1 - 5)
+     *
+     * @since 2.7.10
+     */
+    public final int typedTagLength;
     
     /**
      * Name of field in protoc definition
@@ -46,6 +61,14 @@ public class ProtobufField
      */
     protected final EnumLookup enumValues;
 
+    /**
+     * For fields of type {@link FieldType#ENUM}, enum type definition
+     * {@link #enumValues} were constructed from.
+     *
+     * @since 2.7.10
+     */
+    protected final ProtobufEnum enumType;
+
     /**
      * Link to next field within message definition; used for efficient traversal.
      * Due to inverse construction order need to be assigned after construction;
@@ -79,6 +102,7 @@ public class ProtobufField
         this.type = type;
         wireType = type.getWireType();
         usesZigZag = type.usesZigZag();
+        enumType = et;
         if (et == null) {
             enumValues = EnumLookup.empty();
             isStdEnum = false;
@@ -117,6 +141,92 @@ public class ProtobufField
             deprecated = _findBooleanOption(nativeField, "deprecated");
         }
         isObject = (type == FieldType.MESSAGE);
+        typedTagLength = _encodedLength(typedTag);
+        typedTagBytes = _encode(typedTag);
+    }
+
+    /**
+     * Constructor used when reconstructing fields from a compiled schema
+     * (see {@link CompiledProtobufSchema}), without native definition.
+     *
+     * @since 2.7.10
+     */
+    protected ProtobufField(String name, int id, FieldType type,
+            boolean required, boolean repeated, boolean packed, boolean deprecated,
+            ProtobufMessage msg, ProtobufEnum et)
+    {
+        this.name = name;
+        this.id = id;
+        this.type = type;
+        this.required = required;
+        this.repeated = repeated;
+        this.packed = packed;
+        this.deprecated = deprecated;
+        wireType = type.getWireType();
+        usesZigZag = type.usesZigZag();
+        typedTag = (id << 3) + wireType;
+        enumType = et;
+        if (et == null) {
+            enumValues = EnumLookup.empty();
+            isStdEnum = false;
+        } else {
+            enumValues = EnumLookup.construct(et);
+            isStdEnum = et.usesStandardIndexing();
+        }
+        messageType = msg;
+        isObject = (type == FieldType.MESSAGE);
+        typedTagLength = _encodedLength(typedTag);
+        typedTagBytes = _encode(typedTag);
+    }
+
+    /**
+     * Copy constructor used when constructing projected message types: copy
+     * is not linked to the next field.
+     *
+     * @since 2.7.10
+     */
+    protected ProtobufField(ProtobufField src)
+    {
+        id = src.id;
+        typedTag = src.typedTag;
+        typedTagBytes = src.typedTagBytes;
+        typedTagLength = src.typedTagLength;
+        name = src.name;
+        type = src.type;
+        wireType = src.wireType;
+        required = src.required;
+        repeated = src.repeated;
+        packed = src.packed;
+        deprecated = src.deprecated;
+        usesZigZag = src.usesZigZag;
+        messageType = src.messageType;
+        enumValues = src.enumValues;
+        enumType = src.enumType;
+        isObject = src.isObject;
+        isStdEnum = src.isStdEnum;
+    }
+
+    private static int _encodedLength(int tag)
+    {
+        int len = 1;
+        while ((tag & ~0x7F) != 0) {
+            tag >>>= 7;
+            ++len;
+        }
+        return len;
+    }
+
+    private static int _encode(int tag)
+    {
+        int bytes = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            if ((tag & ~0x7F) == 0) {
+                return bytes | (tag << shift);
+            }
+            bytes |= ((tag & 0x7F) | 0x80) << shift;
+            tag >>>= 7;
+        }
+        return 0; // too long to pack
     }
 
     private static boolean _findBooleanOption(FieldElement f, String key)
@@ -151,6 +261,16 @@ public class ProtobufField
         return messageType;
     }
 
+    /**
+     * @return Enum type definition for fields of type {@link FieldType#ENUM};
+     *    null for other fields
+     *
+     * @since 2.7.10
+     */
+    public final ProtobufEnum getEnumType() {
+        return enumType;
+    }
+
     public final ProtobufField nextOrThisIf(int idToMatch) {
         if ((next != null) && (next.id == idToMatch)) {
             return next;
@@ -0,0 +1,99 @@
+package com.fasterxml.jackson.dataformat.protobuf.schema;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * {@link SerializedString} that also remembers {@link ProtobufField} it was
+ * resolved to, along with {@link ProtobufMessage} it was resolved against.
+ * When same instance is used as field name for same message type (as is the
+ * case for property names reused by bean serializers), field is found
+ * with a single identity comparison instead of name lookup; otherwise name
+ * is looked up (and resolution replaced after repeated misses).
+ *<p>
+ * Instances may be shared between threads: resolution is kept in an immutable
+ * holder, so at worst concurrent use just repeats a lookup.
+ *<p>
+ * When writing, names of bean properties are replaced with instances of this
+ * type by {@link com.fasterxml.jackson.dataformat.protobuf.ProtobufSerializerModifier}
+ * (registered by <code>ProtobufModule</code>). When reading, however, bean
+ * deserializers of jackson-databind 2.7 match property names as Strings
+ * (using <code>JsonParser.nextFieldName()</code>), so instances are only used
+ * by code that calls
+ * {@link com.fasterxml.jackson.core.JsonParser#nextFieldName(com.fasterxml.jackson.core.SerializableString)}
+ * directly, like custom deserializers.
+ *
+ * @since 2.7.10
+ */
+public class ProtobufFieldName extends SerializedString
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of resolutions against other message types after which cached
+     * resolution is replaced.
+     */
+    protected final static int MAX_MISSES = 8;
+
+    protected transient Resolved _resolved;
+
+    /**
+     * Number of resolutions against other message types since resolution
+     * was last cached
+     */
+    protected transient int _misses;
+
+    public ProtobufFieldName(String name) {
+        super(name);
+    }
+
+    /**
+     * Method for finding field with this name in given message type;
+     * returns null if there is no such field.
+     *<p>
+     * For message types other than one resolution is cached for, name is
+     * just looked up: cached resolution is only replaced after repeated
+     * misses, so that names used with multiple message types (or schemas
+     * re-created for each use) do not cause churn.
+     */
+    public ProtobufField resolve(ProtobufMessage msg)
+    {
+        Resolved r = _resolved;
+        if ((r != null) && (r.message == msg)) {
+            return r.field;
+        }
+        ProtobufField f = msg.field(getValue());
+        if ((r == null) || (++_misses >= MAX_MISSES)) {
+            _resolved = new Resolved(msg, f);
+            _misses = 0;
+        }
+        return f;
+    }
+
+    /**
+     * Method for checking whether resolution of this name for given message
+     * type is cached, so that {@link #resolve} needs no lookup.
+     */
+    public boolean isResolvedFor(ProtobufMessage msg) {
+        Resolved r = _resolved;
+        return (r != null) && (r.message == msg);
+    }
+
+    /**
+     * Method for checking whether this name matches given field of given
+     * message type: usually just an identity comparison.
+     */
+    public boolean matches(ProtobufMessage msg, ProtobufField field) {
+        return (field != null) && (resolve(msg) == field);
+    }
+
+    protected final static class Resolved
+    {
+        public final ProtobufMessage message;
+        public final ProtobufField field;
+
+        public Resolved(ProtobufMessage m, ProtobufField f) {
+            message = m;
+            field = f;
+        }
+    }
+}
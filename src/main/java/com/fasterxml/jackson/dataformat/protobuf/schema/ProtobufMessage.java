@@ -31,14 +31,43 @@ public class ProtobufMessage
      */
     protected ProtobufField[] _fieldsById;
 
+    /**
+     * For sparse field ids (for which {@link #_fieldsById} would be too big),
+     * ids of fields in an open-addressing hash table; 0 for empty slots.
+     *
+     * @since 2.7.10
+     */
+    protected int[] _idHashKeys;
+
+    /**
+     * Fields matching ids in {@link #_idHashKeys}
+     *
+     * @since 2.7.10
+     */
+    protected ProtobufField[] _idHashFields;
+
     protected ProtobufField _firstField;
 
     protected int _idOffset = -1;
-    
+
+    /**
+     * For projected message types, full message type this type was projected
+     * from: needed to know which fields were excluded.
+     *
+     * @since 2.7.10
+     */
+    protected final ProtobufMessage _projectedFrom;
+
     public ProtobufMessage(String name, ProtobufField[] fields)
+    {
+        this(name, fields, null);
+    }
+
+    protected ProtobufMessage(String name, ProtobufField[] fields, ProtobufMessage projectedFrom)
     {
         _name = name;
         _fields = fields;
+        _projectedFrom = projectedFrom;
     }
 
     /**
@@ -75,16 +104,122 @@ public class ProtobufMessage
                     }
                     _fieldsById[index] = f;
                 }
+            } else {
+                _buildIdHash();
             }
         }
     }
 
+    private void _buildIdHash()
+    {
+        // keep fill rate at most 50%, to keep probe sequences short
+        int size = 8;
+        while (size < (_fields.length << 1)) {
+            size += size;
+        }
+        final int mask = size-1;
+        int[] keys = new int[size];
+        ProtobufField[] fields = new ProtobufField[size];
+        for (ProtobufField f : _fields) {
+            int ix = _idHash(f.id) & mask;
+            while (keys[ix] != 0) {
+                if (keys[ix] == f.id) {
+                    throw new IllegalStateException("Internal error: collision for message of type '"
+                            +_name+"' for id "+f.id);
+                }
+                ix = (ix + 1) & mask;
+            }
+            keys[ix] = f.id;
+            fields[ix] = f;
+        }
+        _idHashKeys = keys;
+        _idHashFields = fields;
+    }
+
+    private final static int _idHash(int id) {
+        int h = id * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
     public static ProtobufMessage bogusMessage(String desc) {
         ProtobufMessage bogus = new ProtobufMessage(desc, NO_FIELDS);
         bogus.init(null);
         return bogus;
     }
 
+    /**
+     * Method for constructing a message type that only contains a subset of fields
+     * of this type, as specified by given field paths. Path is either a name of
+     * a field of this type, in which case field is included as is; or a dot-separated
+     * path like "media.uri", in which case field must be of a message type, and is
+     * included with a message type projected with the rest of the path.
+     *<p>
+     * Fields not included are skipped when reading, regardless of whether
+     * skipping of unknown fields is enabled.
+     *
+     * @throws IllegalArgumentException If a path refers to a field that does not exist,
+     *   or tries to project a field that is not of a message type
+     *
+     * @since 2.7.10
+     */
+    public ProtobufMessage projected(Collection<String> fieldPaths)
+        throws IllegalArgumentException
+    {
+        // map from included field names to sub-paths; null for fields included as is
+        Map<String,List<String>> included = new HashMap<String,List<String>>();
+        for (String path : fieldPaths) {
+            int ix = path.indexOf('.');
+            String name = (ix < 0) ? path : path.substring(0, ix);
+            ProtobufField f = field(name);
+            if (f == null) {
+                throw new IllegalArgumentException("No field '"+name+"' in message type '"
+                        +_name+"' (for path '"+path+"')");
+            }
+            List<String> subPaths = included.get(name);
+            if (ix < 0) {
+                included.put(name, null);
+            } else if ((subPaths != null) || !included.containsKey(name)) {
+                if (f.type != FieldType.MESSAGE) {
+                    throw new IllegalArgumentException("Field '"+name+"' of message type '"
+                            +_name+"' is not of a message type: can not include path '"+path+"'");
+                }
+                if (subPaths == null) {
+                    subPaths = new ArrayList<String>();
+                    included.put(name, subPaths);
+                }
+                subPaths.add(path.substring(ix+1));
+            }
+        }
+        ProtobufField[] fields = new ProtobufField[included.size()];
+        ProtobufField first = null;
+        int count = 0;
+        // note: _fields sorted by id, and so will be projected fields
+        for (ProtobufField f : _fields) {
+            if (!included.containsKey(f.name)) {
+                continue;
+            }
+            ProtobufField copy = new ProtobufField(f);
+            List<String> subPaths = included.get(f.name);
+            if (subPaths != null) {
+                copy.assignMessageType(f.getMessageType().projected(subPaths));
+            }
+            if (f == _firstField) {
+                first = copy;
+            }
+            if (count > 0) {
+                fields[count-1].assignNext(copy);
+            }
+            fields[count++] = copy;
+        }
+        if ((first == null) && (count > 0)) {
+            first = fields[0];
+        }
+        ProtobufMessage msg = new ProtobufMessage(_name, fields,
+                (_projectedFrom == null) ? this : _projectedFrom);
+        msg.init(first);
+        return msg;
+    }
+
     public ProtobufField firstField() { return _firstField; }
 
     public ProtobufField firstIf(String name) {
@@ -104,29 +239,75 @@ public class ProtobufMessage
         return _fieldsByName.findField(name);
     }
 
-    // !!! TODO: optimize?
     public ProtobufField field(int id)
     {
         // Can we just index it?
         int idOffset = _idOffset;
         if (idOffset >= 0) {
-            return _fieldsById[id - idOffset];
+            int index = id - idOffset;
+            if ((index < 0) || (index >= _fieldsById.length)) {
+                return null;
+            }
+            return _fieldsById[index];
+        }
+        // if not, use hash table (unless there are no fields)
+        final int[] keys = _idHashKeys;
+        if (keys == null) {
+            return null;
         }
-        // if not, brute force works
-        for (int i = 0, len = _fields.length; i < len; ++i) {
-            ProtobufField f = _fields[i];
-            if (f.id == id) {
-                return f;
+        final int mask = keys.length - 1;
+        int ix = _idHash(id) & mask;
+        while (true) {
+            int key = keys[ix];
+            if (key == id) {
+                return _idHashFields[ix];
+            }
+            if (key == 0) {
+                // not found? that's ok with us, but caller may mind
+                return null;
             }
+            ix = (ix + 1) & mask;
         }
-        // not found? that's ok with us, but caller may mind
-        return null;
+    }
+
+    /**
+     * Method for checking whether field with given id was excluded from this
+     * (projected) message type.
+     *
+     * @since 2.7.10
+     */
+    public boolean isExcluded(int id) {
+        return (_projectedFrom != null) && (field(id) == null)
+                && (_projectedFrom.field(id) != null);
+    }
+
+    /**
+     * Method for finding definition of field with given id, if it was excluded
+     * from this (projected) message type; null if not.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufField excludedField(int id) {
+        return isExcluded(id) ? _projectedFrom.field(id) : null;
     }
 
     public ProtobufField field(SerializableString name) {
+        if (name instanceof ProtobufFieldName) {
+            return ((ProtobufFieldName) name).resolve(this);
+        }
         return _fieldsByName.findField(name.getValue());
     }
 
+    /**
+     * Method for finding field with name given as UTF-8 encoded bytes,
+     * without decoding it (for messages with more than a few fields).
+     *
+     * @since 2.7.10
+     */
+    public ProtobufField field(byte[] utf8Name, int offset, int len) {
+        return _fieldsByName.findField(utf8Name, offset, len);
+    }
+
     public String fieldsAsString() {
         return Arrays.asList(_fields).toString();
     }
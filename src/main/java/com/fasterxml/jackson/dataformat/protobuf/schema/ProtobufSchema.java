@@ -1,5 +1,7 @@
 package com.fasterxml.jackson.dataformat.protobuf.schema;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import com.fasterxml.jackson.core.FormatSchema;
@@ -39,10 +41,10 @@ public class ProtobufSchema implements FormatSchema
      * defined in protoc); a new schema instance will be constructed
      * if type is different from current root type.
      *<p>
-     * Note that cost of changing root type is non-trivial in that traversal
-     * of types defined is needed -- but exact cost depends on number of types
-     * defined. Since schema instances are immutable, it makes sense to try to
-     * reuse instances if possible.
+     * Note that cost of changing root type to a type not used before is non-trivial
+     * in that traversal of types defined is needed -- but exact cost depends on number
+     * of types defined. Since schema instances are immutable, they are cached by
+     * the native schema, so switching back to a type used earlier is cheap.
      * 
      * @throws IllegalArgumentException If no type with specified name is found
      *   from within this schema.
@@ -53,9 +55,34 @@ public class ProtobufSchema implements FormatSchema
         if (_rootType.getName().equals(typeName)) {
             return this;
         }
+        if (_source == null) { // e.g. read from compiled schema
+            throw new IllegalArgumentException("Can not change root type of schema (from '"
+                    +_rootType.getName()+"' to '"+typeName+"'): no native definition available");
+        }
         return _source.forType(typeName);
     }
     
+    /**
+     * Method for constructing a schema that only includes specified fields of
+     * the root type (and recursively, of nested message types): all other fields
+     * are skipped by parser without decoding their values, regardless of whether
+     * {@link com.fasterxml.jackson.core.JsonParser.Feature#IGNORE_UNDEFINED} is
+     * enabled. Paths are either names of fields of the root type, like "images",
+     * or dot-separated paths to fields of nested messages, like "media.uri".
+     *<p>
+     * Note that projected schemas are meant for reading; when writing, excluded
+     * fields are considered unknown.
+     *
+     * @throws IllegalArgumentException If a path does not refer to an existing field
+     *
+     * @since 2.7.10
+     */
+    public ProtobufSchema withProjection(String... fieldPaths)
+        throws IllegalArgumentException
+    {
+        return new ProtobufSchema(_source, _rootType.projected(Arrays.asList(fieldPaths)));
+    }
+
     /*
     /**********************************************************
     /* API
@@ -81,9 +108,13 @@ public class ProtobufSchema implements FormatSchema
 
     /**
      * Accessor for listing names of all root-level messages defined in the
-     * original protoc.
+     * original protoc; or, if no native definition is available, just
+     * name of the root type.
      */
     public List<String> getMessageTypes() {
+        if (_source == null) {
+            return Collections.singletonList(_rootType.getName());
+        }
         return _source.getMessageNames();
     }
     
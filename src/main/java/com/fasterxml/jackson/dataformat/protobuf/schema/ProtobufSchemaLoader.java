@@ -113,6 +113,36 @@ public class ProtobufSchemaLoader
         return parseNative(schemaAsString).forType(rootTypeName);
     }
 
+    /**
+     * Method for reading a schema in compiled binary format, as written by
+     * {@link CompiledProtobufSchema#write}; much faster than parsing protoc
+     * definition.
+     * Note that given {@link InputStream} will be closed before method returns.
+     *
+     * @since 2.7.10
+     */
+    public ProtobufSchema loadCompiled(InputStream in) throws IOException {
+        try {
+            return CompiledProtobufSchema.read(new BufferedInputStream(in));
+        } finally {
+            try { in.close(); } catch (IOException e) { }
+        }
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    public ProtobufSchema loadCompiled(File f) throws IOException {
+        return loadCompiled(new FileInputStream(f));
+    }
+
+    /**
+     * @since 2.7.10
+     */
+    public ProtobufSchema loadCompiled(URL url) throws IOException {
+        return loadCompiled(url.openStream());
+    }
+
     /*
     /**********************************************************
     /* Loading native schema instances
@@ -101,10 +101,12 @@ public class TypeResolver
         
         ProtobufMessage message = new ProtobufMessage(rawType.name(), resolvedFields);
         // Important: add type itself as (being) resolved, to allow for self-refs:
-        if (_resolvedMessageTypes.isEmpty()) {
-            _resolvedMessageTypes = new HashMap<String,ProtobufMessage>();
+        _addResolved(rawType.name(), message);
+        // as well as to scope that declares it (parent), so that all references
+        // share same instance (and mutual references work)
+        if (_parent != null) {
+            _parent._addResolved(rawType.name(), message);
         }
-        _resolvedMessageTypes.put(rawType.name(), message);
 
         // and then resolve fields
         int ix = 0;
@@ -164,6 +166,14 @@ public class TypeResolver
         return message;
     }    
 
+    private void _addResolved(String name, ProtobufMessage message)
+    {
+        if (_resolvedMessageTypes.isEmpty()) {
+            _resolvedMessageTypes = new HashMap<String,ProtobufMessage>();
+        }
+        _resolvedMessageTypes.put(name, message);
+    }
+
     private ProtobufMessage _findResolvedMessage(String typeStr)
     {
         ProtobufMessage msg = _resolvedMessageTypes.get(typeStr);
@@ -0,0 +1,169 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Assert;
+
+import com.fasterxml.jackson.dataformat.protobuf.schema.*;
+
+/**
+ * Tests for writing and reading schemas in compiled binary format.
+ */
+public class CompiledSchemaTest extends ProtobufTestBase
+{
+    final static String PROTOC_ODD =
+            "message Odd {\n"
+            +" enum Level {\n"
+            +"  LOW = 3;\n"
+            +"  MID = 7;\n"
+            +"  HIGH = 11;\n"
+            +"  HIGHER = 12;\n"
+            +" }\n"
+            +" optional Level level = 5;\n"
+            +" repeated int32 values = 2 [packed=true];\n"
+            +" optional string old = 300 [deprecated=true];\n"
+            +" required sint64 delta = 1;\n"
+            +"}\n"
+    ;
+
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testMediaItem() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        byte[] compiled = CompiledProtobufSchema.writeAsBytes(schema);
+        ProtobufSchema result = MAPPER.schemaLoader().loadCompiled(new ByteArrayInputStream(compiled));
+        _verifySame(schema.getRootType(), result.getRootType());
+        // and writing again should produce identical content
+        Assert.assertArrayEquals(compiled, CompiledProtobufSchema.writeAsBytes(result));
+
+        MediaItem input = MediaItem.buildItem();
+        byte[] exp = MAPPER.writer(schema).writeValueAsBytes(input);
+        Assert.assertArrayEquals(exp, MAPPER.writer(result).writeValueAsBytes(input));
+        MediaItem output = MAPPER.readerFor(MediaItem.class).with(result).readValue(exp);
+        assertEquals(input.media.player, output.media.player);
+        assertEquals(input.images.size(), output.images.size());
+        assertEquals(input.images.get(1).size, output.images.get(1).size);
+
+        assertEquals("MediaItem", result.withRootType("MediaItem").getRootType().getName());
+        try {
+            result.withRootType("Image");
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "no native definition");
+        }
+    }
+
+    public void testFieldProperties() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_ODD);
+        ProtobufSchema result = CompiledProtobufSchema.read(CompiledProtobufSchema.writeAsBytes(schema));
+        ProtobufMessage msg = result.getRootType();
+        _verifySame(schema.getRootType(), msg);
+        assertEquals("level", msg.firstField().name);
+        ProtobufField level = msg.field("level");
+        assertFalse(level.isStdEnum);
+        assertEquals(11, level.findEnumIndex("HIGH"));
+        assertEquals("HIGHER", level.findEnumByIndex(12));
+        assertTrue(msg.field(2).packed);
+        assertTrue(msg.field(300).deprecated);
+        assertTrue(msg.field("delta").required);
+        assertTrue(msg.field("delta").usesZigZag);
+    }
+
+    public void testRecursive() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_NODE);
+        ProtobufMessage node = CompiledProtobufSchema.read(CompiledProtobufSchema.writeAsBytes(schema))
+                .getRootType();
+        assertSame(node, node.field("left").getMessageType());
+        assertSame(node, node.field("right").getMessageType());
+    }
+
+    public void testProjected() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM)
+                .withProjection("media.uri", "images");
+        ProtobufMessage root = CompiledProtobufSchema.read(CompiledProtobufSchema.writeAsBytes(schema))
+                .getRootType();
+        _verifySame(schema.getRootType(), root);
+        ProtobufMessage media = root.field("media").getMessageType();
+        assertEquals(1, media.getFieldCount());
+        assertTrue(media.isExcluded(12));
+        assertFalse(media.isExcluded(1));
+        assertFalse(media.isExcluded(99));
+    }
+
+    // Compiled schemas have no native definition to write in container file header
+    public void testContainerWriter() throws Exception
+    {
+        ProtobufSchema schema = CompiledProtobufSchema.read(CompiledProtobufSchema.writeAsBytes(
+                ProtobufSchemaLoader.std.parse(PROTOC_BOX)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            MAPPER.containerWriter(schema, out);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "container files need a native schema definition");
+        }
+        assertEquals(0, out.size());
+    }
+
+    public void testInvalid() throws Exception
+    {
+        try {
+            CompiledProtobufSchema.read(PROTOC_BOX.getBytes("UTF-8"));
+            fail("Should not pass");
+        } catch (IOException e) {
+            verifyException(e, "unrecognized header");
+        }
+        byte[] compiled = CompiledProtobufSchema.writeAsBytes(ProtobufSchemaLoader.std.parse(PROTOC_BOX));
+        compiled[4] = 99;
+        try {
+            CompiledProtobufSchema.read(compiled);
+            fail("Should not pass");
+        } catch (IOException e) {
+            verifyException(e, "Unsupported compiled protobuf schema version 99");
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    private void _verifySame(ProtobufMessage exp, ProtobufMessage act)
+    {
+        assertEquals(exp.getName(), act.getName());
+        assertEquals(exp.getFieldCount(), act.getFieldCount());
+        assertEquals(exp.firstField().name, act.firstField().name);
+        for (ProtobufField f = exp.firstField(); f != null; f = f.next) {
+            ProtobufField a = act.field(f.id);
+            assertEquals(f.name, a.name);
+            assertSame(a, act.field(f.name));
+            assertEquals(f.type, a.type);
+            assertEquals(f.typedTag, a.typedTag);
+            assertEquals(f.typedTagBytes, a.typedTagBytes);
+            assertEquals(f.required, a.required);
+            assertEquals(f.repeated, a.repeated);
+            assertEquals(f.packed, a.packed);
+            assertEquals(f.isStdEnum, a.isStdEnum);
+            assertEquals(f.getEnumValues().size(), a.getEnumValues().size());
+            for (String value : f.getEnumValues()) {
+                assertEquals(f.findEnumIndex(value), a.findEnumIndex(value));
+            }
+            if (f.getMessageType() != null) {
+                assertEquals(f.getMessageType().getName(), a.getMessageType().getName());
+            }
+        }
+    }
+}
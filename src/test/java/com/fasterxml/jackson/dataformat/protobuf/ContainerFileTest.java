@@ -0,0 +1,137 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+public class ContainerFileTest extends ProtobufTestBase
+{
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testUncompressed() throws Exception
+    {
+        _testRoundTrip(ProtobufContainer.Codec.NONE);
+    }
+
+    public void testDeflate() throws Exception
+    {
+        _testRoundTrip(ProtobufContainer.Codec.DEFLATE);
+    }
+
+    public void testSplits() throws Exception
+    {
+        List<Point> input = _points(3000);
+        File f = _write(input, ProtobufContainer.Codec.DEFLATE, 1000);
+        ProtobufContainerReader r = MAPPER.containerReader(f);
+        assertTrue(r.findBlocks().size() > 3);
+
+        // arbitrary split points, need not match block boundaries
+        List<Point> result = new ArrayList<Point>();
+        final long size = f.length();
+        final long step = size / 7;
+        for (long start = 0L; start < size; start += step) {
+            result.addAll(r.readSplit(Point.class, start, Math.min(size, start + step)));
+        }
+        assertEquals(input, result);
+        r.close();
+    }
+
+    public void testCorrupt() throws Exception
+    {
+        File f = _write(_points(100), ProtobufContainer.Codec.NONE, 4000);
+        // flip a byte near the end, within contents of the last block
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        raf.seek(f.length() - 3);
+        int b = raf.read();
+        raf.seek(f.length() - 3);
+        raf.write(b ^ 0x01);
+        raf.close();
+
+        ProtobufContainerReader r = MAPPER.containerReader(f);
+        try {
+            r.readAll(Point.class);
+            fail("Should not pass");
+        } catch (IOException e) {
+            verifyException(e, "Checksum mismatch");
+        }
+        r.close();
+
+        File bogus = _writeBytes(new byte[] { 'P', 'K', 3, 4, 0, 0 });
+        try {
+            MAPPER.containerReader(bogus);
+            fail("Should not pass");
+        } catch (IOException e) {
+            verifyException(e, "not a protobuf container file");
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    private void _testRoundTrip(ProtobufContainer.Codec codec) throws Exception
+    {
+        List<Point> input = _points(5000);
+        File f = _write(input, codec, 2000);
+        ProtobufContainerReader r = MAPPER.containerReader(f);
+        assertEquals(codec, r.getCodec());
+        assertEquals("Point", r.getSchema().getRootType().getName());
+        assertTrue(r.findBlocks().size() > 1);
+        assertEquals(input, r.readAll(Point.class));
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertEquals(input, r.readAll(Point.class, pool));
+        } finally {
+            pool.shutdown();
+        }
+        r.close();
+    }
+
+    private List<Point> _points(int count)
+    {
+        List<Point> result = new ArrayList<Point>();
+        for (int i = 0; i < count; ++i) {
+            result.add(new Point(i, i % 17));
+        }
+        return result;
+    }
+
+    private File _write(List<Point> input, ProtobufContainer.Codec codec, int blockSize)
+        throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX, "Point");
+        File f = File.createTempFile("protobuf-container", ".pbc");
+        f.deleteOnExit();
+        ProtobufContainerWriter w = MAPPER.containerWriter(schema, new FileOutputStream(f),
+                codec, blockSize);
+        w.writeAll(input);
+        w.close();
+        return f;
+    }
+
+    private File _writeBytes(byte[] content) throws Exception
+    {
+        File f = File.createTempFile("protobuf-container", ".pbc");
+        f.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(f);
+        out.write(content);
+        out.close();
+        return f;
+    }
+}
@@ -0,0 +1,145 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+public class NonBlockingParserTest extends ProtobufTestBase
+{
+    // Only images included; "media" skipped
+    final protected static String PROTOC_ITEM_PARTIAL =
+            "message MediaItem {\n"
+            +" repeated Image images = 2;\n"
+            +"}\n"
+            +"message Image {\n"
+            +" required string uri = 1;\n"
+            +" optional string title = 4;\n"
+            +" required int32 width = 5;\n"
+            +" required int32 height = 6;\n"
+            +" enum Size {\n"
+            +"  SMALL = 0;\n"
+            +"  LARGE = 1;\n"
+            +" }\n"
+            +" required Size size = 7;\n"
+            +"}\n"
+    ;
+
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testByteByByte() throws Exception
+    {
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        byte[] doc = MAPPER.writer(schema).writeValueAsBytes(MediaItem.buildItem());
+        List<String> exp = _tokens(MAPPER.getFactory().createParser(doc), schema);
+
+        for (int chunk : new int[] { 1, 2, 3, 7, doc.length }) {
+            assertEquals("(chunk size "+chunk+")",
+                    exp, _nonBlockingTokens(doc, schema, chunk, false));
+        }
+    }
+
+    public void testSkipUnknown() throws Exception
+    {
+        byte[] doc = MAPPER.writer(ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM))
+                .writeValueAsBytes(MediaItem.buildItem());
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_ITEM_PARTIAL);
+        JsonParser p = MAPPER.getFactory().createParser(doc);
+        p.enable(JsonParser.Feature.IGNORE_UNDEFINED);
+        List<String> exp = _tokens(p, schema);
+
+        for (int chunk : new int[] { 1, 5, doc.length }) {
+            assertEquals("(chunk size "+chunk+")",
+                    exp, _nonBlockingTokens(doc, schema, chunk, true));
+        }
+    }
+
+    public void testGroups() throws Exception
+    {
+        ProtobufMapper groupMapper = new ProtobufMapper(new ProtobufFactory()
+                .enable(ProtobufGenerator.Feature.WRITE_NESTED_AS_GROUPS));
+        byte[] doc = groupMapper.writer(ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM))
+                .writeValueAsBytes(MediaItem.buildItem());
+        for (String protoc : new String[] { PROTOC_MEDIA_ITEM, PROTOC_ITEM_PARTIAL }) {
+            final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(protoc);
+            JsonParser p = MAPPER.getFactory().createParser(doc);
+            p.enable(JsonParser.Feature.IGNORE_UNDEFINED);
+            List<String> exp = _tokens(p, schema);
+            for (int chunk : new int[] { 1, 3, doc.length }) {
+                assertEquals("(chunk size "+chunk+")",
+                        exp, _nonBlockingTokens(doc, schema, chunk, true));
+            }
+        }
+    }
+
+    public void testIncompleteContent() throws Exception
+    {
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX, "Point");
+        byte[] doc = MAPPER.writer(schema).writeValueAsBytes(new Point(1, 1234567));
+
+        NonBlockingProtobufParser p = MAPPER.getFactory().createNonBlockingParser();
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertToken(JsonToken.NOT_AVAILABLE, p.nextToken());
+        assertTrue(p.needMoreInput());
+        // leave out last byte of the second value
+        p.feedInput(doc, 0, doc.length-1);
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertToken(JsonToken.VALUE_NUMBER_INT, p.nextToken());
+        assertEquals(1, p.getIntValue());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertToken(JsonToken.NOT_AVAILABLE, p.nextToken());
+        assertToken(JsonToken.NOT_AVAILABLE, p.nextToken());
+        p.endOfInput();
+        try {
+            p.nextToken();
+            fail("Should not pass");
+        } catch (Exception e) {
+            verifyException(e, "end-of-input");
+        }
+        p.close();
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    private List<String> _nonBlockingTokens(byte[] doc, ProtobufSchema schema,
+            int chunk, boolean ignoreUnknown) throws Exception
+    {
+        NonBlockingProtobufParser p = MAPPER.getFactory().createNonBlockingParser();
+        if (ignoreUnknown) {
+            p.enable(JsonParser.Feature.IGNORE_UNDEFINED);
+        }
+        p.setSchema(schema);
+        List<String> result = new ArrayList<String>();
+        int offset = 0;
+        JsonToken t;
+        while ((t = p.nextToken()) != null) {
+            if (t == JsonToken.NOT_AVAILABLE) {
+                if (offset < doc.length) {
+                    int len = Math.min(chunk, doc.length - offset);
+                    p.feedInput(doc, offset, len);
+                    offset += len;
+                } else {
+                    p.endOfInput();
+                }
+                continue;
+            }
+            result.add(_describe(p, t));
+        }
+        p.close();
+        return result;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufField;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufMessage;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
 
 import junit.framework.TestCase;
 
@@ -81,6 +82,21 @@ public abstract class ProtobufTestBase extends TestCase
             +"}\n"
     ;
 
+    final protected static String PROTOC_NAMED_NODE =
+            "message Node {\n"
+            +" required int32 id = 1;\n"
+            +" optional string name = 2;\n"
+            +" optional Node left = 3;\n"
+            +" optional Node right = 4;\n"
+            +"}\n"
+    ;
+
+    final protected static String PROTOC_STRINGS =
+            "message Strings {\n"
+            +" repeated string values = 1;\n"
+            +"}\n"
+    ;
+
     final protected static String PROTOC_NAME =
             "message Name {\n"
             +" optional string first = 2;\n"
@@ -279,6 +295,26 @@ public abstract class ProtobufTestBase extends TestCase
         }
     }
 
+    static class Node {
+        public int id;
+        public String name;
+        public Node left, right;
+
+        public Node() { }
+        public Node(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    static class Strings {
+        public List<String> values;
+
+        public Strings() { }
+        public Strings(List<String> v) { values = v; }
+        public Strings(String... v) { values = Arrays.asList(v); }
+    }
+
     // // // POJOs for "JVM-serializers" case
     
     protected static class  MediaItem
@@ -422,6 +458,52 @@ public abstract class ProtobufTestBase extends TestCase
         }
     }
     
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    /**
+     * Helper method for building a full binary tree of {@link Node}s (for
+     * {@link #PROTOC_NAMED_NODE}) of given depth; children of node with id N
+     * have ids 2N+1 and 2N+2.
+     */
+    protected Node _namedTree(int id, int depth)
+    {
+        Node n = new Node(id, "node #"+id);
+        if (depth > 0) {
+            n.left = _namedTree(2*id + 1, depth-1);
+            n.right = _namedTree(2*id + 2, depth-1);
+        }
+        return n;
+    }
+
+    /**
+     * Helper method for describing all tokens of given parser (using given
+     * schema), along with names and scalar values as text; parser is closed
+     * afterwards.
+     */
+    protected List<String> _tokens(JsonParser p, ProtobufSchema schema) throws Exception
+    {
+        p.setSchema(schema);
+        List<String> result = new ArrayList<String>();
+        JsonToken t;
+        while ((t = p.nextToken()) != null) {
+            result.add(_describe(p, t));
+        }
+        p.close();
+        return result;
+    }
+
+    protected String _describe(JsonParser p, JsonToken t) throws Exception
+    {
+        if (t.isScalarValue() || (t == JsonToken.FIELD_NAME)) {
+            return t+":"+p.getText();
+        }
+        return t.toString();
+    }
+
     /*
     /**********************************************************
     /* Additional assertion methods
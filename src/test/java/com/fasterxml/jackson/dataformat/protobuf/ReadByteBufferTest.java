@@ -0,0 +1,108 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+public class ReadByteBufferTest extends ProtobufTestBase
+{
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testHeapBuffer() throws Exception
+    {
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        final MediaItem input = MediaItem.buildItem();
+        byte[] doc = MAPPER.writer(schema).writeValueAsBytes(input);
+
+        // add bit of padding on both sides to verify offsets are used
+        byte[] padded = new byte[doc.length + 7];
+        System.arraycopy(doc, 0, padded, 3, doc.length);
+        ByteBuffer bb = ByteBuffer.wrap(padded, 3, doc.length).slice();
+
+        ProtobufParser p = MAPPER.getFactory().createParser(bb);
+        p.setSchema(schema);
+        MediaItem result = MAPPER.readValue(p, MediaItem.class);
+        p.close();
+        assertEquals(input, result);
+        // position must not be modified
+        assertEquals(0, bb.position());
+    }
+
+    public void testDirectBuffer() throws Exception
+    {
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        final MediaItem input = MediaItem.buildItem();
+        byte[] doc = MAPPER.writer(schema).writeValueAsBytes(input);
+        ByteBuffer bb = ByteBuffer.allocateDirect(doc.length);
+        bb.put(doc);
+        bb.flip();
+
+        ProtobufParser p = MAPPER.getFactory().createParser(bb);
+        p.setSchema(schema);
+        MediaItem result = MAPPER.readValue(p, MediaItem.class);
+        p.close();
+        assertEquals(input, result);
+        assertEquals(0, bb.position());
+    }
+
+    // Content that spans multiple input buffers, including Strings that cross boundaries
+    public void testDirectBufferLongContent() throws Exception
+    {
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_STRINGS);
+        List<String> values = new ArrayList<String>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 400; ++i) {
+            sb.append("abcé㑖-").append(i);
+            values.add(sb.toString());
+        }
+        byte[] doc = MAPPER.writer(schema).writeValueAsBytes(new Strings(values));
+        ByteBuffer bb = ByteBuffer.allocateDirect(doc.length);
+        bb.put(doc);
+        bb.flip();
+
+        ProtobufParser p = MAPPER.getFactory().createParser(bb);
+        p.setSchema(schema);
+        Strings result = MAPPER.readValue(p, Strings.class);
+        p.close();
+        assertEquals(values, result.values);
+
+        // and then streaming, skipping over values
+        bb.rewind();
+        p = MAPPER.getFactory().createParser(bb);
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        int count = 0;
+        while (p.nextToken() == JsonToken.VALUE_STRING) {
+            ++count;
+        }
+        assertEquals(values.size(), count);
+        assertToken(JsonToken.END_ARRAY, p.getCurrentToken());
+        assertToken(JsonToken.END_OBJECT, p.nextToken());
+        p.close();
+    }
+
+    public void testReadOnlyBuffer() throws Exception
+    {
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX, "Point");
+        ObjectMapper mapper = new ObjectMapper(new ProtobufFactory());
+        byte[] doc = mapper.writer(schema).writeValueAsBytes(new Point(1, -2));
+        ProtobufParser p = MAPPER.getFactory().createParser(ByteBuffer.wrap(doc).asReadOnlyBuffer());
+        p.setSchema(schema);
+        Point result = mapper.readValue(p, Point.class);
+        assertEquals(new Point(1, -2), result);
+        p.close();
+    }
+}
@@ -2,15 +2,42 @@ package com.fasterxml.jackson.dataformat.protobuf;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.List;
 
 import org.junit.Assert;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
 
 public class ReadComplexPojoTest extends ProtobufTestBase
 {
+    final protected static String PROTOC_PACKED_AND_NAME =
+            "message Packed {\n"
+            +" repeated int32 values = 1 [packed=true];\n"
+            +" optional string name = 2;\n"
+            +"}\n"
+    ;
+
+    static class Packed {
+        public int[] values;
+        public String name;
+
+        public Packed() { }
+        public Packed(String n, int... v) {
+            name = n;
+            values = v;
+        }
+    }
+
+    @JsonIgnoreProperties({ "media" })
+    static class MediaImages {
+        public List<Image> images;
+    }
+
     final ObjectMapper MAPPER = new ObjectMapper(new ProtobufFactory());
 
     /*
@@ -58,4 +85,74 @@ public class ReadComplexPojoTest extends ProtobufTestBase
 
         assertEquals(input, result);
     }
+
+    public void testSkipChildren() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        MediaItem input = MediaItem.buildItem();
+        byte[] bytes = MAPPER.writer(schema).writeValueAsBytes(input);
+
+        for (boolean smallReads : new boolean[] { false, true }) {
+            InputStream in = new ByteArrayInputStream(bytes);
+            if (smallReads) {
+                in = new LimitingInputStream(in, 7);
+            }
+            JsonParser p = MAPPER.getFactory().createParser(in);
+            p.setSchema(schema);
+            assertToken(JsonToken.START_OBJECT, p.nextToken());
+            assertToken(JsonToken.FIELD_NAME, p.nextToken());
+            assertEquals("media", p.getCurrentName());
+            assertToken(JsonToken.START_OBJECT, p.nextToken());
+            p.skipChildren();
+            assertToken(JsonToken.END_OBJECT, p.getCurrentToken());
+            assertToken(JsonToken.FIELD_NAME, p.nextToken());
+            assertEquals("images", p.getCurrentName());
+            assertToken(JsonToken.START_ARRAY, p.nextToken());
+            assertToken(JsonToken.START_OBJECT, p.nextToken());
+            p.skipChildren();
+            assertToken(JsonToken.END_OBJECT, p.getCurrentToken());
+            assertToken(JsonToken.START_OBJECT, p.nextToken());
+            assertToken(JsonToken.FIELD_NAME, p.nextToken());
+            assertEquals("uri", p.getCurrentName());
+            assertToken(JsonToken.VALUE_STRING, p.nextToken());
+            assertEquals(input.images.get(1).uri, p.getText());
+            p.close();
+        }
+
+        // and root-level Object too
+        JsonParser p = MAPPER.getFactory().createParser(bytes);
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        p.skipChildren();
+        assertToken(JsonToken.END_OBJECT, p.getCurrentToken());
+        assertNull(p.nextToken());
+        p.close();
+    }
+
+    public void testSkipPackedArray() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_PACKED_AND_NAME);
+        JsonParser p = MAPPER.getFactory().createParser(MAPPER.writer(schema)
+                .writeValueAsBytes(new Packed("abc", 1, 2, 300000)));
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        p.skipChildren();
+        assertToken(JsonToken.END_ARRAY, p.getCurrentToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertEquals("name", p.getCurrentName());
+        assertToken(JsonToken.VALUE_STRING, p.nextToken());
+        assertEquals("abc", p.getText());
+        p.close();
+    }
+
+    public void testIgnoredProperties() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        MediaItem input = MediaItem.buildItem();
+        byte[] bytes = MAPPER.writer(schema).writeValueAsBytes(input);
+        MediaImages result = MAPPER.readerFor(MediaImages.class).with(schema).readValue(bytes);
+        assertEquals(input.images, result.images);
+    }
 }
@@ -0,0 +1,146 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+public class ReadMappedFileTest extends ProtobufTestBase
+{
+    final protected static String PROTOC_DOC =
+            "message Doc {\n"
+            +" optional string title = 1;\n"
+            +" optional bytes data = 2;\n"
+            +" optional string body = 3;\n"
+            +" optional int32 id = 4;\n"
+            +"}\n"
+    ;
+
+    final protected static String PROTOC_DOC_PARTIAL =
+            "message Doc {\n"
+            +" optional int32 id = 4;\n"
+            +"}\n"
+    ;
+
+    static class Doc {
+        public String title, body;
+        public byte[] data;
+        public int id;
+    }
+
+    static class DocId {
+        public int id;
+    }
+
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testSimple() throws Exception
+    {
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        final MediaItem input = MediaItem.buildItem();
+        File f = _writeTemp(MAPPER.writer(schema).writeValueAsBytes(input));
+
+        JsonParser p = MAPPER.getFactory().createMappedParser(f);
+        p.setSchema(schema);
+        MediaItem result = MAPPER.readValue(p, MediaItem.class);
+        p.close();
+        assertEquals(input, result);
+        f.delete();
+    }
+
+    public void testLongValues() throws Exception
+    {
+        final Doc input = _bigDoc();
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_DOC);
+        File f = _writeTemp(MAPPER.writer(schema).writeValueAsBytes(input));
+
+        // first with single mapped region
+        ProtobufParser p = MAPPER.getFactory().createMappedParser(f);
+        p.setSchema(schema);
+        _verifyDoc(input, MAPPER.readValue(p, Doc.class));
+        p.close();
+
+        // and then with small mapped windows, to cross all kinds of boundaries
+        p = MAPPER.getFactory().createMappedParser(f);
+        p._maxMappedWindow = 997;
+        p.setSchema(schema);
+        _verifyDoc(input, MAPPER.readValue(p, Doc.class));
+        p.close();
+        f.delete();
+    }
+
+    public void testSkipLongValues() throws Exception
+    {
+        final Doc input = _bigDoc();
+        File f = _writeTemp(MAPPER.writer(ProtobufSchemaLoader.std.parse(PROTOC_DOC))
+                .writeValueAsBytes(input));
+        final ProtobufSchema partial = ProtobufSchemaLoader.std.parse(PROTOC_DOC_PARTIAL);
+
+        ProtobufParser p = MAPPER.getFactory().createMappedParser(f);
+        p._maxMappedWindow = 1500;
+        p.enable(JsonParser.Feature.IGNORE_UNDEFINED);
+        p.setSchema(partial);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertEquals("id", p.getCurrentName());
+        assertToken(JsonToken.VALUE_NUMBER_INT, p.nextToken());
+        assertEquals(input.id, p.getIntValue());
+        assertToken(JsonToken.END_OBJECT, p.nextToken());
+        p.close();
+        f.delete();
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    private Doc _bigDoc()
+    {
+        Doc doc = new Doc();
+        doc.title = "Mapped";
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 30000) {
+            sb.append("Some text with non-ASCII: é㑖 and 😀; ");
+        }
+        doc.body = sb.toString();
+        doc.data = new byte[12345];
+        for (int i = 0; i < doc.data.length; ++i) {
+            doc.data[i] = (byte) i;
+        }
+        doc.id = 123456;
+        return doc;
+    }
+
+    private void _verifyDoc(Doc exp, Doc act)
+    {
+        assertEquals(exp.title, act.title);
+        assertEquals(exp.body, act.body);
+        assertEquals(exp.id, act.id);
+        assertNotNull(act.data);
+        assertEquals(exp.data.length, act.data.length);
+        for (int i = 0; i < exp.data.length; ++i) {
+            assertEquals(exp.data[i], act.data[i]);
+        }
+    }
+
+    private File _writeTemp(byte[] content) throws Exception
+    {
+        File f = File.createTempFile("protobuf-mapped", ".bin");
+        f.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(f);
+        out.write(content);
+        out.close();
+        return f;
+    }
+}
@@ -0,0 +1,226 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+public class ReadPackedArraysTest extends ProtobufTestBase
+{
+    final protected static String PROTOC_SAMPLES =
+            "message Samples {\n"
+            +" repeated sint32 ints = 1 [packed=true];\n"
+            +" repeated int64 longs = 2 [packed=true];\n"
+            +" repeated double doubles = 3 [packed=true];\n"
+            +" repeated float floats = 4 [packed=true];\n"
+            +" repeated fixed32 fixed = 5 [packed=true];\n"
+            +" repeated int32 unpacked = 6;\n"
+            +" optional string name = 7;\n"
+            +"}\n"
+    ;
+
+    static class Samples {
+        public int[] ints;
+        public long[] longs;
+        public double[] doubles;
+        public float[] floats;
+        public int[] fixed;
+        public int[] unpacked;
+        public String name;
+    }
+
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testDatabind() throws Exception
+    {
+        ProtobufSchema schema = MAPPER.schemaLoader().parse(PROTOC_SAMPLES);
+        Samples input = _samples(10000);
+        byte[] bytes = MAPPER.writer(schema).writeValueAsBytes(input);
+
+        // first from byte array, then from stream with tiny reads, to cross buffer boundaries
+        _verify(input, MAPPER.readerFor(Samples.class).with(schema).<Samples>readValue(bytes));
+        _verify(input, MAPPER.readerFor(Samples.class).with(schema).<Samples>readValue(
+                new LimitingInputStream(new ByteArrayInputStream(bytes), 123)));
+    }
+
+    public void testStreaming() throws Exception
+    {
+        ProtobufSchema schema = MAPPER.schemaLoader().parse(PROTOC_SAMPLES);
+        Samples input = _samples(100);
+        byte[] bytes = MAPPER.writer(schema).writeValueAsBytes(input);
+
+        ProtobufParser p = MAPPER.getFactory().createParser(bytes);
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertEquals("ints", p.nextFieldName());
+        assertNull(p.readIntArray());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        assertEquals(Arrays.toString(input.ints), Arrays.toString(p.readIntArray()));
+        assertToken(JsonToken.END_ARRAY, p.getCurrentToken());
+
+        // int values may also be read as longs or doubles
+        assertEquals("longs", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        assertEquals(Arrays.toString(input.longs), Arrays.toString(p.readLongArray()));
+        assertEquals("doubles", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        assertEquals(Arrays.toString(input.doubles), Arrays.toString(p.readDoubleArray()));
+        assertEquals("floats", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        assertEquals(input.floats.length, p.readDoubleArray().length);
+        assertEquals("fixed", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        long[] fixed = p.readLongArray();
+        assertEquals(input.fixed.length, fixed.length);
+        assertEquals(input.fixed[99], fixed[99]);
+
+        // unpacked arrays are read token by token
+        assertEquals("unpacked", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        assertEquals(Arrays.toString(input.unpacked), Arrays.toString(p.readIntArray()));
+        assertToken(JsonToken.END_ARRAY, p.getCurrentToken());
+
+        assertEquals("name", p.nextFieldName());
+        assertToken(JsonToken.VALUE_STRING, p.nextToken());
+        assertEquals(input.name, p.getText());
+        assertToken(JsonToken.END_OBJECT, p.nextToken());
+        assertNull(p.nextToken());
+        p.close();
+    }
+
+    // Values of packed arrays may also be read as wider types, decoded directly
+    public void testWidening() throws Exception
+    {
+        ProtobufSchema schema = MAPPER.schemaLoader().parse(PROTOC_SAMPLES);
+        Samples input = _samples(1000);
+        byte[] bytes = MAPPER.writer(schema).writeValueAsBytes(input);
+
+        // use tiny reads, to cross buffer boundaries
+        ProtobufParser p = MAPPER.getFactory().createParser(
+                new LimitingInputStream(new ByteArrayInputStream(bytes), 77));
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertEquals("ints", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        long[] longs = p.readLongArray();
+        assertToken(JsonToken.END_ARRAY, p.getCurrentToken());
+        assertEquals(input.ints.length, longs.length);
+        for (int i = 0; i < longs.length; ++i) {
+            assertEquals(input.ints[i], longs[i]);
+        }
+        assertEquals("longs", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        p.skipChildren();
+        assertEquals("doubles", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        assertTrue(Arrays.equals(input.doubles, p.readDoubleArray()));
+        assertEquals("floats", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        double[] doubles = p.readDoubleArray();
+        assertEquals(input.floats.length, doubles.length);
+        for (int i = 0; i < doubles.length; ++i) {
+            assertEquals((double) input.floats[i], doubles[i]);
+        }
+        assertEquals("fixed", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        longs = p.readLongArray();
+        assertEquals(input.fixed.length, longs.length);
+        for (int i = 0; i < longs.length; ++i) {
+            assertEquals(input.fixed[i], longs[i]);
+        }
+        assertEquals("unpacked", p.nextFieldName());
+        p.close();
+    }
+
+    public void testNonBlocking() throws Exception
+    {
+        ProtobufSchema schema = MAPPER.schemaLoader().parse(PROTOC_SAMPLES);
+        Samples input = _samples(100);
+        byte[] bytes = MAPPER.writer(schema).writeValueAsBytes(input);
+
+        NonBlockingProtobufParser p = MAPPER.getFactory().createNonBlockingParser();
+        p.setSchema(schema);
+        p.feedInput(bytes, 0, 20);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertEquals("ints", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        try {
+            p.readIntArray();
+            fail("Should not pass");
+        } catch (Exception e) {
+            verifyException(e, "not enough input available");
+        }
+        // but once all content is available, may retry
+        p.feedInput(bytes, 20, bytes.length - 20);
+        assertEquals(Arrays.toString(input.ints), Arrays.toString(p.readIntArray()));
+        assertToken(JsonToken.END_ARRAY, p.getCurrentToken());
+        assertEquals("longs", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        assertEquals(Arrays.toString(input.longs), Arrays.toString(p.readLongArray()));
+        p.close();
+    }
+
+    public void testInvalidPackedLength() throws Exception
+    {
+        ProtobufSchema schema = MAPPER.schemaLoader().parse(PROTOC_SAMPLES);
+        // field #3 (doubles; tagged with wire type of values), 7 bytes
+        byte[] doc = new byte[] { (3 << 3) | 1, 7, 1, 2, 3, 4, 5, 6, 7 };
+        JsonParser p = MAPPER.getFactory().createParser(doc);
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertEquals("doubles", p.nextFieldName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        try {
+            ((ProtobufParser) p).readDoubleArray();
+            fail("Should not pass");
+        } catch (Exception e) {
+            verifyException(e, "not a multiple of 8");
+        }
+        p.close();
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    private Samples _samples(int count)
+    {
+        Samples s = new Samples();
+        s.ints = new int[count];
+        s.longs = new long[count];
+        s.doubles = new double[count];
+        s.floats = new float[count];
+        s.fixed = new int[count];
+        s.unpacked = new int[] { 1, -2, 300000 };
+        for (int i = 0; i < count; ++i) {
+            s.ints[i] = (i % 3 == 0) ? -i : i * 1000;
+            s.longs[i] = ((long) i) << (i % 40);
+            s.doubles[i] = i * 0.25 - 100.5;
+            s.floats[i] = i * 0.5f;
+            s.fixed[i] = i * 7919;
+        }
+        s.name = "samples";
+        return s;
+    }
+
+    private void _verify(Samples exp, Samples act)
+    {
+        assertTrue(Arrays.equals(exp.ints, act.ints));
+        assertTrue(Arrays.equals(exp.longs, act.longs));
+        assertTrue(Arrays.equals(exp.doubles, act.doubles));
+        assertTrue(Arrays.equals(exp.floats, act.floats));
+        assertTrue(Arrays.equals(exp.fixed, act.fixed));
+        assertTrue(Arrays.equals(exp.unpacked, act.unpacked));
+        assertEquals(exp.name, act.name);
+    }
+}
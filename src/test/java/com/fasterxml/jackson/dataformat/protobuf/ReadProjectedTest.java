@@ -0,0 +1,188 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+public class ReadProjectedTest extends ProtobufTestBase
+{
+    // Media with just some of the fields
+    final protected static String PROTOC_MEDIA_ITEM_PARTIAL =
+            "message MediaItem {\n"
+            +" required Media media = 1;\n"
+            +" repeated Image images = 2;\n"
+            +"}\n"
+            +"message Image {\n"
+            +" required string uri = 1;\n"
+            +"}\n"
+            +"message Media {\n"
+            +" required int32 width = 12;\n"
+            +" repeated string persons = 18;\n"
+            +"}\n"
+    ;
+
+    final protected static String PROTOC_PACKED =
+            "message Packed {\n"
+            +" required int32 id = 1;\n"
+            +" repeated int32 vals = 5 [packed=true];\n"
+            +" optional string name = 6;\n"
+            +"}\n"
+    ;
+
+    static class Packed {
+        public int id;
+        public List<Integer> vals;
+        public String name;
+
+        public Packed() { }
+        public Packed(int id, String name, Integer... vals) {
+            this.id = id;
+            this.name = name;
+            this.vals = Arrays.asList(vals);
+        }
+    }
+
+    final ObjectMapper MAPPER = new ObjectMapper(new ProtobufFactory());
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testProjectedDatabind() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        MediaItem input = MediaItem.buildItem();
+        byte[] bytes = MAPPER.writer(schema).writeValueAsBytes(input);
+
+        ProtobufSchema projected = schema.withProjection("media.uri", "media.persons", "images.title");
+        MediaItem result = MAPPER.readerFor(MediaItem.class).with(projected).readValue(bytes);
+        assertNotNull(result.media);
+        assertEquals(input.media.uri, result.media.uri);
+        assertEquals(input.media.persons, result.media.persons);
+        assertNull(result.media.format);
+        assertEquals(0L, result.media.duration);
+        assertNull(result.media.player);
+
+        List<Image> images = result.images;
+        assertNotNull(images);
+        assertEquals(input.images.size(), images.size());
+        for (int i = 0; i < images.size(); ++i) {
+            assertEquals(input.images.get(i).title, images.get(i).title);
+            assertNull(images.get(i).uri);
+            assertEquals(0, images.get(i).width);
+        }
+    }
+
+    public void testProjectedStreaming() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        MediaItem input = MediaItem.buildItem();
+        byte[] bytes = MAPPER.writer(schema).writeValueAsBytes(input);
+
+        JsonParser p = MAPPER.getFactory().createParser(bytes);
+        p.setSchema(schema.withProjection("images", "media.copyright"));
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertEquals("media", p.getCurrentName());
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertEquals("copyright", p.getCurrentName());
+        assertToken(JsonToken.VALUE_STRING, p.nextToken());
+        assertEquals(input.media.copyright, p.getText());
+        assertToken(JsonToken.END_OBJECT, p.nextToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertEquals("images", p.getCurrentName());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertEquals("uri", p.nextFieldName());
+        assertToken(JsonToken.VALUE_STRING, p.nextToken());
+        assertEquals(input.images.get(0).uri, p.getText());
+        p.close();
+    }
+
+    // Excluded packed arrays need to be skipped by length, regardless of wire type
+    public void testProjectedPacked() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_PACKED);
+        byte[] bytes = MAPPER.writer(schema).writeValueAsBytes(new Packed(3, "abc", 1, 2, 3));
+        ObjectReader r = MAPPER.readerFor(Packed.class);
+
+        Packed result = r.with(schema.withProjection("id")).readValue(bytes);
+        assertEquals(3, result.id);
+        assertNull(result.vals);
+        assertNull(result.name);
+        result = r.with(schema.withProjection("id", "name")).readValue(bytes);
+        assertEquals(3, result.id);
+        assertNull(result.vals);
+        assertEquals("abc", result.name);
+        result = r.with(schema.withProjection("name")).readValue(bytes);
+        assertEquals(0, result.id);
+        assertNull(result.vals);
+        assertEquals("abc", result.name);
+
+        // and same when checking availability of content fed incrementally
+        NonBlockingProtobufParser p = ((ProtobufFactory) MAPPER.getFactory()).createNonBlockingParser();
+        p.setSchema(schema.withProjection("name"));
+        p.feedInput(bytes, 0, bytes.length);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertEquals("name", p.getCurrentName());
+        assertToken(JsonToken.VALUE_STRING, p.nextToken());
+        assertEquals("abc", p.getText());
+        assertToken(JsonToken.NOT_AVAILABLE, p.nextToken());
+        p.endOfInput();
+        assertToken(JsonToken.END_OBJECT, p.nextToken());
+        assertNull(p.nextToken());
+        p.close();
+    }
+
+    public void testInvalidProjection() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        try {
+            schema.withProjection("media.bogus");
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "No field 'bogus'");
+        }
+        try {
+            schema.withProjection("media.uri.x");
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "not of a message type");
+        }
+    }
+
+    // Also verify that skipping of unknown fields works for nested messages
+    public void testSkipUnknownNested() throws Exception
+    {
+        MediaItem input = MediaItem.buildItem();
+        byte[] bytes = MAPPER.writer(ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM))
+                .writeValueAsBytes(input);
+        ProtobufSchema partial = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM_PARTIAL);
+        MediaItem result = MAPPER.readerFor(MediaItem.class).with(partial)
+                .with(JsonParser.Feature.IGNORE_UNDEFINED)
+                .readValue(bytes);
+        assertEquals(input.media.width, result.media.width);
+        assertEquals(input.media.persons, result.media.persons);
+        assertNull(result.media.uri);
+        assertEquals(input.images.size(), result.images.size());
+        assertEquals(input.images.get(1).uri, result.images.get(1).uri);
+
+        // but without enabling, should fail
+        try {
+            MAPPER.readerFor(MediaItem.class).with(partial).readValue(bytes);
+            fail("Should not pass");
+        } catch (Exception e) {
+            verifyException(e, "Undefined property");
+        }
+    }
+}
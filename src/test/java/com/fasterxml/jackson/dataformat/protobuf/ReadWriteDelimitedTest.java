@@ -0,0 +1,284 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+public class ReadWriteDelimitedTest extends ProtobufTestBase
+{
+    final ObjectMapper MAPPER = new ObjectMapper(new ProtobufFactory());
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testPointSequence() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX, "Point");
+        List<Point> input = Arrays.asList(new Point(1, 2), new Point(-3, 100000), new Point(0, 0));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SequenceWriter w = MAPPER.writer(schema)
+                .with(ProtobufGenerator.Feature.LENGTH_DELIMITED)
+                .writeValues(bytes);
+        for (Point p : input) {
+            w.write(p);
+        }
+        w.close();
+
+        // verify that framing is as expected: length prefix, then message as usual
+        ByteArrayOutputStream exp = new ByteArrayOutputStream();
+        for (Point p : input) {
+            byte[] msg = MAPPER.writer(schema).writeValueAsBytes(p);
+            exp.write(msg.length);
+            exp.write(msg);
+        }
+        assertEquals(Arrays.toString(exp.toByteArray()), Arrays.toString(bytes.toByteArray()));
+
+        ObjectReader r = MAPPER.readerFor(Point.class).with(schema)
+                .with(ProtobufParser.Feature.LENGTH_DELIMITED);
+        MappingIterator<Point> it = r.readValues(bytes.toByteArray());
+        List<Point> result = it.readAll();
+        it.close();
+        assertEquals(input, result);
+    }
+
+    // Messages ending with an (unpacked) array need care, as do empty messages
+    public void testStringsSequence() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_STRINGS);
+        List<Strings> input = Arrays.asList(new Strings("a", "bc"), new Strings(),
+                new Strings("long value "+new String(new char[300]).replace('\0', 'x')));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SequenceWriter w = MAPPER.writer(schema)
+                .with(ProtobufGenerator.Feature.LENGTH_DELIMITED)
+                .writeValues(bytes);
+        w.writeAll(input);
+        w.close();
+
+        MappingIterator<Strings> it = MAPPER.readerFor(Strings.class).with(schema)
+                .with(ProtobufParser.Feature.LENGTH_DELIMITED)
+                .readValues(new LimitingInputStream(new ByteArrayInputStream(bytes.toByteArray()), 7));
+        List<List<String>> result = new ArrayList<List<String>>();
+        while (it.hasNextValue()) {
+            result.add(it.nextValue().values);
+        }
+        it.close();
+        assertEquals(3, result.size());
+        assertEquals(input.get(0).values, result.get(0));
+        // empty list not distinguishable from missing one
+        assertNull(result.get(1));
+        assertEquals(input.get(2).values, result.get(2));
+    }
+
+    public void testStreamingDelimited() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX, "Point");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SequenceWriter w = MAPPER.writer(schema)
+                .with(ProtobufGenerator.Feature.LENGTH_DELIMITED)
+                .writeValues(bytes);
+        w.write(new Point(1, 2));
+        w.write(new Point(3, 4));
+        w.close();
+
+        ProtobufFactory f = new ProtobufFactory();
+        f.enable(ProtobufParser.Feature.LENGTH_DELIMITED);
+        JsonParser p = f.createParser(bytes.toByteArray());
+        p.setSchema(schema);
+        for (int i = 0; i < 2; ++i) {
+            assertToken(JsonToken.START_OBJECT, p.nextToken());
+            if (i == 0) {
+                assertToken(JsonToken.FIELD_NAME, p.nextToken());
+                assertToken(JsonToken.VALUE_NUMBER_INT, p.nextToken());
+                assertEquals(1, p.getIntValue());
+                assertToken(JsonToken.FIELD_NAME, p.nextToken());
+                assertToken(JsonToken.VALUE_NUMBER_INT, p.nextToken());
+                assertEquals(2, p.getIntValue());
+                assertToken(JsonToken.END_OBJECT, p.nextToken());
+            } else {
+                p.skipChildren();
+                assertToken(JsonToken.END_OBJECT, p.getCurrentToken());
+            }
+        }
+        assertNull(p.nextToken());
+        p.close();
+    }
+
+    // And without length-prefix, message ending with array must end properly too
+    public void testRootEndingWithArray() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_STRINGS);
+        JsonParser p = MAPPER.getFactory().createParser(MAPPER.writer(schema)
+                .writeValueAsBytes(new Strings("x")));
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertToken(JsonToken.START_ARRAY, p.nextToken());
+        assertToken(JsonToken.VALUE_STRING, p.nextToken());
+        assertToken(JsonToken.END_ARRAY, p.nextToken());
+        assertToken(JsonToken.END_OBJECT, p.nextToken());
+        assertNull(p.nextToken());
+        p.close();
+    }
+
+    public void testParallelRead() throws Exception
+    {
+        ProtobufMapper mapper = new ProtobufMapper();
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX, "Point");
+        List<Point> input = new ArrayList<Point>();
+        for (int i = 0; i < 5000; ++i) {
+            input.add(new Point(i, -i * 7));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SequenceWriter w = mapper.writer(schema)
+                .with(ProtobufGenerator.Feature.LENGTH_DELIMITED)
+                .writeValues(bytes);
+        w.writeAll(input);
+        w.close();
+        byte[] doc = bytes.toByteArray();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Point> result = mapper.readDelimitedValues(Point.class, schema,
+                    doc, 0, doc.length, pool);
+            assertEquals(input, result);
+
+            // then truncated content
+            try {
+                mapper.readDelimitedValues(Point.class, schema, doc, 0, doc.length-1, pool);
+                fail("Should not pass");
+            } catch (IOException e) {
+                verifyException(e, "Truncated message #5000");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Files are mapped one window per task range, so size is not limited by that of a window
+    public void testParallelFileRead() throws Exception
+    {
+        ProtobufMapper mapper = new ProtobufMapper();
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX, "Point");
+        List<Point> input = new ArrayList<Point>();
+        File data = File.createTempFile("protobuf-delimited", ".bin");
+        data.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(data);
+        SequenceWriter w = mapper.writer(schema)
+                .with(ProtobufGenerator.Feature.LENGTH_DELIMITED)
+                .writeValues(out);
+        for (int i = 0; i < 5000; ++i) {
+            Point pt = new Point(i, -i * 7);
+            input.add(pt);
+            w.write(pt);
+        }
+        w.close();
+
+        // ranges start at message boundaries, and fit in a window
+        byte[] doc = Files.readAllBytes(data.toPath());
+        long[] ranges = DelimitedReadTask.findRanges(new ByteArrayInputStream(doc),
+                doc.length, 500, 1000);
+        List<Long> offsets = new ArrayList<Long>();
+        for (long offset : DelimitedReadTask.findOffsets(ByteBuffer.wrap(doc))) {
+            offsets.add(offset);
+        }
+        assertEquals(doc.length, ranges[ranges.length-1]);
+        for (int i = 1; i < ranges.length; ++i) {
+            assertTrue(offsets.contains(ranges[i]));
+            assertTrue(ranges[i] - ranges[i-1] <= 1000);
+            if (i < ranges.length-1) {
+                assertTrue(ranges[i] - ranges[i-1] >= 500);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(input, mapper.readDelimitedValues(Point.class, schema, data, pool));
+            assertEquals(input, mapper._readDelimitedValues(Point.class, schema, data, pool, 1000));
+
+            // then truncated content
+            FileOutputStream trunc = new FileOutputStream(data);
+            trunc.write(doc, 0, doc.length-1);
+            trunc.close();
+            try {
+                mapper._readDelimitedValues(Point.class, schema, data, pool, 1000);
+                fail("Should not pass");
+            } catch (IOException e) {
+                verifyException(e, "Truncated message #5000");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testIndexedRead() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX, "Point");
+        File data = File.createTempFile("protobuf-delimited", ".bin");
+        data.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(data);
+        SequenceWriter w = MAPPER.writer(schema)
+                .with(ProtobufGenerator.Feature.LENGTH_DELIMITED)
+                .writeValues(out);
+        for (int i = 0; i < 1000; ++i) {
+            w.write(new Point(i, i * 1000));
+        }
+        w.close();
+
+        // store every 10th offset, verify round-tripping of the index file
+        File indexFile = File.createTempFile("protobuf-delimited", ".idx");
+        indexFile.deleteOnExit();
+        DelimitedIndex.build(data, 10).write(indexFile);
+        DelimitedIndex index = DelimitedIndex.read(indexFile);
+        assertEquals(10, index.getInterval());
+        assertEquals(1000L, index.getMessageCount());
+        assertEquals(0L, index.indexedOffsetFor(9));
+        assertEquals(DelimitedIndex.build(data).indexedOffsetFor(10), index.indexedOffsetFor(10));
+
+        ObjectReader r = MAPPER.readerFor(Point.class);
+        for (int i : new int[] { 0, 7, 10, 555, 999 }) {
+            ProtobufParser p = index.createParser((ProtobufFactory) MAPPER.getFactory(),
+                    schema, data, i);
+            MappingIterator<Point> it = r.readValues(p);
+            for (int exp = i; exp < 1000; ++exp) {
+                assertTrue(it.hasNextValue());
+                assertEquals(new Point(exp, exp * 1000), it.nextValue());
+            }
+            assertFalse(it.hasNextValue());
+            it.close();
+        }
+        // positioning at the end is fine too
+        ProtobufParser p = index.createParser((ProtobufFactory) MAPPER.getFactory(),
+                schema, data, 1000);
+        assertNull(p.nextToken());
+        p.close();
+
+        try {
+            index.createParser((ProtobufFactory) MAPPER.getFactory(), schema, data, 1001);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Invalid message index");
+        }
+    }
+}
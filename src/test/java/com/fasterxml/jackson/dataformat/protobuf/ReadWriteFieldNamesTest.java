@@ -0,0 +1,184 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+import org.junit.Assert;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufFieldName;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufMessage;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+/**
+ * Tests for {@link ProtobufFieldName}, field names that cache field they
+ * resolve to.
+ */
+public class ReadWriteFieldNamesTest extends ProtobufTestBase
+{
+    final static ProtobufFieldName TOP_LEFT = new ProtobufFieldName("topLeft");
+    final static ProtobufFieldName BOTTOM_RIGHT = new ProtobufFieldName("bottomRight");
+    final static ProtobufFieldName X = new ProtobufFieldName("x");
+    final static ProtobufFieldName Y = new ProtobufFieldName("y");
+
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testResolve() throws Exception
+    {
+        ProtobufMessage box = ProtobufSchemaLoader.std.parse(PROTOC_BOX).getRootType();
+        ProtobufMessage point = box.field("topLeft").getMessageType();
+        ProtobufFieldName name = new ProtobufFieldName("x");
+        assertSame(point.field("x"), name.resolve(point));
+        assertSame(point.field("x"), point.field(name));
+        assertNull(name.resolve(box));
+        assertSame(point.field("x"), name.resolve(point));
+
+        // and same name against another schema
+        ProtobufMessage point2 = ProtobufSchemaLoader.std.parse(PROTOC_POINT_L).getRootType();
+        assertSame(point2.field("x"), name.resolve(point2));
+        assertTrue(name.matches(point2, point2.field("x")));
+        assertFalse(name.matches(point2, point2.field("y")));
+        assertFalse(name.matches(point, point2.field("x")));
+    }
+
+    // Resolution only replaced after repeated misses, to avoid churn
+    public void testReplaceResolution() throws Exception
+    {
+        ProtobufMessage point = ProtobufSchemaLoader.std.parse(PROTOC_POINT).getRootType();
+        ProtobufMessage point2 = ProtobufSchemaLoader.std.parse(PROTOC_POINT).getRootType();
+        ProtobufFieldName name = new ProtobufFieldName("y");
+        assertSame(point.field("y"), name.resolve(point));
+        assertTrue(name.isResolvedFor(point));
+
+        // alternating use keeps the first resolution, until misses add up
+        int misses = 0;
+        do {
+            assertSame(point2.field("y"), name.resolve(point2));
+            assertSame(point.field("y"), name.resolve(point));
+            ++misses;
+        } while (name.isResolvedFor(point) && (misses < 100));
+        assertTrue(name.isResolvedFor(point2));
+        assertTrue("Should only replace after repeated misses, not "+misses, misses > 2);
+    }
+
+    public void testWriteAndRead() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX);
+        byte[] exp = MAPPER.writer(schema).writeValueAsBytes(new Box(1, -2, 3, 4));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonGenerator g = MAPPER.getFactory().createGenerator(bytes);
+        g.setSchema(schema);
+        g.writeStartObject();
+        g.writeFieldName(TOP_LEFT);
+        _writePoint(g, 1, -2);
+        g.writeFieldName(BOTTOM_RIGHT);
+        _writePoint(g, 3, 4);
+        g.writeEndObject();
+        g.close();
+        Assert.assertArrayEquals(exp, bytes.toByteArray());
+
+        JsonParser p = MAPPER.getFactory().createParser(exp);
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertTrue(p.nextFieldName(TOP_LEFT));
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertTrue(p.nextFieldName(X));
+        assertEquals(1, p.nextIntValue(0));
+        assertFalse(p.nextFieldName(X));
+        assertEquals("y", p.getCurrentName());
+        assertEquals(-2, p.nextIntValue(0));
+        assertFalse(p.nextFieldName(X));
+        assertToken(JsonToken.END_OBJECT, p.getCurrentToken());
+        assertFalse(p.nextFieldName(TOP_LEFT));
+        assertEquals("bottomRight", p.getCurrentName());
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertTrue(p.nextFieldName(X));
+        assertEquals(3, p.nextIntValue(0));
+        assertTrue(p.nextFieldName(Y));
+        assertEquals(4, p.nextIntValue(0));
+        assertToken(JsonToken.END_OBJECT, p.nextToken());
+        assertToken(JsonToken.END_OBJECT, p.nextToken());
+        assertNull(p.nextToken());
+        p.close();
+    }
+
+    // Bean property names are replaced by ProtobufModule, and resolved when writing
+    public void testBeanPropertyNames() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX);
+        Box input = new Box(1, -2, 3, 4);
+        ObjectMapper plain = new ObjectMapper(new ProtobufFactory());
+        byte[] exp = plain.writer(schema).writeValueAsBytes(input);
+        Assert.assertArrayEquals(exp, MAPPER.writer(schema).writeValueAsBytes(input));
+
+        ProtobufMessage box = schema.getRootType();
+        ProtobufMessage point = box.field("topLeft").getMessageType();
+        _verifyResolved(Box.class, box, "topLeft", "bottomRight");
+        _verifyResolved(Point.class, point, "x", "y");
+
+        // cached resolutions are then used for further writes
+        Assert.assertArrayEquals(exp, MAPPER.writer(schema).writeValueAsBytes(input));
+    }
+
+    public void testUnknownName() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX);
+        JsonGenerator g = MAPPER.getFactory().createGenerator(new ByteArrayOutputStream());
+        g.setSchema(schema);
+        g.writeStartObject();
+        try {
+            g.writeFieldName(X);
+            fail("Should not pass");
+        } catch (Exception e) {
+            verifyException(e, "Unrecognized field 'x'");
+        }
+        g.close();
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    private void _verifyResolved(Class<?> type, ProtobufMessage msg, String... names)
+        throws Exception
+    {
+        BeanSerializerBase ser = (BeanSerializerBase) MAPPER.getSerializerProviderInstance()
+                .findValueSerializer(type);
+        List<String> found = new ArrayList<String>();
+        for (Iterator<PropertyWriter> it = ser.properties(); it.hasNext(); ) {
+            SerializableString name = ((BeanPropertyWriter) it.next()).getSerializedName();
+            found.add(name.getValue());
+            assertTrue(name instanceof ProtobufFieldName);
+            assertTrue(((ProtobufFieldName) name).isResolvedFor(msg));
+            assertSame(msg.field(name.getValue()), ((ProtobufFieldName) name).resolve(msg));
+        }
+        assertEquals(Arrays.asList(names), found);
+    }
+
+    private void _writePoint(JsonGenerator g, int x, int y) throws Exception
+    {
+        g.writeStartObject();
+        g.writeFieldName(X);
+        g.writeNumber(x);
+        g.writeFieldName(Y);
+        g.writeNumber(y);
+        g.writeEndObject();
+    }
+}
@@ -0,0 +1,192 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+/**
+ * Tests for writing nested Messages as groups, and reading group-encoded
+ * Messages.
+ */
+public class ReadWriteGroupsTest extends ProtobufTestBase
+{
+    final static String PROTOC_NODE_NO_CHILDREN =
+            "message Node {\n"
+            +" required int32 id = 1;\n"
+            +"}\n"
+    ;
+
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    final ProtobufMapper GROUP_MAPPER = new ProtobufMapper(new ProtobufFactory()
+            .enable(ProtobufGenerator.Feature.WRITE_NESTED_AS_GROUPS));
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testWriteGroups() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX);
+        byte[] bytes = GROUP_MAPPER.writer(schema).writeValueAsBytes(new Box(1, 2, 3, 4));
+        Assert.assertArrayEquals(new byte[] {
+                0x1B, 0x08, 0x01, 0x10, 0x04, 0x1C,
+                0x2B, 0x08, 0x03, 0x10, 0x08, 0x2C
+        }, bytes);
+
+        Box result = MAPPER.readerFor(Box.class).with(schema).readValue(bytes);
+        assertEquals(new Point(1, 2), result.topLeft);
+        assertEquals(new Point(3, 4), result.bottomRight);
+    }
+
+    public void testMediaItem() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        MediaItem input = MediaItem.buildItem();
+        byte[] bytes = GROUP_MAPPER.writer(schema).writeValueAsBytes(input);
+        MediaItem result = MAPPER.readerFor(MediaItem.class).with(schema).readValue(bytes);
+        assertEquals(input, result);
+
+        // and should produce same tokens as length-prefixed content, also when
+        // using precomputed sizes or back-to-front encoding
+        byte[] std = MAPPER.writer(schema).writeValueAsBytes(input);
+        assertEquals(_tokens(MAPPER.getFactory().createParser(std), schema),
+                _tokens(MAPPER.getFactory().createParser(bytes), schema));
+        Assert.assertArrayEquals(bytes, GROUP_MAPPER.writeSizedValueAsBytes(schema, input));
+        Assert.assertArrayEquals(bytes, new ProtobufMapper(new ProtobufFactory()
+                .enable(ProtobufGenerator.Feature.WRITE_NESTED_AS_GROUPS)
+                .enable(ProtobufGenerator.Feature.REVERSE_ENCODING))
+                .writer(schema).writeValueAsBytes(input));
+    }
+
+    public void testDeepNestingAndSkipping() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_NAMED_NODE);
+        Node root = _namedTree(1, 8);
+        ObjectWriter w = GROUP_MAPPER.writer(schema);
+        byte[] bytes = w.writeValueAsBytes(root);
+        Node result = MAPPER.readerFor(Node.class).with(schema).readValue(bytes);
+        assertEquals(root.right.left.right.name, result.right.left.right.name);
+        Assert.assertArrayEquals(bytes, w.writeValueAsBytes(result));
+
+        // skipping of groups of unknown fields
+        ProtobufSchema partial = ProtobufSchemaLoader.std.parse(PROTOC_NODE_NO_CHILDREN);
+        JsonParser p = MAPPER.getFactory().createParser(bytes);
+        p.setSchema(partial);
+        p.enable(JsonParser.Feature.IGNORE_UNDEFINED);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertToken(JsonToken.FIELD_NAME, p.nextToken());
+        assertToken(JsonToken.VALUE_NUMBER_INT, p.nextToken());
+        assertEquals(1, p.getIntValue());
+        assertToken(JsonToken.END_OBJECT, p.nextToken());
+        assertNull(p.nextToken());
+        p.close();
+
+        // as well as skipping groups of known fields
+        p = MAPPER.getFactory().createParser(bytes);
+        p.setSchema(schema);
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertEquals("id", p.nextFieldName());
+        assertToken(JsonToken.VALUE_NUMBER_INT, p.nextToken());
+        assertEquals("name", p.nextFieldName());
+        assertToken(JsonToken.VALUE_STRING, p.nextToken());
+        assertEquals(root.name, p.getText());
+        assertEquals("left", p.nextFieldName());
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        p.skipChildren();
+        assertToken(JsonToken.END_OBJECT, p.getCurrentToken());
+        assertEquals("right", p.nextFieldName());
+        assertToken(JsonToken.START_OBJECT, p.nextToken());
+        assertEquals("id", p.nextFieldName());
+        assertToken(JsonToken.VALUE_NUMBER_INT, p.nextToken());
+        assertEquals(root.right.id, p.getIntValue());
+        p.close();
+    }
+
+    // Groups of unknown fields are skipped without recursion, up to maximum nesting depth
+    public void testSkipDeeplyNestedUnknownGroups() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_NODE_NO_CHILDREN);
+        // within limits: groups of unknown field 5 (start tag 0x2B, end tag 0x2C), then id
+        final int depth = ProtobufParser.MAX_SKIPPED_GROUP_DEPTH;
+        byte[] doc = new byte[depth * 2 + 2];
+        Arrays.fill(doc, 0, depth, (byte) 0x2B);
+        Arrays.fill(doc, depth, depth * 2, (byte) 0x2C);
+        doc[depth * 2] = 0x08;
+        doc[depth * 2 + 1] = 0x07;
+        List<String> exp = Arrays.asList("START_OBJECT", "FIELD_NAME:id", "VALUE_NUMBER_INT:7", "END_OBJECT");
+        assertEquals(exp, _tokens(_parser(doc, false), schema));
+        assertEquals(exp, _tokens(_parser(doc, true), schema));
+
+        // but not too deeply nested
+        doc = new byte[400 * 1024];
+        Arrays.fill(doc, (byte) 0x2B);
+        for (boolean nonBlocking : new boolean[] { false, true }) {
+            JsonParser p = _parser(doc, nonBlocking);
+            p.setSchema(schema);
+            assertToken(JsonToken.START_OBJECT, p.nextToken());
+            try {
+                p.nextToken();
+                fail("Should not pass");
+            } catch (IOException e) {
+                verifyException(e, "Nesting depth of skipped groups exceeds maximum of "+depth);
+            }
+            p.close();
+        }
+    }
+
+    public void testInvalidGroups() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX);
+        ObjectReader r = MAPPER.readerFor(Box.class).with(schema);
+
+        // mismatched end tag
+        _verifyFail(r, new byte[] { 0x1B, 0x08, 0x01, 0x2C, 0x1C },
+                "Unexpected end-group tag");
+        // end tag missing within length-prefixed message
+        _verifyFail(MAPPER.readerFor(Node.class).with(ProtobufSchemaLoader.std.parse(PROTOC_NAMED_NODE)),
+                new byte[] { 0x1A, 0x05, 0x08, 0x01, 0x23, 0x08, 0x02 },
+                "Missing end-group tag");
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    private JsonParser _parser(byte[] doc, boolean nonBlocking) throws Exception
+    {
+        JsonParser p;
+        if (nonBlocking) {
+            NonBlockingProtobufParser nb = MAPPER.getFactory().createNonBlockingParser();
+            nb.feedInput(doc, 0, doc.length);
+            nb.endOfInput();
+            p = nb;
+        } else {
+            p = MAPPER.getFactory().createParser(doc);
+        }
+        return p.enable(JsonParser.Feature.IGNORE_UNDEFINED);
+    }
+
+    private void _verifyFail(ObjectReader r, byte[] doc, String msg) throws Exception
+    {
+        try {
+            r.readValue(doc);
+            fail("Should not pass");
+        } catch (IOException e) {
+            verifyException(e, msg);
+        }
+    }
+}
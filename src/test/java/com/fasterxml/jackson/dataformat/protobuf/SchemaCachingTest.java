@@ -0,0 +1,105 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.*;
+
+import com.fasterxml.jackson.dataformat.protobuf.schema.CachingProtobufSchemaLoader;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+/**
+ * Tests for {@link CachingProtobufSchemaLoader}.
+ */
+public class SchemaCachingTest extends ProtobufTestBase
+{
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testCachedText() throws Exception
+    {
+        CachingProtobufSchemaLoader loader = new CachingProtobufSchemaLoader();
+        ProtobufSchema box = loader.parse(PROTOC_BOX);
+        assertSame(box, loader.parse(PROTOC_BOX));
+        assertSame(box, loader.load(new StringReader(PROTOC_BOX)));
+        assertSame(box, loader.load(new ByteArrayInputStream(PROTOC_BOX.getBytes("UTF-8"))));
+        ProtobufSchema point = loader.parse(PROTOC_BOX, "Point");
+        assertEquals("Point", point.getRootType().getName());
+        assertSame(point, box.withRootType("Point"));
+        assertEquals(1L, loader.getMissCount());
+        assertEquals(4L, loader.getHitCount());
+
+        assertNotSame(box, loader.parse(PROTOC_BOX+"\n"));
+        assertEquals(2, loader.size());
+        assertEquals(2L, loader.getMissCount());
+
+        loader.clear();
+        assertEquals(0, loader.size());
+        assertNotSame(box, loader.parse(PROTOC_BOX));
+    }
+
+    public void testEviction() throws Exception
+    {
+        CachingProtobufSchemaLoader loader = new CachingProtobufSchemaLoader(2);
+        NativeProtobufSchema box = loader.parseNative(PROTOC_BOX);
+        NativeProtobufSchema point = loader.parseNative(PROTOC_POINT);
+        // access to make "Point" least recently used
+        assertSame(box, loader.parseNative(PROTOC_BOX));
+        loader.parseNative(PROTOC_NODE);
+        assertEquals(2, loader.size());
+        assertSame(box, loader.parseNative(PROTOC_BOX));
+        assertNotSame(point, loader.parseNative(PROTOC_POINT));
+        assertEquals(4L, loader.getMissCount());
+        assertEquals(2L, loader.getHitCount());
+    }
+
+    public void testCachedFile() throws Exception
+    {
+        File f = File.createTempFile("box", ".proto");
+        try {
+            _write(f, PROTOC_BOX);
+            CachingProtobufSchemaLoader loader = new CachingProtobufSchemaLoader();
+            ProtobufSchema box = loader.load(f);
+            assertSame(box, loader.load(f));
+            // URLs are cached separately from files
+            ProtobufSchema point = loader.load(f.toURI().toURL(), "Point");
+            assertSame(point, loader.load(f.toURI().toURL(), "Point"));
+            assertNotSame(box.withRootType("Point"), point);
+
+            // changed file should be reloaded
+            _write(f, PROTOC_POINT);
+            f.setLastModified(f.lastModified() + 2000L);
+            assertEquals("Point", loader.load(f).getRootType().getName());
+        } finally {
+            f.delete();
+        }
+    }
+
+    public void testWithMapper() throws Exception
+    {
+        ProtobufMapper mapper = new ProtobufMapper();
+        CachingProtobufSchemaLoader loader = new CachingProtobufSchemaLoader();
+        mapper.setSchemaLoader(loader);
+        ProtobufSchema schema = mapper.schemaLoader().parse(PROTOC_POINT);
+        assertSame(schema, mapper.schemaLoader().parse(PROTOC_POINT));
+        byte[] bytes = mapper.writer(schema).writeValueAsBytes(new Point(3, -4));
+        Point result = mapper.readerFor(Point.class).with(schema).readValue(bytes);
+        assertEquals(3, result.x);
+        assertEquals(-4, result.y);
+        assertEquals(1L, loader.getHitCount());
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    private void _write(File f, String content) throws IOException
+    {
+        Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+        w.write(content);
+        w.close();
+    }
+}
@@ -1,6 +1,8 @@
 package com.fasterxml.jackson.dataformat.protobuf;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufField;
@@ -27,6 +29,22 @@ public class SchemaParsingTest extends ProtobufTestBase
 
     final protected static String PROTOC_EMPTY = "message Empty { }";
 
+    final protected static String PROTOC_MUTUAL =
+            "message Team {\n"
+            +" required string name = 1;\n"
+            +" optional Member lead = 2;\n"
+            +" message Position {\n"
+            +"   required int32 x = 1;\n"
+            +" }\n"
+            +" optional Position from = 3;\n"
+            +" optional Position to = 4;\n"
+            +"}\n"
+            +"message Member {\n"
+            +" required string name = 1;\n"
+            +" optional Team team = 2;\n"
+            +"}\n"
+    ;
+
     final protected static String PROTOC_STRINGS_PACKED =
             "message Strings {\n"
             +" repeated string values = 2 [packed=true];\n"
@@ -54,6 +72,121 @@ public class SchemaParsingTest extends ProtobufTestBase
         _verifyMessageFieldLinking(msg);
     }
 
+    public void testSwitchRootType() throws Exception
+    {
+        NativeProtobufSchema nat = ProtobufSchemaLoader.std.parseNative(PROTOC_BOX);
+        assertTrue(nat.hasMessageType("Box"));
+        assertTrue(nat.hasMessageType("Point"));
+        assertFalse(nat.hasMessageType("Line"));
+
+        ProtobufSchema box = nat.forFirstType();
+        assertEquals("Box", box.getRootType().getName());
+        assertSame(box, nat.forType("Box"));
+        ProtobufSchema point = box.withRootType("Point");
+        assertEquals("Point", point.getRootType().getName());
+        assertSame(point, nat.forType("Point"));
+        assertSame(box, point.withRootType("Box"));
+        try {
+            box.withRootType("Line");
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "no message type with name 'Line'");
+        }
+    }
+
+    public void testEncodedTags() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(
+                "message Tags {\n"
+                +" optional int32 a = 1;\n"
+                +" optional string b = 16;\n"
+                +" optional int32 c = 2048;\n"
+                +" optional fixed32 d = 33554432;\n"
+                +"}\n");
+        ProtobufMessage msg = schema.getRootType();
+        _verifyTag(msg.field("a"), 1, 0x08);
+        _verifyTag(msg.field("b"), 2, 0x0182);
+        _verifyTag(msg.field("c"), 3, 0x018080);
+        // too long to pack; encoded as usual
+        assertEquals(5, msg.field("d").typedTagLength);
+
+        // and then verify that both encoding and decoding work
+        Map<String,Object> input = new LinkedHashMap<String,Object>();
+        input.put("a", 1);
+        input.put("b", "x");
+        input.put("c", 3);
+        input.put("d", 4);
+        ProtobufMapper mapper = new ProtobufMapper();
+        byte[] bytes = mapper.writer(schema).writeValueAsBytes(input);
+        assertEquals(2 + 4 + 4 + 9, bytes.length);
+        assertEquals(input, mapper.readerFor(Map.class).with(schema).readValue(bytes));
+    }
+
+    public void testSparseIds() throws Exception
+    {
+        StringBuilder sb = new StringBuilder("message Sparse {\n");
+        for (int i = 1; i <= 40; ++i) {
+            sb.append(" optional int32 f").append(i).append(" = ").append(i * 397).append(";\n");
+        }
+        sb.append("}\n");
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(sb.toString());
+        ProtobufMessage msg = schema.getRootType();
+        for (int i = 1; i <= 40; ++i) {
+            assertEquals("f"+i, msg.field(i * 397).name);
+            assertNull(msg.field(i * 397 + 1));
+        }
+        assertNull(msg.field(0));
+        assertNull(msg.field(-397));
+
+        Map<String,Object> input = new LinkedHashMap<String,Object>();
+        for (int i = 40; i > 0; i -= 3) { // out of order, to avoid matching next field
+            input.put("f"+i, i);
+        }
+        ProtobufMapper mapper = new ProtobufMapper();
+        byte[] bytes = mapper.writer(schema).writeValueAsBytes(input);
+        assertEquals(input, mapper.readerFor(Map.class).with(schema).readValue(bytes));
+    }
+
+    public void testManyFieldNames() throws Exception
+    {
+        StringBuilder sb = new StringBuilder("message Wide {\n");
+        for (int i = 1; i <= 150; ++i) {
+            sb.append(" optional int32 field").append(i).append(" = ").append(i).append(";\n");
+        }
+        sb.append("}\n");
+        ProtobufMessage msg = ProtobufSchemaLoader.std.parse(sb.toString()).getRootType();
+        for (int i = 1; i <= 150; ++i) {
+            String name = "field"+i;
+            assertEquals(i, msg.field(new String(name.toCharArray())).id);
+            byte[] utf8 = ("x"+name+"y").getBytes("UTF-8");
+            assertEquals(i, msg.field(utf8, 1, utf8.length-2).id);
+        }
+        assertNull(msg.field("field0"));
+        assertNull(msg.field("field151"));
+        assertNull(msg.field(""));
+        assertNull(msg.field("field1\u00E9"));
+        byte[] utf8 = "field1\u00E9".getBytes("UTF-8");
+        assertNull(msg.field(utf8, 0, utf8.length));
+    }
+
+    // Names with same hash code can not be placed by cuckoo hashing; verify fallback
+    public void testCollidingFieldNames() throws Exception
+    {
+        final String[] names = { "AaAa", "BBBB", "AaBB", "BBAa", "other" };
+        StringBuilder sb = new StringBuilder("message Colliding {\n");
+        for (int i = 0; i < names.length; ++i) {
+            sb.append(" optional int32 ").append(names[i]).append(" = ").append(i+1).append(";\n");
+        }
+        sb.append("}\n");
+        ProtobufMessage msg = ProtobufSchemaLoader.std.parse(sb.toString()).getRootType();
+        for (int i = 0; i < names.length; ++i) {
+            assertEquals(i+1, msg.field(names[i]).id);
+            byte[] utf8 = names[i].getBytes("UTF-8");
+            assertEquals(i+1, msg.field(utf8, 0, utf8.length).id);
+        }
+        assertNull(msg.field("AaAaAa"));
+    }
+
     public void testBoxAndPoint() throws Exception
     {
         ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX);
@@ -81,6 +214,20 @@ public class SchemaParsingTest extends ProtobufTestBase
         _verifyMessageFieldLinking(schema.getRootType());
     }
 
+    // Each message type should be resolved just once, shared by all fields of that type
+    public void testSharedTypes() throws Exception
+    {
+        ProtobufMessage box = ProtobufSchemaLoader.std.parse(PROTOC_BOX).getRootType();
+        assertSame(box.field("topLeft").getMessageType(), box.field("bottomRight").getMessageType());
+
+        ProtobufMessage team = ProtobufSchemaLoader.std.parse(PROTOC_MUTUAL).getRootType();
+        ProtobufMessage member = team.field("lead").getMessageType();
+        assertEquals("Member", member.getName());
+        assertSame(team, member.field("team").getMessageType());
+        assertSame(team.field("from").getMessageType(), team.field("to").getMessageType());
+        _verifyMessageFieldLinking(team);
+    }
+
     public void testEnum() throws Exception
     {
         ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_ENUMS);
@@ -126,5 +273,10 @@ public class SchemaParsingTest extends ProtobufTestBase
         assertEquals(2, field.id);
         assertTrue(field.packed);
     }
-}
 
+    private void _verifyTag(ProtobufField f, int length, int bytes)
+    {
+        assertEquals(length, f.typedTagLength);
+        assertEquals(bytes, f.typedTagBytes);
+    }
+}
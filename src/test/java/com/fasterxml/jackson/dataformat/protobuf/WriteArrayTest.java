@@ -65,6 +65,34 @@ public class WriteArrayTest extends ProtobufTestBase
         }
     }
 
+    final protected static String PROTOC_NUMBER_ARRAYS_PACKED = "message Wrapper {\n"
+            +" required Numbers numbers = 1;\n"
+            +" repeated int64 longs = 2 [packed=true];\n"
+            +"}\n"
+            +"message Numbers {\n"
+            +" repeated int32 ints = 1 [packed=true];\n"
+            +" repeated sint64 longs = 2 [packed=true];\n"
+            +" repeated double doubles = 3 [packed=true];\n"
+            +" repeated float floats = 4 [packed=true];\n"
+            +" repeated sfixed32 fixed = 5 [packed=true];\n"
+            +" repeated int32 unpacked = 6;\n"
+            +"}\n"
+    ;
+
+    static class Numbers {
+        public int[] ints;
+        public long[] longs;
+        public double[] doubles;
+        public float[] floats;
+        public int[] fixed;
+        public int[] unpacked;
+    }
+
+    static class Wrapper {
+        public Numbers numbers;
+        public long[] longs;
+    }
+
     final ObjectMapper MAPPER = new ObjectMapper(new ProtobufFactory());
 
     final ProtobufSchema SPARSE_STRING_SCHEMA;
@@ -194,4 +222,48 @@ public class WriteArrayTest extends ProtobufTestBase
         assertEquals(0x10, bytes[10]);
         assertEquals(8, bytes[11]); // Point (, 4)
     }    
+
+    /*
+    /**********************************************************
+    /* Test methods, bulk writes of primitive arrays
+    /**********************************************************
+     */
+
+    // Bulk writes (via ProtobufMapper) must produce same output as per-element writes
+    public void testPrimitiveArraysPacked() throws Exception
+    {
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_NUMBER_ARRAYS_PACKED);
+        for (int size : new int[] { 0, 1, 3, 20000 }) {
+            Wrapper input = new Wrapper();
+            Numbers n = new Numbers();
+            n.ints = new int[size];
+            n.longs = new long[size];
+            n.doubles = new double[size];
+            n.floats = new float[size];
+            n.fixed = new int[size];
+            n.unpacked = new int[size];
+            input.longs = new long[size];
+            for (int i = 0; i < size; ++i) {
+                n.ints[i] = (i % 5 == 0) ? -i : i * 37;
+                n.longs[i] = (i % 3 == 0) ? -(1L << (i % 63)) : (1L << (i % 63));
+                n.doubles[i] = i / 3.0;
+                n.floats[i] = i * -0.25f;
+                n.fixed[i] = i - 1000;
+                n.unpacked[i] = i;
+                input.longs[i] = i * 100000L - 7;
+            }
+            input.numbers = n;
+
+            byte[] exp = MAPPER.writer(schema).writeValueAsBytes(input);
+            ProtobufMapper bulkMapper = new ProtobufMapper();
+            byte[] act = bulkMapper.writer(schema).writeValueAsBytes(input);
+            Assert.assertArrayEquals("(size "+size+")", exp, act);
+
+            Wrapper result = bulkMapper.readerFor(Wrapper.class).with(schema).readValue(act);
+            Assert.assertArrayEquals(input.longs, result.longs);
+            Assert.assertArrayEquals(n.ints, result.numbers.ints);
+            Assert.assertArrayEquals(n.longs, result.numbers.longs);
+            Assert.assertArrayEquals(n.fixed, result.numbers.fixed);
+        }
+    }
 }
@@ -1,10 +1,13 @@
 package com.fasterxml.jackson.dataformat.protobuf;
 
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
 import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
 
@@ -177,4 +180,47 @@ public class WriteBigArrayTest extends ProtobufTestBase
                 .readValue(bytes);
         assertEquals(COUNT, result.values.size());
     }
+
+    // Multiple big messages with same generator, to verify that pooled
+    // secondary buffers are only reused once content has been written
+    public void testWrappedStringArraysWithSameGenerator() throws Exception
+    {
+        final ObjectMapper mapper = new ObjectMapper(new ProtobufFactory());
+        final ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_WRAPPED_STRING);
+        final int ROUNDS = 4;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SequenceWriter w = mapper.writer(schema)
+                .with(ProtobufGenerator.Feature.LENGTH_DELIMITED)
+                .writeValues(bytes);
+        for (int round = 0; round < ROUNDS; ++round) {
+            w.write(new StringArrayWrapper(_strings(30000 + round, "Round"+round+"-")));
+        }
+        w.close();
+
+        MappingIterator<StringArrayWrapper> it = mapper.readerFor(StringArrayWrapper.class)
+                .with(schema)
+                .with(ProtobufParser.Feature.LENGTH_DELIMITED)
+                .readValues(bytes.toByteArray());
+        for (int round = 0; round < ROUNDS; ++round) {
+            assertTrue(it.hasNextValue());
+            StringArrayWrapper result = it.nextValue();
+            List<String> exp = _strings(30000 + round, "Round"+round+"-");
+            assertEquals(exp.size(), result.values.size());
+            for (int i = 0; i < exp.size(); ++i) {
+                assertEquals(exp.get(i), result.values.values[i]);
+            }
+        }
+        assertFalse(it.hasNextValue());
+        it.close();
+    }
+
+    private List<String> _strings(int count, String prefix)
+    {
+        List<String> strings = new ArrayList<String>();
+        for (int i = 0; i < count; ++i) {
+            strings.add(prefix+i);
+        }
+        return strings;
+    }
 }
@@ -0,0 +1,81 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+/**
+ * Tests for writing into {@link ByteBuffer}s, either a single caller-provided
+ * one or a chain of pooled chunks.
+ */
+public class WriteByteBufferTest extends ProtobufTestBase
+{
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testSingleBuffer() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        MediaItem input = MediaItem.buildItem();
+        ObjectWriter w = MAPPER.writer(schema);
+        byte[] exp = w.writeValueAsBytes(input);
+
+        for (ByteBuffer bb : new ByteBuffer[] { ByteBuffer.allocate(1000), ByteBuffer.allocateDirect(1000) }) {
+            bb.position(3);
+            w.writeValue(MAPPER.getFactory().createGenerator(bb), input);
+            assertEquals(3 + exp.length, bb.position());
+            bb.flip();
+            bb.position(3);
+            byte[] actual = new byte[bb.remaining()];
+            bb.get(actual);
+            Assert.assertArrayEquals(exp, actual);
+        }
+    }
+
+    public void testBufferOverflow() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        try {
+            MAPPER.writer(schema).writeValue(MAPPER.getFactory().createGenerator(ByteBuffer.allocate(100)),
+                    MediaItem.buildItem());
+            fail("Should not pass");
+        } catch (IOException e) {
+            verifyException(e, "Not enough room in ByteBuffer");
+        }
+    }
+
+    public void testChunks() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        MediaItem input = MediaItem.buildItem();
+        ObjectWriter w = MAPPER.writer(schema);
+        byte[] exp = w.writeValueAsBytes(input);
+
+        ByteBufferPool pool = new ByteBufferPool(100, true, 4);
+        ChunkedByteBufferOutputStream out = new ChunkedByteBufferOutputStream(pool);
+        for (int round = 0; round < 2; ++round) {
+            w.writeValue(out, input);
+            assertEquals(exp.length, out.size());
+            ByteBuffer[] bufs = out.getBuffers();
+            assertEquals(3, bufs.length);
+            ByteBuffer all = ByteBuffer.allocate(exp.length);
+            for (ByteBuffer bb : bufs) {
+                assertTrue(bb.isDirect());
+                all.put(bb);
+            }
+            Assert.assertArrayEquals(exp, all.array());
+            out.release();
+            assertEquals(0L, out.size());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+/**
+ * Tests for verifying that buffered content of nested messages is written out
+ * using a small number of writes, and that writing to channels works.
+ */
+public class WriteCoalescingTest extends ProtobufTestBase
+{
+    static class CountingOutputStream extends OutputStream
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int writes;
+
+        @Override
+        public void write(int b) {
+            ++writes;
+            bytes.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ++writes;
+            bytes.write(b, off, len);
+        }
+    }
+
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testFewWrites() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_NAMED_NODE);
+        Node root = _namedTree(0, 13);
+        byte[] exp = MAPPER.writer(schema).writeValueAsBytes(root);
+
+        CountingOutputStream out = new CountingOutputStream();
+        MAPPER.writer(schema).writeValue(out, root);
+        Assert.assertArrayEquals(exp, out.bytes.toByteArray());
+        // many small nested messages, but written out in bigger chunks
+        assertTrue("Too many writes: "+out.writes, out.writes < (exp.length / 5000));
+    }
+
+    public void testGatheringChannel() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_NAMED_NODE);
+        Node root = _namedTree(0, 13);
+        byte[] exp = MAPPER.writer(schema).writeValueAsBytes(root);
+
+        File f = File.createTempFile("protobuf-channel", ".bin");
+        f.deleteOnExit();
+        FileChannel ch = new FileOutputStream(f).getChannel();
+        ProtobufGenerator g = MAPPER.getFactory().createGenerator(ch);
+        MAPPER.writer(schema).writeValue(g, root);
+        // channel not owned by generator, so needs to be closed separately
+        assertTrue(ch.isOpen());
+        ch.close();
+        Assert.assertArrayEquals(exp, Files.readAllBytes(f.toPath()));
+        f.delete();
+    }
+}
@@ -0,0 +1,132 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+/**
+ * Tests for verifying that {@link ReverseProtobufGenerator} produces same
+ * output as the standard generator.
+ */
+public class WriteReverseTest extends ProtobufTestBase
+{
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    final ProtobufMapper REVERSE_MAPPER = new ProtobufMapper(new ProtobufFactory()
+            .enable(ProtobufGenerator.Feature.REVERSE_ENCODING));
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testGeneratorType() throws Exception
+    {
+        ProtobufGenerator g = REVERSE_MAPPER.getFactory().createGenerator(new ByteArrayOutputStream());
+        assertEquals(ReverseProtobufGenerator.class, g.getClass());
+        g.close();
+    }
+
+    public void testMediaItem() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        MediaItem input = MediaItem.buildItem();
+        byte[] bytes = REVERSE_MAPPER.writer(schema).writeValueAsBytes(input);
+        assertEquals(252, bytes.length);
+        Assert.assertArrayEquals(MAPPER.writer(schema).writeValueAsBytes(input), bytes);
+    }
+
+    public void testDeepNesting() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_NAMED_NODE);
+        Node root = _namedTree(0, 12);
+        byte[] bytes = REVERSE_MAPPER.writer(schema).writeValueAsBytes(root);
+        Assert.assertArrayEquals(MAPPER.writer(schema).writeValueAsBytes(root), bytes);
+
+        Node result = MAPPER.readerFor(Node.class)
+                .with(schema).readValue(bytes);
+        assertEquals(root.left.right.left.name, result.left.right.left.name);
+    }
+
+    public void testPackedAndLongStrings() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(WriteBigArrayTest.PROTOC_WRAPPED_STRING);
+        List<String> strings = new ArrayList<String>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; ++i) {
+            sb.append("abc");
+            strings.add((i % 100 == 0) ? sb.toString() : ("Value"+i));
+        }
+        Object input = new WriteBigArrayTest.StringArrayWrapper(strings);
+        Assert.assertArrayEquals(MAPPER.writer(schema).writeValueAsBytes(input),
+                REVERSE_MAPPER.writer(schema).writeValueAsBytes(input));
+
+        schema = ProtobufSchemaLoader.std.parse(WriteArrayTest.PROTOC_NUMBER_ARRAYS_PACKED);
+        WriteArrayTest.Wrapper w = new WriteArrayTest.Wrapper();
+        w.numbers = new WriteArrayTest.Numbers();
+        w.numbers.ints = new int[] { 1, -2, 300 };
+        w.longs = new long[] { 1L, 1L << 40, -1L };
+        Assert.assertArrayEquals(MAPPER.writer(schema).writeValueAsBytes(w),
+                REVERSE_MAPPER.writer(schema).writeValueAsBytes(w));
+    }
+
+    // Type of generator depends on feature, so it can not be changed per-writer
+    public void testFeatureChangeForWriter() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX);
+        Box input = new Box(1, 2, 3, 4);
+        try {
+            MAPPER.writer(schema).with(ProtobufGenerator.Feature.REVERSE_ENCODING)
+                .writeValueAsBytes(input);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Can not change Feature REVERSE_ENCODING");
+        }
+        try {
+            REVERSE_MAPPER.writer(schema).without(ProtobufGenerator.Feature.REVERSE_ENCODING)
+                .writeValueAsBytes(input);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Can not change Feature REVERSE_ENCODING");
+        }
+        // but (re-)enabling it when already enabled is fine
+        Assert.assertArrayEquals(MAPPER.writer(schema).writeValueAsBytes(input),
+                REVERSE_MAPPER.writer(schema).with(ProtobufGenerator.Feature.REVERSE_ENCODING)
+                .writeValueAsBytes(input));
+    }
+
+    public void testLengthDelimited() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SequenceWriter w = REVERSE_MAPPER.writer(schema)
+                .with(ProtobufGenerator.Feature.LENGTH_DELIMITED)
+                .writeValues(bytes);
+        for (int i = 0; i < 100; ++i) {
+            w.write(new Box(i, -i, 1000 * i, 3));
+            if ((i % 10) == 0) {
+                w.flush();
+            }
+        }
+        w.close();
+
+        MappingIterator<Box> it = MAPPER.readerFor(Box.class).with(schema)
+                .with(ProtobufParser.Feature.LENGTH_DELIMITED)
+                .readValues(bytes.toByteArray());
+        for (int i = 0; i < 100; ++i) {
+            Box b = it.nextValue();
+            assertEquals(new Point(i, -i), b.topLeft);
+            assertEquals(new Point(1000 * i, 3), b.bottomRight);
+        }
+        assertFalse(it.hasNextValue());
+        it.close();
+    }
+}
@@ -0,0 +1,145 @@
+package com.fasterxml.jackson.dataformat.protobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Assert;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+/**
+ * Tests for writing content with precomputed sizes of nested messages,
+ * instead of buffering.
+ */
+public class WriteSizedTest extends ProtobufTestBase
+{
+    // Bogus type that serializes differently every time
+    static class Changing {
+        private int _calls;
+
+        public String getName() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0, end = ++_calls; i < end; ++i) {
+                sb.append("abc");
+            }
+            return sb.toString();
+        }
+    }
+
+    final ProtobufMapper MAPPER = new ProtobufMapper();
+
+    /*
+    /**********************************************************
+    /* Test methods
+    /**********************************************************
+     */
+
+    public void testMediaItem() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_MEDIA_ITEM);
+        MediaItem input = MediaItem.buildItem();
+        byte[] exp = MAPPER.writer(schema).writeValueAsBytes(input);
+        byte[] bytes = MAPPER.writeSizedValueAsBytes(schema, input);
+        assertEquals(252, bytes.length);
+        Assert.assertArrayEquals(exp, bytes);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MAPPER.writeSizedValue(out, schema, input);
+        Assert.assertArrayEquals(exp, out.toByteArray());
+    }
+
+    public void testDeepNesting() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_NAMED_NODE);
+        Node root = _namedTree(0, 12);
+        byte[] exp = MAPPER.writer(schema).writeValueAsBytes(root);
+        byte[] bytes = MAPPER.writeSizedValueAsBytes(schema, root);
+        // many levels with length prefixes longer than one byte
+        assertTrue(bytes.length > 100000);
+        Assert.assertArrayEquals(exp, bytes);
+
+        Node result = MAPPER.readerFor(Node.class).with(schema).readValue(bytes);
+        assertEquals(root.right.left.name, result.right.left.name);
+    }
+
+    // Nested messages with lengths around one/two-byte length prefix boundary;
+    // buffered writing needs to move contents in that case
+    public void testLengthBoundaries() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_NAMED_NODE);
+        for (int len = 100; len < 140; ++len) {
+            Node root = new Node(1, "root");
+            root.left = new Node(2, _name(len));
+            root.left.right = new Node(3, _name(len - 10));
+            root.right = new Node(4, "x");
+            byte[] exp = MAPPER.writeSizedValueAsBytes(schema, root);
+            Assert.assertArrayEquals("(length "+len+")", exp, MAPPER.writer(schema).writeValueAsBytes(root));
+
+            Node result = MAPPER.readerFor(Node.class).with(schema).readValue(exp);
+            assertEquals(root.left.name, result.left.name);
+            assertEquals(root.left.right.name, result.left.right.name);
+            assertEquals(4, result.right.id);
+        }
+    }
+
+    public void testPackedArrays() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(WriteArrayTest.PROTOC_NUMBER_ARRAYS_PACKED);
+        WriteArrayTest.Wrapper input = new WriteArrayTest.Wrapper();
+        WriteArrayTest.Numbers n = new WriteArrayTest.Numbers();
+        input.numbers = n;
+        input.longs = new long[500];
+        n.ints = new int[500];
+        n.doubles = new double[200];
+        for (int i = 0; i < 500; ++i) {
+            input.longs[i] = 1L << (i % 63);
+            n.ints[i] = -i;
+        }
+        byte[] exp = MAPPER.writer(schema).writeValueAsBytes(input);
+        Assert.assertArrayEquals(exp, MAPPER.writeSizedValueAsBytes(schema, input));
+    }
+
+    public void testLengthDelimited() throws Exception
+    {
+        ProtobufMapper mapper = new ProtobufMapper(new ProtobufFactory()
+                .enable(ProtobufGenerator.Feature.LENGTH_DELIMITED));
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(PROTOC_BOX);
+        Box input = new Box(1, 2, 300, 400);
+        ObjectWriter w = mapper.writer(schema);
+        Assert.assertArrayEquals(w.writeValueAsBytes(input), mapper.writeSizedValueAsBytes(schema, input));
+    }
+
+    public void testChangingContent() throws Exception
+    {
+        ProtobufSchema schema = ProtobufSchemaLoader.std.parse(
+                "message Wrapper { required Named value = 1; }\n"
+                +"message Named { optional string name = 1; }\n");
+        try {
+            MAPPER.writeSizedValueAsBytes(schema, new ChangingWrapper());
+            fail("Should not pass");
+        } catch (IOException e) {
+            verifyException(e, "differs from precomputed size");
+        }
+    }
+
+    static class ChangingWrapper {
+        public Changing value = new Changing();
+    }
+
+    /*
+    /**********************************************************
+    /* Helper methods
+    /**********************************************************
+     */
+
+    private String _name(int len)
+    {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < len) {
+            sb.append((char) ('a' + (sb.length() % 26)));
+        }
+        return sb.toString();
+    }
+}
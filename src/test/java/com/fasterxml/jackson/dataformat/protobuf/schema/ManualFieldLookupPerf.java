@@ -0,0 +1,92 @@
+package com.fasterxml.jackson.dataformat.protobuf.schema;
+
+import java.nio.charset.Charset;
+
+/**
+ * Simple manually run micro-benchmark for comparing {@link FieldLookup}
+ * implementations: small ones (for up to 3 fields), and for bigger messages
+ * the older "Big" one (with secondary slots and spill-over area) against
+ * collision-free cuckoo hashing, using String keys and UTF-8 bytes.
+ * Keys used are copies of field names (not interned instances), as with
+ * names that come from data-binding or input.
+ */
+public class ManualFieldLookupPerf
+{
+    private final static int LOOKUPS_PER_ROUND = 20 * 1000 * 1000;
+
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    private final FieldLookup[] _lookups;
+    private final String[] _names;
+
+    private final String[] _keys;
+    private final byte[][] _utf8Keys;
+
+    private int _roundsDone;
+
+    public ManualFieldLookupPerf(int fieldCount) throws Exception
+    {
+        StringBuilder sb = new StringBuilder("message Wide {\n");
+        for (int i = 1; i <= fieldCount; ++i) {
+            sb.append(" optional int32 field_").append(i * 7).append("_value = ").append(i).append(";\n");
+        }
+        sb.append("}\n");
+        ProtobufMessage msg = ProtobufSchemaLoader.std.parse(sb.toString()).getRootType();
+        ProtobufField[] fields = msg._fields;
+        _keys = new String[fields.length];
+        _utf8Keys = new byte[fields.length][];
+        for (int i = 0; i < fields.length; ++i) {
+            _keys[i] = new String(fields[i].name.toCharArray());
+            _utf8Keys[i] = fields[i].name.getBytes(UTF8);
+        }
+        if (fieldCount <= 3) {
+            _names = new String[] { "Small" };
+            _lookups = new FieldLookup[] { FieldLookup.construct(fields) };
+        } else {
+            _names = new String[] { "Big", "Hashed", "Hashed/UTF-8" };
+            FieldLookup hashed = FieldLookup.Hashed.construct(fields);
+            _lookups = new FieldLookup[] { FieldLookup.Big.construct(fields), hashed, hashed };
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        new ManualFieldLookupPerf(count).test();
+    }
+
+    public void test() throws Exception
+    {
+        final long[] times = new long[_names.length];
+        final int reps = Math.max(1, LOOKUPS_PER_ROUND / _keys.length);
+        System.out.printf("%d fields, %d repetitions per round\n", _keys.length, reps);
+        int found = 0;
+
+        while (true) {
+            Thread.sleep(100L);
+            int type = (_roundsDone++ % _names.length);
+            final FieldLookup lookup = _lookups[type];
+            long start = System.nanoTime();
+            for (int i = 0; i < reps; ++i) {
+                if (type == 2) {
+                    for (byte[] key : _utf8Keys) {
+                        found += lookup.findField(key, 0, key.length).id;
+                    }
+                } else {
+                    for (String key : _keys) {
+                        found += lookup.findField(key).id;
+                    }
+                }
+            }
+            long msecs = (System.nanoTime() - start) / 1000000L;
+            times[type] = (times[type] == 0L) ? msecs : ((times[type] + msecs) >> 1);
+            if (type == _names.length - 1) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < _names.length; ++i) {
+                    sb.append(String.format("%s: %d msecs  ", _names[i], times[i]));
+                }
+                System.out.println(sb+" ("+(found & 0xF)+")");
+            }
+        }
+    }
+}
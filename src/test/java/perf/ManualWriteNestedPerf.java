@@ -0,0 +1,112 @@
+package perf;
+
+import java.io.ByteArrayOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufGenerator;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+
+/**
+ * Simple manually run micro-benchmark for comparing alternative ways of
+ * writing nested messages: default (buffering), reverse encoding, and
+ * two-pass writing with precomputed sizes.
+ */
+public class ManualWriteNestedPerf
+{
+    final static String PROTOC_NODE =
+            "message Node {\n"
+            +" required int32 id = 1;\n"
+            +" optional string name = 2;\n"
+            +" optional Node left = 3;\n"
+            +" optional Node right = 4;\n"
+            +"}\n"
+    ;
+
+    public static class Node {
+        public int id;
+        public String name;
+        public Node left, right;
+    }
+
+    // Write about this many bytes per round, for each method
+    private final static int BYTES_PER_ROUND = 10 * 1000 * 1000;
+
+    private final ProtobufSchema _schema;
+    private final Node _input;
+
+    private final ObjectWriter _defaultWriter, _reverseWriter;
+    private final ProtobufMapper _sizingMapper;
+
+    private int _roundsDone;
+
+    public ManualWriteNestedPerf(int depth) throws Exception
+    {
+        _schema = ProtobufSchemaLoader.std.parse(PROTOC_NODE);
+        _input = _tree(0, depth);
+        _sizingMapper = new ProtobufMapper();
+        _defaultWriter = _sizingMapper.writer(_schema);
+        _reverseWriter = new ProtobufMapper(new ProtobufFactory()
+                .enable(ProtobufGenerator.Feature.REVERSE_ENCODING))
+            .writer(_schema);
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        new ManualWriteNestedPerf(depth).test();
+    }
+
+    public void test() throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(1000000);
+        final String[] names = { "Default", "Reverse", "Sized" };
+        final long[] times = new long[names.length];
+        final int size = _defaultWriter.writeValueAsBytes(_input).length;
+        final int reps = Math.max(1, BYTES_PER_ROUND / size);
+        System.out.printf("Input: %d bytes, %d repetitions per round\n", size, reps);
+
+        while (true) {
+            Thread.sleep(100L);
+            int type = (_roundsDone++ % names.length);
+            long start = System.nanoTime();
+            for (int i = 0; i < reps; ++i) {
+                out.reset();
+                switch (type) {
+                case 0:
+                    _defaultWriter.writeValue(out, _input);
+                    break;
+                case 1:
+                    _reverseWriter.writeValue(out, _input);
+                    break;
+                default:
+                    _sizingMapper.writeSizedValue(out, _schema, _input);
+                    break;
+                }
+            }
+            long msecs = (System.nanoTime() - start) / 1000000L;
+            times[type] = (times[type] == 0L) ? msecs : ((times[type] + msecs) >> 1);
+            if (type == names.length - 1) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < names.length; ++i) {
+                    sb.append(String.format("%s: %d msecs  ", names[i], times[i]));
+                }
+                System.out.println(sb);
+            }
+        }
+    }
+
+    private Node _tree(int id, int depth)
+    {
+        Node n = new Node();
+        n.id = id;
+        n.name = "Node #"+id;
+        if (depth > 0) {
+            n.left = _tree(2*id + 1, depth-1);
+            n.right = _tree(2*id + 2, depth-1);
+        }
+        return n;
+    }
+}